@@ -0,0 +1,97 @@
+package com.ycyw.poc_chat.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ycyw.poc_chat.model.MessageType;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Sérialisation JSON de {@link ChatMessageDTO}, payée à chaque diffusion
+ * STOMP (une fois par message, avant l'envoi aux abonnés) :
+ * - write : message seul, en octets comme le convertisseur STOMP ;
+ * - read : message reçu d'un client ;
+ * - writePage : page d'historique de 50 messages (GET .../messages).
+ *
+ * ObjectMapper construit comme celui de Spring Boot (dates ISO-8601).
+ *
+ * Lancement (depuis back/) :
+ * {@code mvn -pl benchmarks compile exec:exec -Djmh.includes=ChatMessageSerializationBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatMessageSerializationBenchmark {
+
+  private static final int PAGE_SIZE = 50;
+
+  private ObjectWriter writer;
+  private ObjectReader reader;
+  private ChatMessageDTO message;
+  private List<ChatMessageDTO> page;
+  private byte[] json;
+
+  @Setup
+  public void setUp() throws IOException {
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder
+      .json()
+      .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .build();
+    writer = objectMapper.writer();
+    reader = objectMapper.readerFor(ChatMessageDTO.class);
+
+    LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+    page = new ArrayList<>(PAGE_SIZE);
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      page.add(
+        ChatMessageDTO
+          .builder()
+          .id(1_000L + i)
+          .content("Message " + i + " : bonjour, où en est ma réservation ?")
+          .timestamp(start.plusSeconds(i))
+          .seq((long) i + 1)
+          .dialogId(42L)
+          .sender(String.valueOf(i % 2 + 1))
+          .isRead(Boolean.FALSE)
+          .type(MessageType.CHAT)
+          .build()
+      );
+    }
+    message = page.get(0);
+    json = writer.writeValueAsBytes(message);
+  }
+
+  @Benchmark
+  public byte[] write() throws IOException {
+    return writer.writeValueAsBytes(message);
+  }
+
+  @Benchmark
+  public ChatMessageDTO read() throws IOException {
+    return reader.readValue(json);
+  }
+
+  @Benchmark
+  public byte[] writePage() throws IOException {
+    return writer.writeValueAsBytes(page);
+  }
+}
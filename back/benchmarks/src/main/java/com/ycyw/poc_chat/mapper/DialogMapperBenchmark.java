@@ -0,0 +1,122 @@
+package com.ycyw.poc_chat.mapper;
+
+import com.ycyw.poc_chat.dto.DialogDTO;
+import com.ycyw.poc_chat.model.ChatMessage;
+import com.ycyw.poc_chat.model.Dialog;
+import com.ycyw.poc_chat.model.DialogStatus;
+import com.ycyw.poc_chat.model.MessageType;
+import com.ycyw.poc_chat.model.UserProfile;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Coût de {@link DialogMapper#toDialogDTO} (GET /api/dialog/{id}) selon la
+ * taille du dialogue : chaque message est converti puis inséré dans le
+ * LinkedHashSet du DTO (hashCode sur tous les champs du message).
+ *
+ * Mappers générés par MapStruct, assemblés par un contexte Spring minimal.
+ *
+ * Lancement (depuis back/) :
+ * {@code mvn -pl benchmarks compile exec:exec -Djmh.includes=DialogMapperBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DialogMapperBenchmark {
+
+  private static final int PARTICIPANTS = 4;
+
+  @Param({ "10", "1000", "10000" })
+  private int messages;
+
+  private AnnotationConfigApplicationContext context;
+  private DialogMapper mapper;
+  private Dialog dialog;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context =
+      new AnnotationConfigApplicationContext(
+        DialogMapperImpl.class,
+        ChatMessageMapperImpl.class,
+        UserProfileMapperImpl.class
+      );
+    mapper = context.getBean(DialogMapper.class);
+    dialog = dialog(messages);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public DialogDTO toDialogDTO() {
+    return mapper.toDialogDTO(dialog);
+  }
+
+  private static Dialog dialog(int messageCount) {
+    LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+    Dialog dialog = Dialog
+      .builder()
+      .id(1L)
+      .topic("Location annulée.@20250101_09:00:00")
+      .status(DialogStatus.OPEN)
+      .createdAt(start)
+      .lastActivityAt(start.plusSeconds(messageCount))
+      .participants(new HashSet<>())
+      .messages(new LinkedHashSet<>())
+      .build();
+
+    UserProfile[] participants = new UserProfile[PARTICIPANTS];
+    for (int i = 0; i < PARTICIPANTS; i++) {
+      participants[i] =
+        UserProfile
+          .builder()
+          .id((long) i + 1)
+          .firstName("Prénom" + i)
+          .lastName("Nom" + i)
+          .dialogs(Set.of())
+          .build();
+      dialog.getParticipants().add(participants[i]);
+    }
+
+    for (int i = 0; i < messageCount; i++) {
+      dialog
+        .getMessages()
+        .add(
+          ChatMessage
+            .builder()
+            .id((long) i + 1)
+            .seq((long) i + 1)
+            .content("Message " + i + " : bonjour, où en est ma réservation ?")
+            .type(MessageType.CHAT)
+            .timestamp(start.plusSeconds(i))
+            .dialog(dialog)
+            .sender(participants[i % PARTICIPANTS])
+            .build()
+        );
+    }
+    return dialog;
+  }
+}
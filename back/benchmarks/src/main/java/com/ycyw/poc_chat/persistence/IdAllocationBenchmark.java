@@ -0,0 +1,131 @@
+package com.ycyw.poc_chat.persistence;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Import d'un lot de messages via Hibernate : IDs IDENTITY (un INSERT et
+ * une lecture de clé générée par ligne, pas de batching) contre IDs
+ * {@link PooledSequence} (une lecture de séquence par bloc, INSERT
+ * regroupés par {@code hibernate.jdbc.batch_size}).
+ *
+ * Hibernate seul sur H2 en mémoire, avec les réglages de batching de
+ * l'application : mesure les allers-retours évités, pas la latence réseau
+ * vers MySQL qui les rend plus coûteux encore.
+ *
+ * Lancement (depuis back/) :
+ * {@code mvn -pl benchmarks compile exec:exec -Djmh.includes=IdAllocationBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdAllocationBenchmark {
+
+  private static final int MESSAGES = 500;
+
+  private SessionFactory sessionFactory;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    sessionFactory =
+      new Configuration()
+        .addAnnotatedClass(IdentityMessage.class)
+        .addAnnotatedClass(PooledMessage.class)
+        .setProperty(
+          AvailableSettings.JAKARTA_JDBC_URL,
+          "jdbc:h2:mem:ids;MODE=MySQL;DATABASE_TO_LOWER=TRUE"
+        )
+        .setProperty(AvailableSettings.JAKARTA_JDBC_USER, "sa")
+        .setProperty(AvailableSettings.JAKARTA_JDBC_PASSWORD, "")
+        .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+        .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "50")
+        .setProperty(AvailableSettings.ORDER_INSERTS, "true")
+        .buildSessionFactory();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    sessionFactory.close();
+  }
+
+  @Benchmark
+  public int identityIds() {
+    sessionFactory.inTransaction(session -> {
+      for (int i = 0; i < MESSAGES; i++) {
+        session.persist(new IdentityMessage("message " + i));
+      }
+    });
+    return MESSAGES;
+  }
+
+  @Benchmark
+  public int pooledIds() {
+    sessionFactory.inTransaction(session -> {
+      for (int i = 0; i < MESSAGES; i++) {
+        session.persist(new PooledMessage("message " + i));
+      }
+    });
+    return MESSAGES;
+  }
+
+  @Entity
+  @Table(name = "bench_identity_messages")
+  public static class IdentityMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String content;
+    private LocalDateTime timestamp;
+
+    protected IdentityMessage() {}
+
+    IdentityMessage(String content) {
+      this.content = content;
+      this.timestamp = LocalDateTime.now();
+    }
+  }
+
+  @Entity
+  @Table(name = "bench_pooled_messages")
+  public static class PooledMessage {
+
+    @Id
+    @PooledSequence(name = "bench_messages_seq")
+    private Long id;
+
+    private String content;
+    private LocalDateTime timestamp;
+
+    protected PooledMessage() {}
+
+    PooledMessage(String content) {
+      this.content = content;
+      this.timestamp = LocalDateTime.now();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.ycyw.poc_chat.security;
+
+import com.ycyw.poc_chat.model.Role;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Coût d'authentification par requête (CONNECT STOMP / requête REST) :
+ * - legacy : validateToken + 3 getters, soit 4 parseurs construits et 4 HMAC ;
+ * - parseOnce : une seule vérification avec le parseur partagé (cache manqué) ;
+ * - cached : token déjà vérifié, servi depuis le cache.
+ *
+ * Lancement (depuis back/) :
+ * {@code mvn -pl benchmarks compile exec:exec -Djmh.includes=JwtAuthBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthBenchmark {
+
+  private static final String SECRET =
+    "0123456789012345678901234567890123456789012345678901234567890123";
+
+  private SecretKey secretKey;
+  private JwtTokenProvider provider;
+  private JwtTokenProvider uncachedProvider;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    secretKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    provider = new JwtTokenProvider(SECRET, 3_600_000, 10_000);
+    uncachedProvider = new JwtTokenProvider(SECRET, 3_600_000, 0);
+    token = provider.generateToken(1L, "user@test.com", Role.USER);
+    provider.parseAndVerify(token);
+  }
+
+  @Benchmark
+  public UserPrincipal legacy() {
+    parse(token);
+    Claims claims = parse(token);
+    Long userId = Long.valueOf(claims.getSubject());
+    String email = parse(token).get("email", String.class);
+    String role = parse(token).get("role", String.class);
+    return new UserPrincipal(
+      userId,
+      email,
+      null,
+      Collections.singleton(new SimpleGrantedAuthority("ROLE_" + role))
+    );
+  }
+
+  @Benchmark
+  public UserPrincipal parseOnce() {
+    return uncachedProvider.getUserPrincipal(token);
+  }
+
+  @Benchmark
+  public UserPrincipal cached() {
+    return provider.getUserPrincipal(token);
+  }
+
+  private Claims parse(String jwt) {
+    return Jwts
+      .parserBuilder()
+      .setSigningKey(secretKey)
+      .build()
+      .parseClaimsJws(jwt)
+      .getBody();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+      new OptionsBuilder().include(JwtAuthBenchmark.class.getSimpleName()).build()
+    )
+      .run();
+  }
+}
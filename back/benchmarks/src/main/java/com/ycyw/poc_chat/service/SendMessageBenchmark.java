@@ -0,0 +1,112 @@
+package com.ycyw.poc_chat.service;
+
+import com.ycyw.poc_chat.PocChatApplication;
+import com.ycyw.poc_chat.model.ChatMessage;
+import com.ycyw.poc_chat.model.Dialog;
+import com.ycyw.poc_chat.model.Role;
+import com.ycyw.poc_chat.model.UserCredential;
+import com.ycyw.poc_chat.model.UserProfile;
+import com.ycyw.poc_chat.repository.UserCredentialRepository;
+import com.ycyw.poc_chat.repository.UserProfileRepository;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * {@link DialogService#sendMessage} de bout en bout (chemin REST) :
+ * transaction, lecture de l'état du dialogue en cache, numéro de
+ * séquence, INSERT du message et mise à jour du cache d'état.
+ *
+ * Application complète sur H2 en mode MySQL (schéma généré par Hibernate),
+ * port HTTP aléatoire, broker STOMP simple (pas de RabbitMQ). Mesure le coût applicatif et JPA, pas
+ * celui du réseau vers MySQL.
+ *
+ * Lancement (depuis back/) :
+ * {@code mvn -pl benchmarks compile exec:exec -Djmh.includes=SendMessageBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SendMessageBenchmark {
+
+  private ConfigurableApplicationContext context;
+  private DialogService dialogService;
+  private Long dialogId;
+  private Long senderId;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context =
+      new SpringApplicationBuilder(PocChatApplication.class)
+        .run(
+          "--server.port=0",
+          "--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE,TIMESTAMP",
+          "--spring.datasource.driver-class-name=org.h2.Driver",
+          "--spring.datasource.username=sa",
+          "--spring.datasource.password=",
+          "--spring.jpa.hibernate.ddl-auto=create-drop",
+          "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+          "--spring.jpa.show-sql=false",
+          "--database.name=bench",
+          "--spring.rabbitmq.username=guest",
+          "--spring.rabbitmq.password=guest",
+          "--jwt.secret=send-message-benchmark-secret-send-message-benchmark-secret-0123",
+          "--jwt.expiration-ms=3600000",
+          "--logging.level.root=WARN"
+        );
+    dialogService = context.getBean(DialogService.class);
+
+    UserCredential credential = context
+      .getBean(UserCredentialRepository.class)
+      .save(
+        UserCredential
+          .builder()
+          .email("bench@ycyw.com")
+          .password("x")
+          .role(Role.USER)
+          .build()
+      );
+    UserProfile sender = context
+      .getBean(UserProfileRepository.class)
+      .save(
+        UserProfile
+          .builder()
+          .userCredential(credential)
+          .firstName("Bench")
+          .build()
+      );
+    senderId = sender.getId();
+    Dialog dialog = dialogService.createDialog("bench", senderId);
+    dialogId = dialog.getId();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public ChatMessage clientMessage() {
+    return dialogService.sendMessage(
+      dialogId,
+      senderId,
+      "Bonjour, où en est ma réservation ?",
+      true
+    );
+  }
+}
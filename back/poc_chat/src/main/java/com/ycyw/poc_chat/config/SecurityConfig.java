@@ -1,10 +1,15 @@
 package com.ycyw.poc_chat.config;
 
 import com.ycyw.poc_chat.security.JwtAuthenticationFilter;
+import com.ycyw.poc_chat.security.TimedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -23,7 +28,10 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
  */
 @Configuration
 @EnableMethodSecurity
-@PropertySource("classpath:application-secrets.properties")
+@PropertySource(
+  value = "classpath:application-secrets.properties",
+  ignoreResourceNotFound = true
+)
 public class SecurityConfig {
 
   private final JwtAuthenticationFilter jwtAuthenticationFilter;
@@ -46,8 +54,29 @@ public class SecurityConfig {
    * Bean pour encoder les mots de passe avec BCrypt.
    */
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+    return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
+  }
+
+  /**
+   * Pool borné pour l'enregistrement des inscriptions (insert JDBC et
+   * éviction du cache), pour ne pas occuper le pool de hachage BCrypt.
+   * File pleine : la tâche est refusée et l'inscription répond 503.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor registrationExecutor(
+    @Value("${security.registration.threads:4}") int threads,
+    @Value("${security.registration.queue-capacity:64}") int queueCapacity
+  ) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("registration-");
+    executor.setRejectedExecutionHandler(
+      new ThreadPoolExecutor.AbortPolicy()
+    );
+    return executor;
   }
 
   @Bean
@@ -82,6 +111,12 @@ public class SecurityConfig {
       )
       .authorizeHttpRequests(auth ->
         auth
+          .requestMatchers(
+            "/actuator/jfr/**",
+            "/actuator/jfrstacks/**",
+            "/actuator/prometheus" // scrape Prometheus : jeton ADMIN
+          )
+          .hasRole("ADMIN")
           .requestMatchers(
             "/auth/**",
             "/swagger-ui/**",
@@ -90,6 +125,7 @@ public class SecurityConfig {
             "/ws/info/**",
             "/ws/iframe.html",
             "/test-websocket.html",
+            "/actuator/health",
             "/api/**"    //dev only !!!
           )
           .permitAll()
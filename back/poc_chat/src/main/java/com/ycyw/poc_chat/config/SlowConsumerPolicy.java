@@ -0,0 +1,143 @@
+package com.ycyw.poc_chat.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+/**
+ * Politique appliquée aux clients WebSocket qui ne lisent pas assez vite.
+ * - disconnect : seules les limites de Spring s'appliquent (tampon d'envoi
+ *   ou temps d'envoi dépassé, la session est fermée).
+ * - drop : tant qu'un envoi vers la session est bloqué depuis plus de
+ *   {@code drop-after}, les messages diffusés qui lui sont destinés sont
+ *   abandonnés au lieu de remplir son tampon ; la limite de temps d'envoi
+ *   finit par fermer un client réellement bloqué.
+ *
+ * Décore le handler WebSocket (suivi des envois en cours) et intercepte le
+ * canal sortant (abandon des messages).
+ */
+@Component
+public class SlowConsumerPolicy
+  implements WebSocketHandlerDecoratorFactory, ChannelInterceptor {
+
+  private final boolean drop;
+  private final long dropAfterNs;
+  private final Counter dropped;
+  private final Counter disconnected;
+  private final Map<String, TrackedSession> sessions = new ConcurrentHashMap<>();
+
+  public SlowConsumerPolicy(
+    MeterRegistry meterRegistry,
+    @Value("${chat.websocket.slow-consumer.policy:disconnect}") String policy,
+    @Value("${chat.websocket.slow-consumer.drop-after:2s}") Duration dropAfter
+  ) {
+    this.drop = "drop".equalsIgnoreCase(policy);
+    this.dropAfterNs = dropAfter.toNanos();
+    this.dropped = slowConsumerCounter(meterRegistry, "dropped");
+    this.disconnected = slowConsumerCounter(meterRegistry, "disconnected");
+  }
+
+  @Override
+  public WebSocketHandler decorate(WebSocketHandler handler) {
+    return new WebSocketHandlerDecorator(handler) {
+      @Override
+      public void afterConnectionEstablished(WebSocketSession session)
+        throws Exception {
+        TrackedSession tracked = new TrackedSession(session);
+        sessions.put(session.getId(), tracked);
+        super.afterConnectionEstablished(tracked);
+      }
+
+      @Override
+      public void afterConnectionClosed(
+        WebSocketSession session,
+        CloseStatus closeStatus
+      ) throws Exception {
+        sessions.remove(session.getId());
+        if (CloseStatus.SESSION_NOT_RELIABLE.equals(closeStatus)) {
+          disconnected.increment();
+        }
+        super.afterConnectionClosed(session, closeStatus);
+      }
+    };
+  }
+
+  @Override
+  public Message<?> preSend(Message<?> message, MessageChannel channel) {
+    if (
+      !drop ||
+      SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) !=
+      SimpMessageType.MESSAGE
+    ) {
+      return message;
+    }
+    String sessionId = SimpMessageHeaderAccessor.getSessionId(
+      message.getHeaders()
+    );
+    TrackedSession tracked = sessionId != null ? sessions.get(sessionId) : null;
+    if (tracked != null && tracked.stalledFor() > dropAfterNs) {
+      dropped.increment();
+      return null;
+    }
+    return message;
+  }
+
+  int trackedSessions() {
+    return sessions.size();
+  }
+
+  private static Counter slowConsumerCounter(
+    MeterRegistry registry,
+    String action
+  ) {
+    return Counter
+      .builder("websocket.slow_consumer")
+      .description("Clients lents : messages abandonnés ou sessions fermées")
+      .tag("action", action)
+      .register(registry);
+  }
+
+  /**
+   * Session dont on connaît le début de l'envoi en cours (0 si aucun).
+   */
+  private static final class TrackedSession extends WebSocketSessionDecorator {
+
+    private volatile long sendingSinceNs;
+
+    private TrackedSession(WebSocketSession delegate) {
+      super(delegate);
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+      sendingSinceNs = System.nanoTime();
+      try {
+        super.sendMessage(message);
+      } finally {
+        sendingSinceNs = 0;
+      }
+    }
+
+    private long stalledFor() {
+      long since = sendingSinceNs;
+      return since == 0 ? 0 : System.nanoTime() - since;
+    }
+  }
+}
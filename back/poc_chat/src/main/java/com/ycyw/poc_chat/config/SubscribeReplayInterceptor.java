@@ -0,0 +1,131 @@
+package com.ycyw.poc_chat.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ycyw.poc_chat.dto.ChatMessageDTO;
+import com.ycyw.poc_chat.persistence.RecentMessageBuffer;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Reprise des messages manqués à la (ré)inscription sur un dialogue.
+ *
+ * Un client qui s'abonne à /topic/dialog/{id} avec l'en-tête
+ * {@code last-seen: <seq>} reçoit, sur ce seul abonnement, les messages
+ * de numéro supérieur (en-tête {@code replay: true}), lus dans
+ * {@link RecentMessageBuffer}. L'envoi a lieu une fois l'abonnement
+ * transmis au broker : un message diffusé entre-temps peut arriver deux
+ * fois, le client le dédoublonne par son numéro de séquence.
+ */
+@Slf4j
+@Component
+public class SubscribeReplayInterceptor implements ExecutorChannelInterceptor {
+
+  static final String LAST_SEEN_HEADER = "last-seen";
+  static final String REPLAY_HEADER = "replay";
+
+  private static final Pattern DIALOG_TOPIC = Pattern.compile(
+    "/topic/dialog/(\\d+)"
+  );
+
+  private final RecentMessageBuffer recentMessages;
+  private final ObjectProvider<MessageChannel> clientOutboundChannel;
+  private final ObjectMapper objectMapper;
+
+  public SubscribeReplayInterceptor(
+    RecentMessageBuffer recentMessages,
+    @Qualifier(
+      "clientOutboundChannel"
+    ) ObjectProvider<MessageChannel> clientOutboundChannel,
+    ObjectMapper objectMapper
+  ) {
+    this.recentMessages = recentMessages;
+    this.clientOutboundChannel = clientOutboundChannel;
+    this.objectMapper = objectMapper;
+  }
+
+  @SuppressWarnings("null")
+  @Override
+  public void afterMessageHandled(
+    Message<?> message,
+    MessageChannel channel,
+    MessageHandler handler,
+    Exception ex
+  ) {
+    if (ex != null || !(handler instanceof AbstractBrokerMessageHandler)) {
+      return;
+    }
+    StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+    if (!StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+      return;
+    }
+    String lastSeen = accessor.getFirstNativeHeader(LAST_SEEN_HEADER);
+    String destination = accessor.getDestination();
+    if (lastSeen == null || destination == null) {
+      return;
+    }
+    Matcher matcher = DIALOG_TOPIC.matcher(destination);
+    if (!matcher.matches()) {
+      return;
+    }
+
+    try {
+      List<ChatMessageDTO> missing = recentMessages.since(
+        Long.valueOf(matcher.group(1)),
+        Math.max(0L, Long.parseLong(lastSeen.trim()))
+      );
+      for (ChatMessageDTO dto : missing) {
+        send(
+          accessor.getSessionId(),
+          accessor.getSubscriptionId(),
+          destination,
+          dto
+        );
+      }
+    } catch (NumberFormatException e) {
+      log.warn("Replay: invalid {} header '{}'", LAST_SEEN_HEADER, lastSeen);
+    } catch (RuntimeException | JsonProcessingException e) {
+      log.warn("Replay on {} failed: {}", destination, e.getMessage());
+    }
+  }
+
+  private void send(
+    String sessionId,
+    String subscriptionId,
+    String destination,
+    ChatMessageDTO dto
+  ) throws JsonProcessingException {
+    SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(
+      SimpMessageType.MESSAGE
+    );
+    headers.setSessionId(sessionId);
+    headers.setSubscriptionId(subscriptionId);
+    headers.setDestination(destination);
+    headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+    headers.setNativeHeader(REPLAY_HEADER, "true");
+    clientOutboundChannel
+      .getObject()
+      .send(
+        MessageBuilder.createMessage(
+          objectMapper.writeValueAsBytes(dto),
+          headers.getMessageHeaders()
+        )
+      );
+  }
+}
@@ -1,31 +1,199 @@
 package com.ycyw.poc_chat.config;
 
+import com.ycyw.poc_chat.monitoring.StompFrameMetrics;
 import com.ycyw.poc_chat.security.WebSocketAuthInterceptor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.messaging.simp.stomp.StompReactorNettyCodec;
+import org.springframework.messaging.tcp.reactor.ReactorNettyTcpClient;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+import reactor.netty.tcp.TcpClient;
 
+/**
+ * Configuration STOMP.
+ * - {@code chat.broker.mode=simple} : broker en mémoire, un seul nœud.
+ * - {@code chat.broker.mode=relay} : relais vers RabbitMQ (plugin STOMP),
+ *   les topics de dialogue et les destinations utilisateur sont partagés
+ *   entre toutes les instances du backend.
+ * Les canaux client (entrant / sortant) ont chacun un pool et une file
+ * bornés, ou des threads virtuels en profil virtual-threads, exposés en
+ * métriques (websocket.channel.*), et chaque trame y est mesurée
+ * (voir {@link StompFrameMetrics}).
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
   private final WebSocketAuthInterceptor webSocketAuthInterceptor;
+  private final SlowConsumerPolicy slowConsumerPolicy;
+  private final SubscribeReplayInterceptor subscribeReplayInterceptor;
+  private final StompFrameMetrics stompFrameMetrics;
+  private final MeterRegistry meterRegistry;
+  private final boolean virtualThreads;
 
-  public WebSocketConfig(WebSocketAuthInterceptor webSocketAuthInterceptor) {
+  @Value("${chat.broker.mode:simple}")
+  private String brokerMode;
+
+  @Value("${chat.broker.relay.host:localhost}")
+  private String relayHost;
+
+  @Value("${chat.broker.relay.port:61613}")
+  private int relayPort;
+
+  @Value("${chat.broker.relay.virtual-host:/}")
+  private String relayVirtualHost;
+
+  @Value("${chat.broker.relay.client-login:guest}")
+  private String relayClientLogin;
+
+  @Value("${chat.broker.relay.client-passcode:guest}")
+  private String relayClientPasscode;
+
+  @Value("${chat.broker.relay.system-login:guest}")
+  private String relaySystemLogin;
+
+  @Value("${chat.broker.relay.system-passcode:guest}")
+  private String relaySystemPasscode;
+
+  @Value("${chat.broker.relay.heartbeat-send-ms:10000}")
+  private long relayHeartbeatSendMs;
+
+  @Value("${chat.broker.relay.heartbeat-receive-ms:10000}")
+  private long relayHeartbeatReceiveMs;
+
+  @Value("${chat.broker.relay.max-connections:1000}")
+  private int relayMaxConnections;
+
+  @Value("${chat.broker.relay.acquire-timeout:5s}")
+  private Duration relayAcquireTimeout;
+
+  @Value("${chat.websocket.inbound.core-pool-size:8}")
+  private int inboundCorePoolSize;
+
+  @Value("${chat.websocket.inbound.max-pool-size:32}")
+  private int inboundMaxPoolSize;
+
+  @Value("${chat.websocket.inbound.queue-capacity:1000}")
+  private int inboundQueueCapacity;
+
+  @Value("${chat.websocket.outbound.core-pool-size:8}")
+  private int outboundCorePoolSize;
+
+  @Value("${chat.websocket.outbound.max-pool-size:32}")
+  private int outboundMaxPoolSize;
+
+  @Value("${chat.websocket.outbound.queue-capacity:5000}")
+  private int outboundQueueCapacity;
+
+  @Value("${chat.websocket.virtual.concurrency-limit:10000}")
+  private int virtualConcurrencyLimit;
+
+  @Value("${chat.websocket.send-time-limit:10s}")
+  private Duration sendTimeLimit;
+
+  @Value("${chat.websocket.send-buffer-size-limit:512KB}")
+  private DataSize sendBufferSizeLimit;
+
+  @Value("${chat.websocket.message-size-limit:64KB}")
+  private DataSize messageSizeLimit;
+
+  public WebSocketConfig(
+    WebSocketAuthInterceptor webSocketAuthInterceptor,
+    SlowConsumerPolicy slowConsumerPolicy,
+    SubscribeReplayInterceptor subscribeReplayInterceptor,
+    StompFrameMetrics stompFrameMetrics,
+    MeterRegistry meterRegistry,
+    Environment environment
+  ) {
     this.webSocketAuthInterceptor = webSocketAuthInterceptor;
+    this.slowConsumerPolicy = slowConsumerPolicy;
+    this.subscribeReplayInterceptor = subscribeReplayInterceptor;
+    this.stompFrameMetrics = stompFrameMetrics;
+    this.meterRegistry = meterRegistry;
+    this.virtualThreads = Threading.VIRTUAL.isActive(environment);
   }
 
   @SuppressWarnings("null")
   @Override
   public void configureMessageBroker(MessageBrokerRegistry config) {
-    config.enableSimpleBroker("/topic", "/queue");
+    if ("relay".equalsIgnoreCase(brokerMode)) {
+      configureRelay(config.enableStompBrokerRelay("/topic", "/queue"));
+    } else {
+      config.enableSimpleBroker("/topic", "/queue");
+    }
     config.setApplicationDestinationPrefixes("/app");
     config.setUserDestinationPrefix("/user");
   }
 
+  /**
+   * Relais RabbitMQ : une session « système » partagée pour les envois
+   * applicatifs, puis une connexion TCP par session client, prise dans un
+   * pool borné.
+   */
+  private void configureRelay(StompBrokerRelayRegistration relay) {
+    ConnectionProvider connections = ConnectionProvider
+      .builder("stomp-relay")
+      .maxConnections(relayMaxConnections)
+      .pendingAcquireTimeout(relayAcquireTimeout)
+      .build();
+    LoopResources loops = LoopResources.create("stomp-relay");
+    TcpClient tcpClient = TcpClient
+      .create(connections)
+      .runOn(loops)
+      .host(relayHost)
+      .port(relayPort);
+
+    ReactorNettyTcpClient<byte[]> relayClient = new ReactorNettyTcpClient<>(
+      tcpClient,
+      new StompReactorNettyCodec()
+    ) {
+      // Pool et boucles d'E/S nous appartiennent : on les ferme avant que
+      // Spring n'arrête son planificateur, sinon la reconnexion de la
+      // session système échoue bruyamment à l'arrêt.
+      @Override
+      public CompletableFuture<Void> shutdownAsync() {
+        return loops
+          .disposeLater()
+          .then(connections.disposeLater())
+          .onErrorComplete()
+          .toFuture()
+          .thenCompose(done -> super.shutdownAsync());
+      }
+    };
+
+    relay
+      .setTcpClient(relayClient)
+      .setVirtualHost(relayVirtualHost)
+      .setClientLogin(relayClientLogin)
+      .setClientPasscode(relayClientPasscode)
+      .setSystemLogin(relaySystemLogin)
+      .setSystemPasscode(relaySystemPasscode)
+      .setSystemHeartbeatSendInterval(relayHeartbeatSendMs)
+      .setSystemHeartbeatReceiveInterval(relayHeartbeatReceiveMs)
+      // résolution des /user/... et registre des sessions entre instances
+      .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+      .setUserRegistryBroadcast("/topic/simp-user-registry");
+  }
+
   @SuppressWarnings("null")
   @Override
   public void registerStompEndpoints(StompEndpointRegistry registry) {
@@ -36,9 +204,134 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
       .setSuppressCors(true);
   }
 
+  /**
+   * Limites par session : au-delà du temps d'envoi ou de la taille du
+   * tampon, Spring ferme la session ; la politique « client lent » agit
+   * avant (voir {@link SlowConsumerPolicy}).
+   */
+  @Override
+  public void configureWebSocketTransport(
+    WebSocketTransportRegistration registration
+  ) {
+    registration
+      .setSendTimeLimit((int) sendTimeLimit.toMillis())
+      .setSendBufferSizeLimit((int) sendBufferSizeLimit.toBytes())
+      .setMessageSizeLimit((int) messageSizeLimit.toBytes())
+      .addDecoratorFactory(slowConsumerPolicy);
+  }
+
   @SuppressWarnings("null")
   @Override
   public void configureClientInboundChannel(ChannelRegistration registration) {
-    registration.interceptors(webSocketAuthInterceptor);
+    if (virtualThreads) {
+      registration.executor(virtualChannelExecutor("inbound"));
+    } else {
+      registration.taskExecutor(
+        channelExecutor(
+          "inbound",
+          inboundCorePoolSize,
+          inboundMaxPoolSize,
+          inboundQueueCapacity
+        )
+      );
+    }
+    registration.interceptors(
+      webSocketAuthInterceptor,
+      stompFrameMetrics.inbound(),
+      subscribeReplayInterceptor
+    );
+  }
+
+  @SuppressWarnings("null")
+  @Override
+  public void configureClientOutboundChannel(
+    ChannelRegistration registration
+  ) {
+    if (virtualThreads) {
+      registration.executor(virtualChannelExecutor("outbound"));
+    } else {
+      registration.taskExecutor(
+        channelExecutor(
+          "outbound",
+          outboundCorePoolSize,
+          outboundMaxPoolSize,
+          outboundQueueCapacity
+        )
+      );
+    }
+    // après la politique « client lent » : un message abandonné n'entre
+    // pas dans la file de la session
+    registration.interceptors(slowConsumerPolicy, stompFrameMetrics.outbound());
+  }
+
+  /**
+   * Pool borné d'un canal client. File pleine : le thread appelant traite
+   * lui-même le message, ce qui ralentit la source (lecture de la socket
+   * ou diffusion du broker) au lieu d'accumuler en mémoire.
+   */
+  private ThreadPoolTaskExecutor channelExecutor(
+    String channel,
+    int corePoolSize,
+    int maxPoolSize,
+    int queueCapacity
+  ) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(corePoolSize);
+    executor.setMaxPoolSize(maxPoolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setKeepAliveSeconds(60);
+    executor.setRejectedExecutionHandler(
+      new ThreadPoolExecutor.CallerRunsPolicy()
+    );
+    Gauge
+      .builder(
+        "websocket.channel.queue",
+        executor,
+        ThreadPoolTaskExecutor::getQueueSize
+      )
+      .description("Messages en attente dans le canal client")
+      .tag("channel", channel)
+      .register(meterRegistry);
+    Gauge
+      .builder(
+        "websocket.channel.active",
+        executor,
+        ThreadPoolTaskExecutor::getActiveCount
+      )
+      .description("Threads occupés du canal client")
+      .tag("channel", channel)
+      .register(meterRegistry);
+    return executor;
+  }
+
+  /**
+   * Mode threads virtuels (spring.threads.virtual.enabled, Java 21) : un
+   * thread virtuel par message, sans pool ni file. La limite de
+   * concurrence bloque l'appelant une fois atteinte, comme la file pleine
+   * du mode pool.
+   */
+  private SimpleAsyncTaskExecutor virtualChannelExecutor(String channel) {
+    SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(
+      "ws-" + channel + "-"
+    );
+    executor.setVirtualThreads(true);
+    executor.setConcurrencyLimit(virtualConcurrencyLimit);
+    AtomicInteger active = new AtomicInteger();
+    executor.setTaskDecorator(task ->
+      () -> {
+        active.incrementAndGet();
+        try {
+          task.run();
+        } finally {
+          active.decrementAndGet();
+        }
+      }
+    );
+    Gauge
+      .builder("websocket.channel.active", active, AtomicInteger::get)
+      .description("Threads occupés du canal client")
+      .tag("channel", channel)
+      .register(meterRegistry);
+    return executor;
   }
 }
@@ -6,11 +6,21 @@ import com.ycyw.poc_chat.dto.RegisterRequest;
 import com.ycyw.poc_chat.model.Role;
 import com.ycyw.poc_chat.model.UserCredential;
 import com.ycyw.poc_chat.repository.UserCredentialRepository;
+import com.ycyw.poc_chat.security.CustomUserDetailsService;
 import com.ycyw.poc_chat.security.JwtTokenProvider;
+import com.ycyw.poc_chat.security.PasswordHashingExecutor;
+import com.ycyw.poc_chat.security.TokenRevocationRegistry;
 import com.ycyw.poc_chat.security.UserPrincipal;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.validation.Valid;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -34,24 +44,40 @@ public class AuthController {
   private final JwtTokenProvider tokenProvider;
   private final PasswordEncoder passwordEncoder;
   private final UserCredentialRepository credentialRepo;
+  private final TokenRevocationRegistry revocationRegistry;
+  private final CustomUserDetailsService userDetailsService;
+  private final PasswordHashingExecutor hashingExecutor;
+  private final Executor registrationExecutor;
 
   public AuthController(
     AuthenticationManager authManager,
     JwtTokenProvider tokenProvider,
     PasswordEncoder passwordEncoder,
-    UserCredentialRepository credentialRepo
+    UserCredentialRepository credentialRepo,
+    TokenRevocationRegistry revocationRegistry,
+    CustomUserDetailsService userDetailsService,
+    PasswordHashingExecutor hashingExecutor,
+    @Qualifier("registrationExecutor") Executor registrationExecutor
   ) {
     this.authManager = authManager;
     this.tokenProvider = tokenProvider;
     this.passwordEncoder = passwordEncoder;
     this.credentialRepo = credentialRepo;
+    this.revocationRegistry = revocationRegistry;
+    this.userDetailsService = userDetailsService;
+    this.hashingExecutor = hashingExecutor;
+    this.registrationExecutor = registrationExecutor;
   }
 
   /**
    * Inscrit un nouvel utilisateur.
+   * Le hachage BCrypt s'exécute sur le pool dédié, hors du thread HTTP ;
+   * l'insertion en base passe ensuite sur le pool d'enregistrement pour
+   * libérer aussitôt le thread de hachage.
    *
    * @param req DTO contenant email, mot de passe et rôle
-   * @return 200 si succès, 400 si email déjà existant
+   * @return 200 si succès, 400 si email déjà existant (y compris en cas
+   *         d'inscriptions concurrentes), 503 si un des pools est saturé
    */
   @Operation(
     summary = "Register",
@@ -59,39 +85,79 @@ public class AuthController {
   )
   @ApiResponse(responseCode = "200", description = "Inscription réussie")
   @ApiResponse(responseCode = "400", description = "Email déjà utilisé")
+  @ApiResponse(responseCode = "503", description = "Serveur saturé")
   @PostMapping("/register")
-  public ResponseEntity<String> register(
+  public CompletableFuture<ResponseEntity<String>> register(
     @Valid @RequestBody RegisterRequest req
   ) {
     if (credentialRepo.existsByEmail(req.getEmail())) {
-      return ResponseEntity.badRequest().body("Email déjà utilisé");
+      return CompletableFuture.completedFuture(emailTaken());
     }
 
     Role roleEnum;
     try {
       roleEnum = Role.valueOf(req.getRole().toUpperCase());
     } catch (IllegalArgumentException e) {
-      return ResponseEntity
-        .badRequest()
-        .body("Rôle invalide. Doit être USER, AGENT ou ADMIN.");
+      return CompletableFuture.completedFuture(
+        ResponseEntity
+          .badRequest()
+          .body("Rôle invalide. Doit être USER, AGENT ou ADMIN.")
+      );
+    }
+
+    try {
+      return hashingExecutor
+        .submit(() -> passwordEncoder.encode(req.getPassword()))
+        .thenApplyAsync(
+          hash -> save(req.getEmail(), hash, roleEnum),
+          registrationExecutor
+        )
+        .exceptionally(AuthController::registrationFailed);
+    } catch (RejectedExecutionException e) {
+      return CompletableFuture.completedFuture(saturated());
     }
+  }
 
+  private ResponseEntity<String> save(String email, String hash, Role role) {
     UserCredential uc = UserCredential
       .builder()
-      .email(req.getEmail())
-      .password(passwordEncoder.encode(req.getPassword()))
-      .role(roleEnum)
+      .email(email)
+      .password(hash)
+      .role(role)
       .build();
-    credentialRepo.save(uc);
-
+    UserCredential saved = credentialRepo.save(uc);
+    userDetailsService.evict(saved.getId(), saved.getEmail());
     return ResponseEntity.ok("Inscription réussie");
   }
 
+  /**
+   * Traduit l'échec d'une inscription : la contrainte d'unicité sur
+   * l'email couvre la course entre deux inscriptions concurrentes.
+   */
+  private static ResponseEntity<String> registrationFailed(Throwable ex) {
+    Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+    if (cause instanceof DataIntegrityViolationException) {
+      return emailTaken();
+    }
+    if (cause instanceof RejectedExecutionException) {
+      return saturated();
+    }
+    throw ex instanceof CompletionException ce
+      ? ce
+      : new CompletionException(ex);
+  }
+
+  private static ResponseEntity<String> emailTaken() {
+    return ResponseEntity.badRequest().body("Email déjà utilisé");
+  }
+
   /**
    * Authentifie un utilisateur et renvoie un JWT.
+   * La vérification BCrypt s'exécute sur le pool dédié, hors du thread HTTP.
    *
    * @param req DTO contenant email et mot de passe
-   * @return 200 + JwtResponse si succès, 401 sinon
+   * @return 200 + JwtResponse si succès, 401 si identifiants incorrects,
+   *         503 si le pool de hachage est saturé
    */
   @Operation(
     summary = "Login",
@@ -105,8 +171,19 @@ public class AuthController {
     responseCode = "401",
     description = "Email ou mot de passe incorrect"
   )
+  @ApiResponse(responseCode = "503", description = "Serveur saturé")
   @PostMapping("/login")
-  public ResponseEntity<?> login(@Valid @RequestBody LoginRequest req) {
+  public CompletableFuture<ResponseEntity<?>> login(
+    @Valid @RequestBody LoginRequest req
+  ) {
+    try {
+      return hashingExecutor.submit(() -> authenticate(req));
+    } catch (RejectedExecutionException e) {
+      return CompletableFuture.completedFuture(saturated());
+    }
+  }
+
+  private ResponseEntity<?> authenticate(LoginRequest req) {
     try {
       Authentication authentication = authManager.authenticate(
         new UsernamePasswordAuthenticationToken(
@@ -129,7 +206,8 @@ public class AuthController {
       String token = tokenProvider.generateToken(
         principal.getId(),
         principal.getUsername(),
-        roleEnum
+        roleEnum,
+        revocationRegistry.generationForNewToken(principal.getId())
       );
 
       JwtResponse resp = new JwtResponse(
@@ -145,4 +223,11 @@ public class AuthController {
         .body("Email ou mot de passe incorrect");
     }
   }
+
+  private static <T> ResponseEntity<T> saturated() {
+    return ResponseEntity
+      .status(HttpStatus.SERVICE_UNAVAILABLE)
+      .header(HttpHeaders.RETRY_AFTER, "1")
+      .build();
+  }
 }
@@ -1,9 +1,14 @@
 package com.ycyw.poc_chat.controller;
 
+import com.ycyw.poc_chat.dto.ChatMessageDTO;
 import com.ycyw.poc_chat.dto.DialogDTO;
+import com.ycyw.poc_chat.dto.DialogSummaryDTO;
+import com.ycyw.poc_chat.mapper.ChatMessageMapper;
 import com.ycyw.poc_chat.mapper.DialogMapper;
+import com.ycyw.poc_chat.model.ChatMessage;
 import com.ycyw.poc_chat.model.Dialog;
 import com.ycyw.poc_chat.model.DialogStatus;
+import com.ycyw.poc_chat.repository.ChatMessageRepository;
 import com.ycyw.poc_chat.repository.DialogRepository;
 import com.ycyw.poc_chat.service.DialogService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,10 +18,14 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.persistence.EntityNotFoundException;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -30,9 +39,14 @@ import org.springframework.web.bind.annotation.*;
 )
 public class DialogController {
 
+  static final int DEFAULT_PAGE_SIZE = 50;
+  static final int MAX_PAGE_SIZE = 200;
+
   private final DialogRepository dialogRepository;
   private final DialogService dialogService;
   private final DialogMapper dialogMapper;
+  private final ChatMessageRepository messageRepository;
+  private final ChatMessageMapper chatMessageMapper;
 
   @Operation(summary = "Récupérer tous les dialogues")
   @ApiResponse(
@@ -50,9 +64,35 @@ public class DialogController {
       .stream()
       .map(dialogMapper::toDialogDTO)
       .collect(Collectors.toList());
+    dialogService.applyReadState(dialogDTOs, null);
     return ResponseEntity.ok(dialogDTOs);
   }
 
+  @Operation(
+    summary = "Récupérer une page de résumés de dialogues",
+    description = "Id, sujet, statut, dernière activité, non lus et aperçu du dernier message. " +
+    "Les non lus sont ceux du lecteur s'il est précisé, sinon ceux qu'aucun participant n'a lus."
+  )
+  @ApiResponse(responseCode = "200", description = "Page de résumés retournée")
+  @GetMapping("/summaries")
+  public ResponseEntity<List<DialogSummaryDTO>> getDialogSummaries(
+    @Parameter(description = "Numéro de page (à partir de 0)") @RequestParam(
+      defaultValue = "0"
+    ) int page,
+    @Parameter(
+      description = "Taille de page (1 à " + MAX_PAGE_SIZE + ")"
+    ) @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+    @Parameter(
+      description = "ID du profil lecteur pour le décompte des non lus"
+    ) @RequestParam(required = false) Long readerId
+  ) {
+    Pageable pageable = PageRequest.of(
+      Math.max(0, page),
+      Math.max(1, Math.min(size, MAX_PAGE_SIZE))
+    );
+    return ResponseEntity.ok(dialogRepository.findDialogSummaries(readerId, pageable));
+  }
+
   @Operation(
     summary = "Récupérer les dialogues par statut",
     description = "Statut possible : OPEN, PENDING, CLOSED"
@@ -64,11 +104,13 @@ public class DialogController {
       required = true
     ) @PathVariable DialogStatus status
   ) {
-    return dialogRepository
+    List<DialogDTO> dialogDTOs = dialogRepository
       .findByStatus(status)
       .stream()
       .map(dialogMapper::toDialogDTO)
       .collect(Collectors.toList());
+    dialogService.applyReadState(dialogDTOs, null);
+    return dialogDTOs;
   }
 
   @Operation(summary = "Récupérer un dialogue par ID avec messages et senders")
@@ -81,10 +123,67 @@ public class DialogController {
   ) {
     return dialogRepository
       .findByIdWithMessagesAndSenders(id)
-      .map(dialog -> ResponseEntity.ok(dialogMapper.toDialogDTO(dialog)))
+      .map(dialog -> {
+        DialogDTO dto = dialogMapper.toDialogDTO(dialog);
+        dialogService.applyReadState(List.of(dto), null);
+        return ResponseEntity.ok(dto);
+      })
       .orElse(ResponseEntity.notFound().build());
   }
 
+  @Operation(
+    summary = "Récupérer une page de l'historique des messages d'un dialogue",
+    description = "Pagination par clé : renvoie au plus `limit` messages antérieurs au message `before` " +
+    "(les plus récents si absent), dans l'ordre chronologique. Avec `afterSeq`, renvoie les messages " +
+    "suivant ce numéro de séquence (reprise après une coupure ou un trou)."
+  )
+  @ApiResponse(responseCode = "200", description = "Page de messages")
+  @ApiResponse(responseCode = "404", description = "Dialogue introuvable")
+  @GetMapping("/{id}/messages")
+  public ResponseEntity<List<ChatMessageDTO>> getDialogMessages(
+    @Parameter(
+      description = "ID du dialogue",
+      required = true
+    ) @PathVariable Long id,
+    @Parameter(
+      description = "ID du message curseur (exclu), absent pour la page la plus récente"
+    ) @RequestParam(required = false) Long before,
+    @Parameter(
+      description = "Dernier numéro de séquence reçu (exclu), prioritaire sur `before`"
+    ) @RequestParam(required = false) Long afterSeq,
+    @Parameter(
+      description = "Nombre maximum de messages (1 à " + MAX_PAGE_SIZE + ")"
+    ) @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit
+  ) {
+    if (!dialogRepository.existsById(id)) {
+      return ResponseEntity.notFound().build();
+    }
+    Pageable page = PageRequest.of(
+      0,
+      Math.max(1, Math.min(limit, MAX_PAGE_SIZE))
+    );
+    if (afterSeq != null) {
+      List<ChatMessageDTO> dtos = messageRepository
+        .findPageAfterSeqByDialogId(id, afterSeq, page)
+        .stream()
+        .map(chatMessageMapper::toDto)
+        .collect(Collectors.toList());
+      dialogService.applyReadState(id, dtos, null);
+      return ResponseEntity.ok(dtos);
+    }
+    List<ChatMessage> messages = before == null
+      ? messageRepository.findLatestByDialogId(id, page)
+      : messageRepository.findPageBeforeByDialogId(id, before, page);
+
+    List<ChatMessageDTO> dtos = messages
+      .stream()
+      .map(chatMessageMapper::toDto)
+      .collect(Collectors.toList());
+    dialogService.applyReadState(id, dtos, null);
+    Collections.reverse(dtos);
+    return ResponseEntity.ok(dtos);
+  }
+
   @Operation(
     summary = "Récupérer les dialogues par sender",
     description = "Renvoie les dialogues où l'utilisateur a posté un message"
@@ -96,11 +195,13 @@ public class DialogController {
       required = true
     ) @PathVariable("id") Long id
   ) {
-    return dialogRepository
+    List<DialogDTO> dialogDTOs = dialogRepository
       .findDistinctByParticipantsIdWithMessagesAndSenders(id)
       .stream()
       .map(dialogMapper::toDialogDTO)
-      .collect(Collectors.toSet());
+      .collect(Collectors.toList());
+    dialogService.applyReadState(dialogDTOs, id);
+    return new HashSet<>(dialogDTOs);
   }
 
   @Operation(
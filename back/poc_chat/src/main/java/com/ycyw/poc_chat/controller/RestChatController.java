@@ -4,6 +4,7 @@ import com.ycyw.poc_chat.dto.ChatMessageDTO;
 import com.ycyw.poc_chat.dto.DialogResponseDTO;
 import com.ycyw.poc_chat.model.ChatMessage;
 import com.ycyw.poc_chat.model.Dialog;
+import com.ycyw.poc_chat.persistence.RecentMessageBuffer;
 import com.ycyw.poc_chat.security.UserPrincipal;
 import com.ycyw.poc_chat.service.DialogService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -34,6 +35,7 @@ public class RestChatController {
 
   private final DialogService dialogService;
   private final SimpMessagingTemplate messagingTemplate;
+  private final RecentMessageBuffer recentMessages;
 
   /**
    * Crée un nouveau salon de discussion.
@@ -128,6 +130,7 @@ public class RestChatController {
       saved.getId(),
       saved.getContent(),
       saved.getTimestamp(),
+      saved.getSeq(),
       saved.getDialog().getId(),
       user.getUsername(),
       false,
@@ -138,6 +141,7 @@ public class RestChatController {
       "/topic/dialog/" + dialogId,
       chatMessageDto
     );
+    recentMessages.append(chatMessageDto);
     return ResponseEntity.ok(chatMessageDto);
   }
 
@@ -5,6 +5,8 @@ import com.ycyw.poc_chat.dto.UserProfileDTO;
 import com.ycyw.poc_chat.mapper.UserProfileMapper;
 import com.ycyw.poc_chat.model.UserProfile;
 import com.ycyw.poc_chat.repository.UserProfileRepository;
+import com.ycyw.poc_chat.security.SessionProfileCache;
+import com.ycyw.poc_chat.security.TokenRevocationRegistry;
 import com.ycyw.poc_chat.security.UserPrincipal;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,6 +15,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -31,6 +34,8 @@ public class UserProfileController {
 
   private final UserProfileRepository userProfileRepository;
   private final UserProfileMapper userProfileMapper;
+  private final SessionProfileCache sessionProfileCache;
+  private final TokenRevocationRegistry revocationRegistry;
 
   /**
    * Récupère son propre profil.
@@ -149,6 +154,39 @@ public class UserProfileController {
     existing.setType(request.getType());
 
     UserProfile updated = userProfileRepository.save(existing);
+    sessionProfileCache.refresh(userId, updated);
     return ResponseEntity.ok(userProfileMapper.toResponse(updated));
   }
+
+  /**
+   * Révoque tous les tokens émis pour un utilisateur (déconnexion partout).
+   */
+  @Operation(
+    summary = "Revoke user tokens",
+    description = "Invalide tous les JWT déjà émis (propriétaire ou ADMIN)."
+  )
+  @ApiResponses(
+    {
+      @ApiResponse(responseCode = "204", description = "Tokens révoqués"),
+      @ApiResponse(responseCode = "404", description = "Utilisateur non trouvé"),
+      @ApiResponse(responseCode = "403", description = "Privilèges incorrects"),
+    }
+  )
+  @PostMapping("/{userId}/revoke-tokens")
+  public ResponseEntity<Void> revokeTokens(
+    @Parameter(
+      description = "ID utilisateur (depuis user_credentials)"
+    ) @PathVariable Long userId,
+    @AuthenticationPrincipal UserPrincipal principal
+  ) {
+    if (!principal.getId().equals(userId) && !principal.hasRole("ADMIN")) {
+      return ResponseEntity.status(403).build();
+    }
+    try {
+      revocationRegistry.revokeAll(userId);
+    } catch (EntityNotFoundException ex) {
+      return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.noContent().build();
+  }
 }
@@ -5,8 +5,13 @@ import com.ycyw.poc_chat.lifecycle.DialogLifecycleManager;
 import com.ycyw.poc_chat.model.ChatMessage;
 import com.ycyw.poc_chat.model.Dialog;
 import com.ycyw.poc_chat.model.MessageType;
-import com.ycyw.poc_chat.model.UserProfile;
-import com.ycyw.poc_chat.repository.UserProfileRepository;
+import com.ycyw.poc_chat.monitoring.ChatMetrics;
+import com.ycyw.poc_chat.persistence.MessageBackpressureException;
+import com.ycyw.poc_chat.persistence.MessageWriteBehindService;
+import com.ycyw.poc_chat.persistence.PendingMessage;
+import com.ycyw.poc_chat.persistence.RecentMessageBuffer;
+import com.ycyw.poc_chat.security.ProfileSnapshot;
+import com.ycyw.poc_chat.security.SessionProfileCache;
 import com.ycyw.poc_chat.security.UserPrincipal;
 import com.ycyw.poc_chat.service.DialogService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -31,8 +36,11 @@ public class WSChatController {
 
   private final SimpMessagingTemplate messagingTemplate;
   private final DialogService dialogService;
-  private final UserProfileRepository userProfileRepository;
+  private final SessionProfileCache sessionProfileCache;
   private final DialogLifecycleManager lifecycleManager;
+  private final MessageWriteBehindService writeBehindService;
+  private final RecentMessageBuffer recentMessages;
+  private final ChatMetrics chatMetrics;
 
   @Operation(summary = "Créer un nouveau salon de discussion (dialogue)")
   @MessageMapping("/chat.createDialog")
@@ -72,6 +80,7 @@ public class WSChatController {
     ChatMessageDTO message,
     SimpMessageHeaderAccessor headerAccessor
   ) {
+    long receivedAt = System.nanoTime();
     processAuthenticatedRequest(
       "sendUserMessage",
       message,
@@ -83,17 +92,53 @@ public class WSChatController {
         }
         prepareMessage(message, profile.getId().toString(), MessageType.CHAT);
 
-        ChatMessage saved = dialogService.sendMessage(
+        if (writeBehindService.isEnabled()) {
+          try {
+            PendingMessage accepted = writeBehindService.submit(
+              message.getDialogId(),
+              user.getId(),
+              message.getContent(),
+              user.isClient()
+            );
+            message.setId(accepted.getId());
+            message.setSeq(accepted.getSeq());
+            message.setTimestamp(accepted.getTimestamp());
+          } catch (MessageBackpressureException e) {
+            log.warn("sendUserMessage: {}", e.getMessage());
+            messagingTemplate.convertAndSendToUser(
+              user.getUsername(),
+              "/queue/errors",
+              Map.of(
+                "type",
+                MessageType.INFO,
+                "dialogId",
+                message.getDialogId(),
+                "message",
+                "Serveur saturé, message non envoyé."
+              )
+            );
+            return;
+          }
+        } else {
+          ChatMessage saved = dialogService.sendMessage(
+            message.getDialogId(),
+            user.getId(),
+            message.getContent(),
+            user.isClient()
+          );
+          message.setId(saved.getId());
+          message.setSeq(saved.getSeq());
+        }
+        long persistedAt = System.nanoTime();
+        lifecycleManager.messageSent(
           message.getDialogId(),
-          user.getId(),
-          message.getContent(),
-          user.isClient()
+          headerAccessor.getSessionId()
         );
-        lifecycleManager.messageSent(saved.getDialog().getId());
 
-        message.setId(saved.getId());
         String destination = "/topic/dialog/" + message.getDialogId();
         messagingTemplate.convertAndSend(destination, message);
+        recentMessages.append(message);
+        chatMetrics.recordSend(receivedAt, persistedAt, System.nanoTime());
       }
     );
   }
@@ -112,7 +157,6 @@ public class WSChatController {
         prepareMessage(message, profile.getFirstName(), MessageType.JOIN);
         String destination = "/topic/dialog/" + message.getDialogId();
         messagingTemplate.convertAndSend(destination, message);
-        lifecycleManager.userJoined(message.getDialogId(), user.getUsername());
       }
     );
   }
@@ -145,7 +189,10 @@ public class WSChatController {
         }
         String destination = "/topic/dialog/" + message.getDialogId();
         messagingTemplate.convertAndSend(destination, message);
-        lifecycleManager.userLeft(message.getDialogId(), user.getUsername());
+        lifecycleManager.sessionLeft(
+          headerAccessor.getSessionId(),
+          message.getDialogId()
+        );
       }
     );
   }
@@ -154,7 +201,7 @@ public class WSChatController {
     String methodName,
     ChatMessageDTO message,
     SimpMessageHeaderAccessor headerAccessor,
-    BiConsumer<UserPrincipal, UserProfile> authenticatedAction
+    BiConsumer<UserPrincipal, ProfileSnapshot> authenticatedAction
   ) {
     Authentication auth = (Authentication) headerAccessor.getUser();
     if (auth == null || !(auth.getPrincipal() instanceof UserPrincipal)) {
@@ -163,9 +210,7 @@ public class WSChatController {
     }
     UserPrincipal user = (UserPrincipal) auth.getPrincipal();
 
-    UserProfile profile = userProfileRepository.findByUserCredentialId(
-      user.getId()
-    );
+    ProfileSnapshot profile = sessionProfileCache.get(user.getId());
     if (profile == null) {
       log.warn(
         "{}: profil introuvable pour l'utilisateur {}",
@@ -186,5 +231,6 @@ public class WSChatController {
     message.setSender(sender);
     message.setTimestamp(LocalDateTime.now());
     message.setType(messageType);
+    chatMetrics.countMessage(messageType);
   }
 }
@@ -24,6 +24,11 @@ public class ChatMessageDTO {
   @Schema(description = "Horodatage du message")
   private LocalDateTime timestamp;
 
+  @Schema(
+    description = "Numéro de séquence dans le dialogue, strictement croissant"
+  )
+  private Long seq;
+
   @Schema(description = "Identifiant du dialogue auquel ce message appartient")
   private Long dialogId;
 
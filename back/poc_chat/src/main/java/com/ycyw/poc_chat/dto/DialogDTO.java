@@ -3,6 +3,7 @@ package com.ycyw.poc_chat.dto;
 import com.ycyw.poc_chat.model.DialogStatus;
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 import lombok.Data;
 
@@ -16,5 +17,5 @@ public class DialogDTO {
   private LocalDateTime closedAt;
   private LocalDateTime lastActivityAt;
   private Set<UserProfileDTO> participants = new HashSet<>();
-  private Set<ChatMessageDTO> messages = new HashSet<>();
+  private Set<ChatMessageDTO> messages = new LinkedHashSet<>();
 }
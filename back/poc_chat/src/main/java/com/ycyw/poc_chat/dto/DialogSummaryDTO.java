@@ -0,0 +1,30 @@
+package com.ycyw.poc_chat.dto;
+
+import com.ycyw.poc_chat.model.DialogStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDateTime;
+
+/**
+ * Projection résumée d'un dialogue pour le tableau de bord agent
+ * (aucune entité n'est hydratée).
+ */
+@Schema(description = "Résumé d'un dialogue pour le tableau de bord")
+public interface DialogSummaryDTO {
+  @Schema(description = "Identifiant du dialogue")
+  Long getId();
+
+  @Schema(description = "Sujet du dialogue")
+  String getTopic();
+
+  @Schema(description = "Statut du dialogue")
+  DialogStatus getStatus();
+
+  @Schema(description = "Date de dernière activité")
+  LocalDateTime getLastActivityAt();
+
+  @Schema(description = "Nombre de messages non lus")
+  Long getUnreadCount();
+
+  @Schema(description = "Aperçu du dernier message")
+  String getLastMessagePreview();
+}
@@ -0,0 +1,35 @@
+package com.ycyw.poc_chat.dto;
+
+import com.ycyw.poc_chat.model.DialogStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Changement d'état d'un dialogue, diffusé sur /topic/dialogs/update
+ * pour la mise à jour de la liste des dialogues sans rechargement.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Changement d'état d'un dialogue (flux de la liste)")
+public class DialogUpdateDTO {
+
+  @Schema(description = "Identifiant du dialogue")
+  private Long dialogId;
+
+  @Schema(description = "Nouveau statut du dialogue")
+  private DialogStatus status;
+
+  @Schema(description = "Date de dernière activité")
+  private LocalDateTime lastActivityAt;
+
+  @Schema(
+    description = "Messages lus par aucun participant (null si indisponible)"
+  )
+  private Long unread;
+}
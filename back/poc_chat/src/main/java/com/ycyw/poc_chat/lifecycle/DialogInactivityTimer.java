@@ -0,0 +1,258 @@
+package com.ycyw.poc_chat.lifecycle;
+
+import com.ycyw.poc_chat.model.Dialog;
+import com.ycyw.poc_chat.model.DialogStatus;
+import com.ycyw.poc_chat.monitoring.ChatMetrics;
+import com.ycyw.poc_chat.monitoring.jfr.InactivitySweepEvent;
+import com.ycyw.poc_chat.repository.DialogRepository;
+import com.ycyw.poc_chat.service.DialogService;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Échéancier d'inactivité des dialogues OPEN.
+ * - Après {@code warnAfter} sans activité, on prévient une seule fois.
+ * - Après {@code closeAfter} sans activité, on ferme le salon.
+ *
+ * Réarmer un dialogue ne fait qu'écrire sa dernière activité (O(1)) :
+ * l'échéance en file est recalculée paresseusement à son expiration.
+ * Métrique : chat.inactivity.sweep ({@link ChatMetrics}) ; événement
+ * JFR com.ycyw.chat.InactivitySweep pour les passages non vides.
+ */
+@Slf4j
+@Component
+public class DialogInactivityTimer {
+
+  private enum Phase {
+    WARN,
+    CLOSE,
+  }
+
+  private final DialogRepository dialogRepository;
+  private final DialogService dialogService;
+  private final DialogStateCache dialogStateCache;
+  private final SimpMessagingTemplate messagingTemplate;
+  private final long warnAfterMs;
+  private final long closeAfterMs;
+  private final ChatMetrics chatMetrics;
+
+  private final ConcurrentMap<Long, Armed> armed = new ConcurrentHashMap<>();
+  private final DelayQueue<Deadline> deadlines = new DelayQueue<>();
+
+  public DialogInactivityTimer(
+    DialogRepository dialogRepository,
+    DialogService dialogService,
+    DialogStateCache dialogStateCache,
+    SimpMessagingTemplate messagingTemplate,
+    @Value("${chat.inactivity.warn-after:49m}") Duration warnAfter,
+    @Value("${chat.inactivity.close-after:59m}") Duration closeAfter,
+    ChatMetrics chatMetrics
+  ) {
+    this.dialogRepository = dialogRepository;
+    this.dialogService = dialogService;
+    this.dialogStateCache = dialogStateCache;
+    this.messagingTemplate = messagingTemplate;
+    this.warnAfterMs = warnAfter.toMillis();
+    this.closeAfterMs = closeAfter.toMillis();
+    this.chatMetrics = chatMetrics;
+  }
+
+  /**
+   * Recharge au démarrage l'échéance de tous les dialogues OPEN.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rehydrate() {
+    for (Dialog dialog : dialogRepository.findByStatus(DialogStatus.OPEN)) {
+      if (dialog.getLastActivityAt() == null) {
+        continue;
+      }
+      arm(
+        dialog.getId(),
+        dialog
+          .getLastActivityAt()
+          .atZone(ZoneId.systemDefault())
+          .toInstant()
+          .toEpochMilli()
+      );
+    }
+    log.info("Inactivity timer rehydrated with {} dialogs", armed.size());
+  }
+
+  /**
+   * Enregistre une activité sur le dialogue et (ré)arme son échéance.
+   */
+  public void arm(Long dialogId) {
+    arm(dialogId, System.currentTimeMillis());
+  }
+
+  void arm(Long dialogId, long activityMs) {
+    Armed current = armed.computeIfAbsent(
+      dialogId,
+      id -> {
+        Armed created = new Armed(activityMs);
+        deadlines.add(new Deadline(id, created, Phase.WARN, warnAfterMs));
+        return created;
+      }
+    );
+    current.activityMs = activityMs;
+  }
+
+  /**
+   * Retire le dialogue de l'échéancier (l'entrée en file sera ignorée).
+   */
+  public void disarm(Long dialogId) {
+    armed.remove(dialogId);
+  }
+
+  /**
+   * Traite chaque seconde les échéances expirées.
+   */
+  @Scheduled(fixedDelay = 1_000)
+  public void tick() {
+    long start = System.nanoTime();
+    InactivitySweepEvent event = new InactivitySweepEvent();
+    event.begin();
+    int processed = 0;
+    int warned = 0;
+    int closed = 0;
+    Deadline deadline;
+    while ((deadline = deadlines.poll()) != null) {
+      processed++;
+      Phase fired = process(deadline);
+      if (fired == Phase.WARN) {
+        warned++;
+      } else if (fired == Phase.CLOSE) {
+        closed++;
+      }
+    }
+    chatMetrics.recordInactivitySweep(start);
+    event.end();
+    if (processed > 0 && event.shouldCommit()) {
+      event.deadlines = processed;
+      event.warned = warned;
+      event.closed = closed;
+      event.armed = armed.size();
+      event.commit();
+    }
+  }
+
+  int armedCount() {
+    return armed.size();
+  }
+
+  /**
+   * @return la phase appliquée (avertissement envoyé, dialogue fermé), ou
+   *         null si l'échéance était périmée ou reportée
+   */
+  private Phase process(Deadline deadline) {
+    Long dialogId = deadline.dialogId;
+    Armed current = deadline.armed;
+    if (armed.get(dialogId) != current) {
+      return null;
+    }
+    if (current.activityMs != deadline.activityMs) {
+      deadlines.add(new Deadline(dialogId, current, Phase.WARN, warnAfterMs));
+      return null;
+    }
+    if (!isOpen(dialogId)) {
+      armed.remove(dialogId, current);
+      return null;
+    }
+
+    if (deadline.phase == Phase.WARN) {
+      messagingTemplate.convertAndSend(
+        "/topic/dialog/" + dialogId,
+        Map.of(
+          "type",
+          "INFO",
+          "message",
+          "Le salon est inactif et va fermer dans " +
+          TimeUnit.MILLISECONDS.toMinutes(closeAfterMs - warnAfterMs) +
+          " min."
+        )
+      );
+      deadlines.add(
+        new Deadline(dialogId, current, Phase.CLOSE, closeAfterMs)
+      );
+      return Phase.WARN;
+    }
+
+    if (armed.remove(dialogId, current)) {
+      try {
+        dialogService.closeDialog(dialogId);
+        messagingTemplate.convertAndSend(
+          "/topic/dialog/" + dialogId,
+          Map.of("type", "CLOSE", "dialogId", dialogId)
+        );
+        return Phase.CLOSE;
+      } catch (RuntimeException e) {
+        log.warn("Cannot close inactive dialog {}: {}", dialogId, e.getMessage());
+      }
+    }
+    return null;
+  }
+
+  private boolean isOpen(Long dialogId) {
+    try {
+      return dialogStateCache.get(dialogId).getStatus() == DialogStatus.OPEN;
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Inscription d'un dialogue dans l'échéancier ; seule sa dernière
+   * activité évolue tant qu'il reste armé.
+   */
+  private static final class Armed {
+
+    private volatile long activityMs;
+
+    private Armed(long activityMs) {
+      this.activityMs = activityMs;
+    }
+  }
+
+  private static final class Deadline implements Delayed {
+
+    private final Long dialogId;
+    private final Armed armed;
+    private final long activityMs;
+    private final Phase phase;
+    private final long fireAtMs;
+
+    private Deadline(Long dialogId, Armed armed, Phase phase, long afterMs) {
+      this.dialogId = dialogId;
+      this.armed = armed;
+      this.activityMs = armed.activityMs;
+      this.phase = phase;
+      this.fireAtMs = activityMs + afterMs;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(
+        fireAtMs - System.currentTimeMillis(),
+        TimeUnit.MILLISECONDS
+      );
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      return Long.compare(fireAtMs, ((Deadline) other).fireAtMs);
+    }
+  }
+}
@@ -1,117 +1,239 @@
 package com.ycyw.poc_chat.lifecycle;
 
-import com.ycyw.poc_chat.model.Dialog;
+import com.ycyw.poc_chat.lifecycle.SessionRegistry.Presence;
 import com.ycyw.poc_chat.model.DialogStatus;
-import com.ycyw.poc_chat.repository.DialogRepository;
-import com.ycyw.poc_chat.service.DialogService;
-import java.time.LocalDateTime;
+import com.ycyw.poc_chat.monitoring.jfr.DialogStatusTransitionEvent;
+import com.ycyw.poc_chat.security.UserPrincipal;
+import java.security.Principal;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.NoSuchElementException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
 
+/**
+ * Cycle de vie des dialogues, piloté par la présence de sessions STOMP
+ * ({@link SessionRegistry}) : le dialogue s'ouvre quand un deuxième
+ * utilisateur s'abonne à /topic/dialog/{id}, et se ferme quand il n'en
+ * reste qu'un, que le départ soit explicite (/app/chat.disconnect) ou
+ * non (onglet fermé, réseau coupé).
+ *
+ * Seuls les participants authentifiés du dialogue comptent : une session
+ * anonyme ou un abonné étranger au dialogue ne peut ni l'ouvrir ni le
+ * fermer. Un agent abonné avant son premier message entre dans le
+ * dialogue quand ce message en fait un participant.
+ */
 @Service
 @EnableScheduling
 @RequiredArgsConstructor
 public class DialogLifecycleManager {
 
-  private final DialogRepository dialogRepository;
-  private final DialogService dialogService;
+  private static final Pattern DIALOG_TOPIC = Pattern.compile(
+    "/topic/dialog/(\\d+)"
+  );
+
+  private final DialogStateCache dialogStateCache;
+  private final DialogInactivityTimer inactivityTimer;
   private final SimpMessagingTemplate messagingTemplate;
-  private final ConcurrentMap<Long, Set<String>> activeSessions = new ConcurrentHashMap<>();
-  private final Set<Long> warnedDialogs = ConcurrentHashMap.newKeySet();
+  private final SessionRegistry sessionRegistry;
 
-  public void userJoined(Long dialogId, String username) {
-    Set<String> sessions = activeSessions.computeIfAbsent(
-      dialogId,
-      id -> ConcurrentHashMap.newKeySet()
+  @EventListener
+  public void onConnected(SessionConnectedEvent event) {
+    String sessionId = SimpMessageHeaderAccessor.getSessionId(
+      event.getMessage().getHeaders()
     );
-    sessions.add(username);
-
-    Dialog dialog = dialogRepository.findById(dialogId).orElseThrow();
-    if (dialog.getStatus() == DialogStatus.PENDING && sessions.size() > 1) {
-      dialog.setStatus(DialogStatus.OPEN);
-      dialogRepository.save(dialog);
-      System.out.println("Tentative d'envoi : OPEN");
+    if (sessionId != null && event.getUser() != null) {
+      sessionRegistry.connected(sessionId, event.getUser().getName());
     }
-    messagingTemplate.convertAndSend("/topic/dialogs/update", "OPEN");
   }
 
-  public void userLeft(Long dialogId, String username) {
-    Set<String> sessions = activeSessions.get(dialogId);
-    if (sessions != null) {
-      sessions.remove(username);
+  @EventListener
+  public void onSubscribe(SessionSubscribeEvent event) {
+    MessageHeaders headers = event.getMessage().getHeaders();
+    String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+    String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(
+      headers
+    );
+    String destination = SimpMessageHeaderAccessor.getDestination(headers);
+    if (sessionId == null || subscriptionId == null || destination == null) {
+      return;
+    }
+    Matcher matcher = DIALOG_TOPIC.matcher(destination);
+    if (!matcher.matches()) {
+      return;
+    }
+    long dialogId = Long.parseLong(matcher.group(1));
+    Principal user = event.getUser();
+    if (user == null) {
+      return;
+    }
+    Presence arrival = sessionRegistry.subscribed(
+      sessionId,
+      user.getName(),
+      subscriptionId,
+      dialogId,
+      isParticipant(user, dialogId)
+    );
+    if (arrival != null) {
+      participantJoined(arrival);
+    }
+  }
 
-      Dialog dialog = dialogRepository.findById(dialogId).orElseThrow();
-      if (dialog.getStatus() == DialogStatus.OPEN && sessions.size() < 2) {
-        dialog.setStatus(DialogStatus.CLOSED);
-        dialog.setClosedAt(LocalDateTime.now());
-        dialogRepository.save(dialog);
-        messagingTemplate.convertAndSend(
-          "/topic/dialog/" + dialogId,
-          Map.of("type", "CLOSE", "dialogId", dialogId)
-        );
-        messagingTemplate.convertAndSend("/topic/dialogs/update", "CLOSED");
+  @EventListener
+  public void onUnsubscribe(SessionUnsubscribeEvent event) {
+    MessageHeaders headers = event.getMessage().getHeaders();
+    String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+    String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(
+      headers
+    );
+    if (sessionId != null && subscriptionId != null) {
+      Presence departure = sessionRegistry.unsubscribed(
+        sessionId,
+        subscriptionId
+      );
+      if (departure != null) {
+        participantLeft(departure);
       }
     }
   }
 
-  public void messageSent(Long dialogId) {
-    Set<String> sessions = activeSessions.getOrDefault(dialogId, Set.of());
-
-    Dialog dialog = dialogRepository.findById(dialogId).orElseThrow();
+  @EventListener
+  public void onDisconnect(SessionDisconnectEvent event) {
+    for (Presence departure : sessionRegistry.disconnected(
+      event.getSessionId()
+    )) {
+      participantLeft(departure);
+    }
+  }
 
-    if (dialog.getStatus() == DialogStatus.CLOSED) {
-      dialog.setStatus(DialogStatus.PENDING);
-      dialog.setClosedAt(null);
-      dialogRepository.save(dialog);
+  /** Départ explicite d'une session (/app/chat.disconnect). */
+  public void sessionLeft(String sessionId, Long dialogId) {
+    if (sessionId == null || dialogId == null) {
+      return;
+    }
+    Presence departure = sessionRegistry.left(sessionId, dialogId);
+    if (departure != null) {
+      participantLeft(departure);
     }
-    messagingTemplate.convertAndSend("/topic/dialogs/update", "PENDING");
   }
 
   /**
-   * Toutes les 10 minutes :
-   * - À 49 min d’inactivité, on prévient une seule fois.
-   * - À 59 min d’inactivité, on ferme le salon.
+   * Message envoyé par la session : elle entre dans le dialogue si ce
+   * message a fait de son utilisateur un participant.
    */
-  @Scheduled(fixedRate = 600_000)
-  public void manageInactiveDialogs() {
-    LocalDateTime now = LocalDateTime.now();
-    LocalDateTime warnThreshold = now.minusMinutes(49);
-    LocalDateTime closeThreshold = now.minusMinutes(59);
+  public void messageSent(Long dialogId, String sessionId) {
+    Presence arrival = sessionId == null
+      ? null
+      : sessionRegistry.admitted(sessionId, dialogId);
+    if (arrival != null) {
+      participantJoined(arrival);
+    }
+    if (
+      !transition(
+        dialogId,
+        DialogStatus.CLOSED,
+        DialogStatus.PENDING,
+        "messageSent",
+        sessionRegistry.participants(dialogId)
+      )
+    ) {
+      dialogStateCache.touch(dialogId);
+    }
+    inactivityTimer.arm(dialogId);
+  }
+
+  private void participantJoined(Presence arrival) {
+    if (
+      arrival.participants() > 1 &&
+      transition(
+        arrival.dialogId(),
+        DialogStatus.PENDING,
+        DialogStatus.OPEN,
+        "userJoined",
+        arrival.participants()
+      )
+    ) {
+      inactivityTimer.arm(arrival.dialogId());
+    }
+  }
 
-    dialogRepository
-      .findByStatus(DialogStatus.OPEN)
-      .forEach(dialog -> {
-        Long id = dialog.getId();
-        LocalDateTime last = dialog.getLastActivityAt();
+  private void participantLeft(Presence departure) {
+    Long dialogId = departure.dialogId();
+    if (
+      departure.participants() < 2 &&
+      transition(
+        dialogId,
+        DialogStatus.OPEN,
+        DialogStatus.CLOSED,
+        "userLeft",
+        departure.participants()
+      )
+    ) {
+      inactivityTimer.disarm(dialogId);
+      messagingTemplate.convertAndSend(
+        "/topic/dialog/" + dialogId,
+        Map.of("type", "CLOSE", "dialogId", dialogId)
+      );
+    }
+  }
 
-        if (last.isBefore(warnThreshold) && !warnedDialogs.contains(id)) {
-          messagingTemplate.convertAndSend(
-            "/topic/dialog/" + id,
-            Map.of(
-              "type",
-              "INFO",
-              "message",
-              "Le salon est inactif et va fermer dans 10 min."
-            )
-          );
-          warnedDialogs.add(id);
-        }
+  /**
+   * Les participants d'un dialogue sont indexés par ID d'utilisateur
+   * (user_credentials), celui du {@link UserPrincipal}.
+   *
+   * @return true si l'utilisateur authentifié participe au dialogue
+   */
+  private boolean isParticipant(Principal user, long dialogId) {
+    if (
+      !(user instanceof Authentication auth) ||
+      !(auth.getPrincipal() instanceof UserPrincipal principal)
+    ) {
+      return false;
+    }
+    try {
+      return dialogStateCache
+        .get(dialogId)
+        .getParticipantIds()
+        .contains(principal.getId());
+    } catch (NoSuchElementException e) {
+      return false;
+    }
+  }
 
-        if (last.isBefore(closeThreshold)) {
-          dialogService.closeDialog(id);
-          messagingTemplate.convertAndSend(
-            "/topic/dialog/" + id,
-            Map.of("type", "CLOSE", "dialogId", id)
-          );
-          warnedDialogs.remove(id);
-        }
-      });
+  /**
+   * Applique la transition ; si elle a lieu, l'événement JFR
+   * com.ycyw.chat.DialogStatusTransition est enregistré.
+   */
+  private boolean transition(
+    Long dialogId,
+    DialogStatus from,
+    DialogStatus to,
+    String trigger,
+    int participants
+  ) {
+    DialogStatusTransitionEvent event = new DialogStatusTransitionEvent();
+    event.begin();
+    boolean applied = dialogStateCache.transition(dialogId, from, to);
+    event.end();
+    if (applied && event.shouldCommit()) {
+      event.dialogId = dialogId;
+      event.from = from.name();
+      event.to = to.name();
+      event.trigger = trigger;
+      event.participants = participants;
+      event.commit();
+    }
+    return applied;
   }
 }
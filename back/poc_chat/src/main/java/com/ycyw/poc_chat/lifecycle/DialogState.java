@@ -0,0 +1,49 @@
+package com.ycyw.poc_chat.lifecycle;
+
+import com.ycyw.poc_chat.model.Dialog;
+import com.ycyw.poc_chat.model.DialogStatus;
+import com.ycyw.poc_chat.model.UserProfile;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.Builder;
+import lombok.Value;
+import lombok.With;
+
+/**
+ * Instantané immuable de l'état d'un dialogue vivant
+ * (statut, dernière activité, participants).
+ */
+@Value
+@Builder
+@With
+public class DialogState {
+
+  Long dialogId;
+  DialogStatus status;
+  LocalDateTime closedAt;
+  LocalDateTime lastActivityAt;
+  Set<Long> participantIds;
+
+  /**
+   * Construit l'état à partir de l'entité (participants déjà chargés).
+   */
+  public static DialogState of(Dialog dialog) {
+    return DialogState
+      .builder()
+      .dialogId(dialog.getId())
+      .status(dialog.getStatus())
+      .closedAt(dialog.getClosedAt())
+      .lastActivityAt(dialog.getLastActivityAt())
+      .participantIds(
+        dialog.getParticipants() == null
+          ? Set.of()
+          : dialog
+            .getParticipants()
+            .stream()
+            .map(UserProfile::getId)
+            .collect(Collectors.toUnmodifiableSet())
+      )
+      .build();
+  }
+}
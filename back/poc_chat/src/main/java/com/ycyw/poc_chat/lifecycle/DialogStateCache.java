@@ -0,0 +1,261 @@
+package com.ycyw.poc_chat.lifecycle;
+
+import com.ycyw.poc_chat.model.Dialog;
+import com.ycyw.poc_chat.model.DialogStatus;
+import com.ycyw.poc_chat.repository.DialogRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache mémoire de l'état des dialogues vivants.
+ * Les transitions de statut sont atomiques par dialogue et écrites
+ * en base de manière asynchrone ; les écritures REST passent aussi par
+ * le cache, puis écrivent l'entrée sans attendre ({@link #flush(Long)}).
+ * Chaque transition effective est signalée à {@link DialogUpdateFeed}.
+ *
+ * Une entrée écrite en base est oubliée au passage suivant du flush si le
+ * dialogue est fermé ou sans activité depuis {@code idleTtl} ; une entrée
+ * en attente d'écriture n'est jamais oubliée.
+ */
+@Slf4j
+@Component
+public class DialogStateCache {
+
+  private final DialogRepository dialogRepository;
+  private final DialogUpdateFeed dialogUpdateFeed;
+  private final Duration idleTtl;
+  private final ConcurrentMap<Long, DialogState> states = new ConcurrentHashMap<>();
+  private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+  public DialogStateCache(
+    DialogRepository dialogRepository,
+    DialogUpdateFeed dialogUpdateFeed,
+    @Value("${chat.dialog-cache.idle-ttl:10m}") Duration idleTtl
+  ) {
+    this.dialogRepository = dialogRepository;
+    this.dialogUpdateFeed = dialogUpdateFeed;
+    this.idleTtl = idleTtl;
+  }
+
+  /**
+   * Retourne l'état du dialogue, chargé depuis la base au premier accès.
+   *
+   * @param dialogId ID du dialogue
+   * @return l'état courant
+   * @throws java.util.NoSuchElementException si le dialogue n'existe pas
+   */
+  public DialogState get(Long dialogId) {
+    DialogState state = states.get(dialogId);
+    if (state != null) {
+      return state;
+    }
+    Dialog dialog = dialogRepository.findById(dialogId).orElseThrow();
+    DialogState loaded = DialogState.of(dialog);
+    DialogState previous = states.putIfAbsent(dialogId, loaded);
+    return previous != null ? previous : loaded;
+  }
+
+  /**
+   * Applique atomiquement la transition {@code from -> to}.
+   *
+   * @return true si le statut valait {@code from} et a été changé
+   */
+  public boolean transition(Long dialogId, DialogStatus from, DialogStatus to) {
+    return transition(dialogId, Set.of(from), to);
+  }
+
+  /**
+   * Ferme le dialogue quel que soit son statut ouvert (PENDING ou OPEN).
+   *
+   * @return false s'il était déjà fermé
+   */
+  public boolean close(Long dialogId) {
+    return transition(
+      dialogId,
+      Set.of(DialogStatus.PENDING, DialogStatus.OPEN),
+      DialogStatus.CLOSED
+    );
+  }
+
+  private boolean transition(
+    Long dialogId,
+    Set<DialogStatus> from,
+    DialogStatus to
+  ) {
+    boolean[] changed = { false };
+    LocalDateTime now = LocalDateTime.now();
+    update(
+      dialogId,
+      state -> {
+        if (!from.contains(state.getStatus())) {
+          return state;
+        }
+        changed[0] = true;
+        dirty.add(dialogId);
+        return state
+          .withStatus(to)
+          .withClosedAt(to == DialogStatus.CLOSED ? now : null)
+          .withLastActivityAt(now);
+      }
+    );
+    if (changed[0]) {
+      dialogUpdateFeed.statusChanged(dialogId, to, now);
+    }
+    return changed[0];
+  }
+
+  /**
+   * Ajoute un participant à l'état en mémoire.
+   *
+   * @return true si le participant n'était pas encore connu
+   */
+  public boolean addParticipant(Long dialogId, Long profileId) {
+    boolean[] added = { false };
+    update(
+      dialogId,
+      state -> {
+        if (state.getParticipantIds().contains(profileId)) {
+          return state;
+        }
+        added[0] = true;
+        Set<Long> participants = new HashSet<>(state.getParticipantIds());
+        participants.add(profileId);
+        return state.withParticipantIds(Set.copyOf(participants));
+      }
+    );
+    return added[0];
+  }
+
+  /**
+   * Retire un participant de l'état en mémoire (ajout annulé).
+   */
+  public void removeParticipant(Long dialogId, Long profileId) {
+    states.computeIfPresent(
+      dialogId,
+      (id, state) -> {
+        if (!state.getParticipantIds().contains(profileId)) {
+          return state;
+        }
+        Set<Long> participants = new HashSet<>(state.getParticipantIds());
+        participants.remove(profileId);
+        return state.withParticipantIds(Set.copyOf(participants));
+      }
+    );
+  }
+
+  /**
+   * Met à jour la date de dernière activité, écrite au prochain flush.
+   */
+  public void touch(Long dialogId) {
+    LocalDateTime now = LocalDateTime.now();
+    update(
+      dialogId,
+      state -> {
+        dirty.add(dialogId);
+        return state.withLastActivityAt(now);
+      }
+    );
+  }
+
+  /**
+   * Écrit en base les transitions et dates d'activité en attente, puis
+   * oublie les entrées fermées ou inactives.
+   */
+  @Scheduled(fixedDelayString = "${chat.dialog-cache.flush-ms:1000}")
+  public void flush() {
+    for (Long dialogId : dirty) {
+      flush(dialogId);
+    }
+    LocalDateTime idleBefore = LocalDateTime.now().minus(idleTtl);
+    for (Long dialogId : states.keySet()) {
+      states.computeIfPresent(
+        dialogId,
+        (id, state) ->
+          dirty.contains(id) || !isEvictable(state, idleBefore) ? state : null
+      );
+    }
+  }
+
+  /**
+   * Écrit sans attendre l'état du dialogue s'il a changé depuis la
+   * dernière écriture ; en cas d'échec, le flush périodique réessaie.
+   */
+  public void flush(Long dialogId) {
+    DialogState[] pending = { null };
+    states.computeIfPresent(
+      dialogId,
+      (id, state) -> {
+        if (dirty.remove(id)) {
+          pending[0] = state;
+        }
+        return state;
+      }
+    );
+    DialogState state = pending[0];
+    if (state == null) {
+      return;
+    }
+    try {
+      dialogRepository.updateState(
+        dialogId,
+        state.getStatus(),
+        state.getClosedAt(),
+        state.getLastActivityAt()
+      );
+    } catch (RuntimeException e) {
+      // l'entrée a pu être oubliée entre-temps : l'état non écrit est remis
+      states.compute(
+        dialogId,
+        (id, current) -> {
+          dirty.add(id);
+          return current != null ? current : state;
+        }
+      );
+      log.warn("Flush of dialog {} failed: {}", dialogId, e.getMessage());
+    }
+  }
+
+  int size() {
+    return states.size();
+  }
+
+  /**
+   * Applique {@code change} à l'entrée, rechargée si elle a été oubliée
+   * entre la lecture et la mise à jour. Les modifications à écrire sont
+   * marquées dans {@code change}, sous le verrou de l'entrée : le flush
+   * ne peut pas l'oublier entre-temps.
+   */
+  private void update(Long dialogId, UnaryOperator<DialogState> change) {
+    boolean[] present = { false };
+    while (!present[0]) {
+      get(dialogId);
+      states.computeIfPresent(
+        dialogId,
+        (id, state) -> {
+          present[0] = true;
+          return change.apply(state);
+        }
+      );
+    }
+  }
+
+  private static boolean isEvictable(
+    DialogState state,
+    LocalDateTime idleBefore
+  ) {
+    return (
+      state.getStatus() == DialogStatus.CLOSED ||
+      state.getLastActivityAt() == null ||
+      state.getLastActivityAt().isBefore(idleBefore)
+    );
+  }
+}
@@ -0,0 +1,110 @@
+package com.ycyw.poc_chat.lifecycle;
+
+import com.ycyw.poc_chat.dto.DialogUpdateDTO;
+import com.ycyw.poc_chat.model.DialogStatus;
+import com.ycyw.poc_chat.repository.DialogRepository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Flux des changements de la liste des dialogues (/topic/dialogs/update).
+ *
+ * Seuls les changements de statut (et la création d'un dialogue) y sont
+ * signalés, pas les messages. Les changements sont regroupés sur une
+ * courte fenêtre : un dialogue qui change plusieurs fois n'apparaît
+ * qu'une fois, avec son dernier état, et chaque fenêtre produit au plus
+ * une trame {@code {type: DIALOG_UPDATES, deltas: [...]}}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DialogUpdateFeed {
+
+  static final String DESTINATION = "/topic/dialogs/update";
+
+  private final DialogRepository dialogRepository;
+  private final SimpMessagingTemplate messagingTemplate;
+  private final ConcurrentMap<Long, DialogUpdateDTO> pending = new ConcurrentHashMap<>();
+
+  /**
+   * Signale le nouvel état d'un dialogue ; il sera diffusé à la fin de la
+   * fenêtre en cours.
+   */
+  public void statusChanged(
+    Long dialogId,
+    DialogStatus status,
+    LocalDateTime lastActivityAt
+  ) {
+    pending.put(
+      dialogId,
+      DialogUpdateDTO
+        .builder()
+        .dialogId(dialogId)
+        .status(status)
+        .lastActivityAt(lastActivityAt)
+        .build()
+    );
+  }
+
+  /**
+   * Diffuse les changements de la fenêtre écoulée, non lus compris
+   * (une requête pour tout le lot).
+   */
+  @Scheduled(fixedDelayString = "${chat.dialog-updates.window-ms:100}")
+  public void flush() {
+    if (pending.isEmpty()) {
+      return;
+    }
+    Map<Long, DialogUpdateDTO> batch = new HashMap<>();
+    for (Long dialogId : pending.keySet()) {
+      DialogUpdateDTO update = pending.remove(dialogId);
+      if (update != null) {
+        batch.put(dialogId, update);
+      }
+    }
+    if (batch.isEmpty()) {
+      return;
+    }
+    applyUnread(batch);
+
+    List<DialogUpdateDTO> deltas = new ArrayList<>(batch.values());
+    deltas.sort(
+      Comparator.comparing(
+        DialogUpdateDTO::getLastActivityAt,
+        Comparator.nullsFirst(Comparator.naturalOrder())
+      )
+    );
+    messagingTemplate.convertAndSend(
+      DESTINATION,
+      Map.of("type", "DIALOG_UPDATES", "deltas", deltas)
+    );
+  }
+
+  private void applyUnread(Map<Long, DialogUpdateDTO> batch) {
+    try {
+      batch.values().forEach(update -> update.setUnread(0L));
+      for (DialogRepository.UnreadCount count : dialogRepository.countUnreadByDialogIds(
+        batch.keySet()
+      )) {
+        DialogUpdateDTO update = batch.get(count.getDialogId());
+        if (update != null) {
+          update.setUnread(count.getUnreadCount());
+        }
+      }
+    } catch (RuntimeException e) {
+      batch.values().forEach(update -> update.setUnread(null));
+      log.warn("Unread count for dialog updates failed: {}", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package com.ycyw.poc_chat.lifecycle;
+
+import java.util.Objects;
+
+/**
+ * Table à adressage ouvert de clés {@code long} (sondage linéaire,
+ * suppression par décalage arrière, sans marqueur) : ni boxing des clés
+ * ni nœud par entrée. Non synchronisée.
+ *
+ * La table double quand elle est à moitié pleine et ne rétrécit pas : sa
+ * taille suit le pic d'entrées, pas le nombre d'opérations.
+ *
+ * @param <V> valeurs, jamais null (null marque une case libre)
+ */
+final class LongObjectHashMap<V> {
+
+  private long[] keys;
+  private Object[] values;
+  private int mask;
+  private int size;
+
+  LongObjectHashMap(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+    allocate(capacity);
+  }
+
+  int size() {
+    return size;
+  }
+
+  int capacity() {
+    return values.length;
+  }
+
+  @SuppressWarnings("unchecked")
+  V get(long key) {
+    for (int i = slot(key);; i = (i + 1) & mask) {
+      Object value = values[i];
+      if (value == null) {
+        return null;
+      }
+      if (keys[i] == key) {
+        return (V) value;
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  V put(long key, V value) {
+    Objects.requireNonNull(value);
+    int i = slot(key);
+    for (; values[i] != null; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        V previous = (V) values[i];
+        values[i] = value;
+        return previous;
+      }
+    }
+    keys[i] = key;
+    values[i] = value;
+    if (++size * 2 > values.length) {
+      rehash(values.length << 1);
+    }
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  V remove(long key) {
+    int i = slot(key);
+    for (; values[i] != null; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        V removed = (V) values[i];
+        shiftBack(i);
+        size--;
+        return removed;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Comble la case libérée : chaque entrée suivante de la grappe remonte
+   * si la case libre se trouve entre sa position idéale et elle.
+   */
+  private void shiftBack(int gap) {
+    values[gap] = null;
+    for (int j = (gap + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+      int home = slot(keys[j]);
+      if (((j - home) & mask) >= ((j - gap) & mask)) {
+        keys[gap] = keys[j];
+        values[gap] = values[j];
+        values[j] = null;
+        gap = j;
+      }
+    }
+  }
+
+  private int slot(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != null) {
+        int j = slot(oldKeys[i]);
+        while (values[j] != null) {
+          j = (j + 1) & mask;
+        }
+        keys[j] = oldKeys[i];
+        values[j] = oldValues[i];
+      }
+    }
+  }
+}
@@ -0,0 +1,257 @@
+package com.ycyw.poc_chat.lifecycle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.stereotype.Component;
+
+/**
+ * Présence par session STOMP : quelles sessions sont abonnées à quel
+ * dialogue, et pour quel utilisateur.
+ *
+ * Une session entre dans un dialogue à son premier abonnement à
+ * /topic/dialog/{id} (ou, abonnée avant d'en être participante, à son
+ * admission) et en sort à son dernier désabonnement, à un départ
+ * explicite ou à sa déconnexion. Un utilisateur ouvert dans deux onglets
+ * compte pour un participant, présent tant qu'un de ses onglets l'est.
+ *
+ * Rien ne survit à la déconnexion : la session et, une fois vides, ses
+ * dialogues sont retirés. Les appels sont sérialisés par un verrou
+ * (événements de session, peu fréquents).
+ */
+@Component
+public class SessionRegistry {
+
+  /**
+   * Arrivée ou départ d'un utilisateur dans un dialogue.
+   *
+   * @param participants utilisateurs distincts présents après l'opération
+   */
+  public record Presence(long dialogId, String user, int participants) {}
+
+  private static final class SessionState {
+
+    private final String user;
+    /** abonnement STOMP → dialogue */
+    private final Map<String, Long> subscriptions = new HashMap<>(4);
+
+    private SessionState(String user) {
+      this.user = user;
+    }
+  }
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Map<String, SessionState> sessions = new HashMap<>();
+  /** dialogue → (session → utilisateur) */
+  private final LongObjectHashMap<Map<String, String>> dialogs = new LongObjectHashMap<>(64);
+
+  public void connected(String sessionId, String user) {
+    lock.lock();
+    try {
+      sessions.putIfAbsent(sessionId, new SessionState(user));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Enregistre l'abonnement ; la session n'entre dans le dialogue que si
+   * son utilisateur en est participant, sinon elle attend son admission.
+   *
+   * @param participant l'utilisateur participe au dialogue
+   * @return l'arrivée de l'utilisateur si cette session est la première
+   *         des siennes dans le dialogue, null sinon
+   */
+  public Presence subscribed(
+    String sessionId,
+    String user,
+    String subscriptionId,
+    long dialogId,
+    boolean participant
+  ) {
+    lock.lock();
+    try {
+      SessionState session = sessions.get(sessionId);
+      if (session == null) {
+        session = new SessionState(user);
+        sessions.put(sessionId, session);
+      }
+      session.subscriptions.put(subscriptionId, dialogId);
+      return participant ? enter(sessionId, session.user, dialogId) : null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Admet dans le dialogue une session qui y était abonnée avant d'en
+   * devenir participante (premier message d'un agent).
+   *
+   * @return l'arrivée de l'utilisateur, ou null si la session n'est pas
+   *         abonnée au dialogue ou y est déjà entrée
+   */
+  public Presence admitted(String sessionId, long dialogId) {
+    lock.lock();
+    try {
+      SessionState session = sessions.get(sessionId);
+      if (
+        session == null || !session.subscriptions.containsValue(dialogId)
+      ) {
+        return null;
+      }
+      return enter(sessionId, session.user, dialogId);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return le départ de l'utilisateur si la session quitte ainsi le
+   *         dialogue sans qu'il y reste présent, null sinon
+   */
+  public Presence unsubscribed(String sessionId, String subscriptionId) {
+    lock.lock();
+    try {
+      SessionState session = sessions.get(sessionId);
+      if (session == null) {
+        return null;
+      }
+      Long dialogId = session.subscriptions.remove(subscriptionId);
+      if (
+        dialogId == null || session.subscriptions.containsValue(dialogId)
+      ) {
+        return null;
+      }
+      return leave(sessionId, session.user, dialogId);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Départ explicite de la session, quels que soient ses abonnements.
+   *
+   * @return le départ de l'utilisateur s'il n'est plus présent, null sinon
+   */
+  public Presence left(String sessionId, long dialogId) {
+    lock.lock();
+    try {
+      SessionState session = sessions.get(sessionId);
+      if (
+        session == null || !session.subscriptions.values().remove(dialogId)
+      ) {
+        return null;
+      }
+      while (session.subscriptions.values().remove(dialogId)) {}
+      return leave(sessionId, session.user, dialogId);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Oublie la session. Idempotent : une déconnexion notifiée deux fois ne
+   * produit des départs qu'une fois.
+   *
+   * @return les départs d'utilisateurs qu'elle provoque
+   */
+  public List<Presence> disconnected(String sessionId) {
+    lock.lock();
+    try {
+      SessionState session = sessions.remove(sessionId);
+      if (session == null || session.subscriptions.isEmpty()) {
+        return List.of();
+      }
+      List<Presence> departures = new ArrayList<>(1);
+      Iterator<Long> it = session.subscriptions.values().iterator();
+      while (it.hasNext()) {
+        long dialogId = it.next();
+        it.remove();
+        if (!session.subscriptions.containsValue(dialogId)) {
+          Presence presence = leave(sessionId, session.user, dialogId);
+          if (presence != null) {
+            departures.add(presence);
+          }
+        }
+      }
+      return departures;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Utilisateurs distincts présents dans le dialogue. */
+  public int participants(long dialogId) {
+    lock.lock();
+    try {
+      Map<String, String> members = dialogs.get(dialogId);
+      return members == null ? 0 : distinctUsers(members);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int sessionCount() {
+    lock.lock();
+    try {
+      return sessions.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int dialogCount() {
+    lock.lock();
+    try {
+      return dialogs.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int dialogTableCapacity() {
+    lock.lock();
+    try {
+      return dialogs.capacity();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Presence enter(String sessionId, String user, long dialogId) {
+    Map<String, String> members = dialogs.get(dialogId);
+    if (members == null) {
+      members = new HashMap<>(4);
+      dialogs.put(dialogId, members);
+    } else if (members.containsKey(sessionId)) {
+      return null;
+    }
+    boolean firstOfUser = !members.containsValue(user);
+    members.put(sessionId, user);
+    return firstOfUser
+      ? new Presence(dialogId, user, distinctUsers(members))
+      : null;
+  }
+
+  private Presence leave(String sessionId, String user, long dialogId) {
+    Map<String, String> members = dialogs.get(dialogId);
+    if (members == null || members.remove(sessionId) == null) {
+      return null;
+    }
+    if (members.isEmpty()) {
+      dialogs.remove(dialogId);
+      return new Presence(dialogId, user, 0);
+    }
+    return members.containsValue(user)
+      ? null
+      : new Presence(dialogId, user, distinctUsers(members));
+  }
+
+  /** Quelques sessions par dialogue : un parcours suffit. */
+  private static int distinctUsers(Map<String, String> members) {
+    return (int) members.values().stream().distinct().count();
+  }
+}
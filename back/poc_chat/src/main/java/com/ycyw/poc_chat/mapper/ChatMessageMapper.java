@@ -13,6 +13,7 @@ import org.mapstruct.*;
 public interface ChatMessageMapper {
   @Mapping(source = "dialog.id", target = "dialogId")
   @Mapping(source = "sender.id", target = "sender")
+  @Mapping(target = "isRead", ignore = true)
   ChatMessageDTO toDto(ChatMessage entity);
 
   /**
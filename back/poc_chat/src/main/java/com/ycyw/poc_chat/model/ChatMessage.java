@@ -1,12 +1,27 @@
 package com.ycyw.poc_chat.model;
 
 import com.fasterxml.jackson.annotation.*;
+import com.ycyw.poc_chat.persistence.PooledSequence;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import lombok.*;
 
 @Entity
-@Table(name = "messages")
+@Table(
+  name = "messages",
+  indexes = {
+    @Index(name = "idx_messages_dialog_id", columnList = "dialog_id, id"),
+    @Index(
+      name = "idx_messages_dialog_timestamp_id",
+      columnList = "dialog_id, timestamp, id"
+    ),
+    @Index(
+      name = "idx_messages_dialog_seq",
+      columnList = "dialog_id, seq",
+      unique = true
+    ),
+  }
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -15,7 +30,7 @@ import lombok.*;
 public class ChatMessage {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @PooledSequence(name = "messages_seq", allocationSize = 50)
   @EqualsAndHashCode.Include
   private Long id;
 
@@ -32,10 +47,8 @@ public class ChatMessage {
   @EqualsAndHashCode.Include
   private LocalDateTime timestamp;
 
-  @Column(nullable = false, columnDefinition = "BOOLEAN DEFAULT FALSE")
-  @EqualsAndHashCode.Include
-  @Builder.Default
-  private Boolean isRead = false;
+  /** Rang du message dans son dialogue (1, 2, 3…), voir DialogSequencer */
+  private Long seq;
 
   @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "dialog_id", nullable = false)
@@ -1,14 +1,24 @@
 package com.ycyw.poc_chat.model;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.ycyw.poc_chat.persistence.PooledSequence;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 import lombok.*;
 
 @Entity
-@Table(name = "dialogs")
+@Table(
+  name = "dialogs",
+  indexes = {
+    @Index(
+      name = "idx_dialogs_last_activity",
+      columnList = "last_activity_at, id"
+    ),
+  }
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,7 +28,7 @@ public class Dialog {
 
   @Id
   @EqualsAndHashCode.Include
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @PooledSequence(name = "dialogs_seq", allocationSize = 20)
   private Long id;
 
   @Column(length = 25)
@@ -37,6 +47,18 @@ public class Dialog {
   @Column(name = "last_activity_at", nullable = false)
   private LocalDateTime lastActivityAt;
 
+  /**
+   * Dernier numéro de séquence réservé en mode relay (voir
+   * DialogSequencer) ; écrit uniquement par requête native.
+   */
+  @Column(
+    name = "last_seq",
+    insertable = false,
+    updatable = false,
+    columnDefinition = "BIGINT NOT NULL DEFAULT 0"
+  )
+  private Long lastSeq;
+
   @ManyToMany
   @JoinTable(
     name = "rel_user_dialog",
@@ -52,9 +74,10 @@ public class Dialog {
     cascade = CascadeType.ALL,
     orphanRemoval = true
   )
+  @OrderBy("seq ASC, id ASC")
   @Builder.Default
   @JsonManagedReference
-  private Set<ChatMessage> messages = new HashSet<>();
+  private Set<ChatMessage> messages = new LinkedHashSet<>();
 
   @PrePersist
   public void prePersist() {
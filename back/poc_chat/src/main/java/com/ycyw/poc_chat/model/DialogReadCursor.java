@@ -0,0 +1,28 @@
+package com.ycyw.poc_chat.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Curseur de lecture d'un participant dans un dialogue : tous les messages
+ * de numéro de séquence inférieur ou égal à {@code lastReadSeq} sont lus
+ * pour lui. Les non lus se comptent par plage sur l'index (dialog_id, seq).
+ *
+ * Le curseur porte sur {@code seq} et non sur l'ID : les IDs sont alloués
+ * par blocs ({@link com.ycyw.poc_chat.persistence.PooledSequence}) et ne
+ * suivent pas l'ordre d'envoi entre instances.
+ */
+@Entity
+@Table(name = "dialog_read_cursor")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DialogReadCursor {
+
+  @EmbeddedId
+  private DialogReadCursorId id;
+
+  @Column(name = "last_read_seq", nullable = false)
+  private Long lastReadSeq;
+}
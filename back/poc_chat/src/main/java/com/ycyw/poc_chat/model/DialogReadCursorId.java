@@ -0,0 +1,22 @@
+package com.ycyw.poc_chat.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.io.Serializable;
+import lombok.*;
+
+/**
+ * Clé composite d'un curseur de lecture : (dialogue, participant).
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DialogReadCursorId implements Serializable {
+
+  @Column(name = "dialog_id", nullable = false)
+  private Long dialogId;
+
+  @Column(name = "user_profile_id", nullable = false)
+  private Long userProfileId;
+}
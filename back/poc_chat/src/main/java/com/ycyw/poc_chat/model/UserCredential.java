@@ -38,5 +38,15 @@ public class UserCredential {
   @Column(nullable = false)
   private Role role;
 
-  
+  /**
+   * Génération des tokens : les JWT émis avec une génération inférieure
+   * sont révoqués.
+   */
+  @Column(
+    name = "token_generation",
+    nullable = false,
+    columnDefinition = "INT NOT NULL DEFAULT 0"
+  )
+  @Builder.Default
+  private Integer tokenGeneration = 0;
 }
@@ -0,0 +1,184 @@
+package com.ycyw.poc_chat.monitoring;
+
+import com.ycyw.poc_chat.model.DialogStatus;
+import com.ycyw.poc_chat.model.MessageType;
+import com.ycyw.poc_chat.repository.DialogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+/**
+ * Métriques du pipeline de chat, exposées sur /actuator/prometheus :
+ * - chat.message.latency (phase = persist | broadcast | total,
+ *   destination = motif) : réception → persistance → diffusion ;
+ * - chat.messages (type = MessageType) : messages traités ;
+ * - chat.messages.rejected : messages acquittés que la base a refusés
+ *   (écriture différée, copiés en lettres mortes) ;
+ * - websocket.sessions : sessions STOMP connectées ;
+ * - chat.dialogs (status = open | pending) : dialogues actifs ;
+ * - chat.inactivity.sweep : durée d'un passage de l'échéancier
+ *   d'inactivité.
+ *
+ * Les compteurs et timers sont créés une fois : un message ne coûte
+ * qu'une lecture d'horloge par phase et les incréments d'histogramme,
+ * sans recherche dans le registre.
+ */
+@Slf4j
+@Component
+public class ChatMetrics {
+
+  private final DialogRepository dialogRepository;
+  private final Timer persistTimer;
+  private final Timer broadcastTimer;
+  private final Timer totalTimer;
+  private final Map<MessageType, Counter> messageCounters = new EnumMap<>(
+    MessageType.class
+  );
+  private final Counter rejectedMessages;
+  private final Timer inactivitySweepTimer;
+  private final Set<String> sessions = ConcurrentHashMap.newKeySet();
+  private final AtomicLong openDialogs = new AtomicLong();
+  private final AtomicLong pendingDialogs = new AtomicLong();
+
+  public ChatMetrics(
+    MeterRegistry meterRegistry,
+    DialogRepository dialogRepository
+  ) {
+    this.dialogRepository = dialogRepository;
+    this.persistTimer = latencyTimer(meterRegistry, "persist");
+    this.broadcastTimer = latencyTimer(meterRegistry, "broadcast");
+    this.totalTimer = latencyTimer(meterRegistry, "total");
+    for (MessageType type : MessageType.values()) {
+      messageCounters.put(
+        type,
+        Counter
+          .builder("chat.messages")
+          .description("Messages de chat traités, par type")
+          .tag("type", type.name())
+          .register(meterRegistry)
+      );
+    }
+    this.rejectedMessages =
+      Counter
+        .builder("chat.messages.rejected")
+        .description("Messages acquittés refusés par la base (lettres mortes)")
+        .register(meterRegistry);
+    Gauge
+      .builder("websocket.sessions", sessions, Set::size)
+      .description("Sessions STOMP connectées")
+      .register(meterRegistry);
+    this.inactivitySweepTimer =
+      Timer
+        .builder("chat.inactivity.sweep")
+        .description("Durée d'un passage de l'échéancier d'inactivité")
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry);
+    dialogGauge(meterRegistry, "open", openDialogs);
+    dialogGauge(meterRegistry, "pending", pendingDialogs);
+  }
+
+  /**
+   * Enregistre les durées d'un message (instants {@link System#nanoTime()}).
+   *
+   * @param receivedAt réception par le contrôleur
+   * @param persistedAt message persisté (ou accepté par l'écriture différée)
+   * @param broadcastAt diffusion terminée
+   */
+  public void recordSend(long receivedAt, long persistedAt, long broadcastAt) {
+    persistTimer.record(persistedAt - receivedAt, TimeUnit.NANOSECONDS);
+    broadcastTimer.record(broadcastAt - persistedAt, TimeUnit.NANOSECONDS);
+    totalTimer.record(broadcastAt - receivedAt, TimeUnit.NANOSECONDS);
+  }
+
+  public void countMessage(MessageType type) {
+    if (type != null) {
+      messageCounters.get(type).increment();
+    }
+  }
+
+  public void countRejected() {
+    rejectedMessages.increment();
+  }
+
+  /**
+   * @param startedAt début du passage ({@link System#nanoTime()})
+   */
+  public void recordInactivitySweep(long startedAt) {
+    inactivitySweepTimer.record(
+      System.nanoTime() - startedAt,
+      TimeUnit.NANOSECONDS
+    );
+  }
+
+  @EventListener
+  public void onConnected(SessionConnectedEvent event) {
+    String sessionId = SimpMessageHeaderAccessor.getSessionId(
+      event.getMessage().getHeaders()
+    );
+    if (sessionId != null) {
+      sessions.add(sessionId);
+    }
+  }
+
+  /**
+   * Une même déconnexion peut être notifiée plusieurs fois : la jauge
+   * repose sur l'ensemble des sessions, pas sur un compteur.
+   */
+  @EventListener
+  public void onDisconnect(SessionDisconnectEvent event) {
+    sessions.remove(event.getSessionId());
+  }
+
+  /**
+   * Rafraîchit les jauges de dialogues (deux COUNT indexés), hors du
+   * chemin des messages.
+   */
+  @Scheduled(fixedDelayString = "${chat.metrics.dialog-count-refresh-ms:15000}")
+  public void refreshDialogCounts() {
+    try {
+      openDialogs.set(dialogRepository.countByStatus(DialogStatus.OPEN));
+      pendingDialogs.set(dialogRepository.countByStatus(DialogStatus.PENDING));
+    } catch (RuntimeException e) {
+      log.warn("Dialog count refresh failed: {}", e.getMessage());
+    }
+  }
+
+  private static Timer latencyTimer(MeterRegistry registry, String phase) {
+    return Timer
+      .builder("chat.message.latency")
+      .description("Durée de traitement d'un message de chat, par phase")
+      .tag("phase", phase)
+      .tag("destination", DestinationPatterns.DIALOG_TOPIC)
+      .publishPercentileHistogram()
+      .minimumExpectedValue(Duration.ofNanos(100_000))
+      .maximumExpectedValue(Duration.ofSeconds(10))
+      .register(registry);
+  }
+
+  private static void dialogGauge(
+    MeterRegistry registry,
+    String status,
+    AtomicLong value
+  ) {
+    Gauge
+      .builder("chat.dialogs", value, AtomicLong::get)
+      .description("Dialogues par statut (rafraîchi périodiquement)")
+      .tag("status", status)
+      .register(registry);
+  }
+}
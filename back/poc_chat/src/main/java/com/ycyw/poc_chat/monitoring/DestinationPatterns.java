@@ -0,0 +1,64 @@
+package com.ycyw.poc_chat.monitoring;
+
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Réduit une destination STOMP à son motif pour l'étiquetage des
+ * métriques : les segments numériques deviennent {id}
+ * (/topic/dialog/42/read → /topic/dialog/{id}/read) et le suffixe de
+ * session des files utilisateur aussi (/queue/errors-user1a2b →
+ * /queue/errors-user{session}). Seuls les motifs des destinations de
+ * l'application sont conservés, les autres (destinations choisies par un
+ * client) sont étiquetés {@code other} : le nombre de séries reste ainsi
+ * borné quels que soient les dialogues, les connexions ou les trames
+ * reçues.
+ */
+public final class DestinationPatterns {
+
+  /** Motif de diffusion des messages d'un dialogue. */
+  public static final String DIALOG_TOPIC = "/topic/dialog/{id}";
+
+  static final String NONE = "none";
+
+  static final String OTHER = "other";
+
+  private static final Set<String> KNOWN = Set.of(
+    "/app/chat.createDialog",
+    "/app/chat.sendMessage",
+    "/app/chat.addUser",
+    "/app/chat.disconnect",
+    DIALOG_TOPIC,
+    DIALOG_TOPIC + "/read",
+    DIALOG_TOPIC + "/invites",
+    "/topic/dialogs/update",
+    "/user/queue/dialog-created",
+    "/user/queue/errors",
+    "/queue/dialog-created-user{session}",
+    "/queue/errors-user{session}"
+  );
+
+  private static final Pattern NUMERIC_SEGMENT = Pattern.compile(
+    "/\\d+(?=/|$)"
+  );
+
+  private static final Pattern USER_SESSION_SUFFIX = Pattern.compile(
+    "-user[^/]+$"
+  );
+
+  private DestinationPatterns() {}
+
+  /**
+   * @param destination destination STOMP, éventuellement null
+   * @return le motif de la destination, {@code other} si elle n'est pas
+   *         une destination de l'application, ou {@code none}
+   */
+  public static String of(String destination) {
+    if (destination == null || destination.isEmpty()) {
+      return NONE;
+    }
+    String pattern = NUMERIC_SEGMENT.matcher(destination).replaceAll("/{id}");
+    pattern = USER_SESSION_SUFFIX.matcher(pattern).replaceAll("-user{session}");
+    return KNOWN.contains(pattern) ? pattern : OTHER;
+  }
+}
@@ -0,0 +1,335 @@
+package com.ycyw.poc_chat.monitoring;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+/**
+ * Mesure des trames STOMP sur les canaux client entrant et sortant
+ * (intercepteurs {@link #inbound()} et {@link #outbound()}) :
+ * - websocket.frame.queue (channel, command, handler) : attente dans le
+ *   canal, de l'envoi au début du traitement par chaque handler ;
+ * - websocket.frame.handler (channel, command, destination, handler) :
+ *   durée de traitement, par motif de destination ;
+ * - websocket.frame.size (channel, command) : taille de la charge utile ;
+ * - websocket.session.backlog : messages sortants en attente pour la
+ *   session au moment de l'envoi, et websocket.session.backlog.largest
+ *   (plus grande file actuelle).
+ *
+ * Sur le canal entrant, /app/chat.sendMessage est traité par le handler
+ * des @MessageMapping (SimpAnnotationMethodMessageHandler), la diffusion
+ * par le canal sortant (SubProtocolWebSocketHandler) : les deux se lisent
+ * séparément.
+ *
+ * Percentiles calculés dans l'application (histogrammes HdrHistogram de
+ * Micrometer, fenêtre glissante) : exacts par instance, non agrégeables
+ * entre instances.
+ */
+@Component
+public class StompFrameMetrics {
+
+  /** Instant d'envoi dans le canal ({@link System#nanoTime()}). */
+  static final String ENQUEUED_AT_HEADER = "chatEnqueuedAt";
+
+  /**
+   * En-tête de {@link StompHeaderAccessor} (constante privée chez Spring).
+   */
+  private static final String STOMP_COMMAND_HEADER = "stompCommand";
+
+  private static final double[] PERCENTILES = { 0.5, 0.95, 0.99, 0.999 };
+
+  private final MeterRegistry meterRegistry;
+  private final Map<FrameKey, Timer> queueTimers = new ConcurrentHashMap<>();
+  private final Map<FrameKey, Timer> handlerTimers = new ConcurrentHashMap<>();
+  private final Map<FrameKey, DistributionSummary> frameSizes =
+    new ConcurrentHashMap<>();
+  private final Cache<String, AtomicInteger> backlogs;
+  private final DistributionSummary backlogSummary;
+  private final ChannelMetrics inbound = new ChannelMetrics("inbound", false);
+  private final ChannelMetrics outbound = new ChannelMetrics("outbound", true);
+
+  public StompFrameMetrics(
+    MeterRegistry meterRegistry,
+    @Value(
+      "${chat.websocket.metrics.backlog-idle-ttl:10m}"
+    ) Duration backlogIdleTtl
+  ) {
+    this.meterRegistry = meterRegistry;
+    // filet de sécurité : les sessions sont retirées à la déconnexion
+    this.backlogs =
+      Caffeine.newBuilder().expireAfterAccess(backlogIdleTtl).build();
+    this.backlogSummary =
+      DistributionSummary
+        .builder("websocket.session.backlog")
+        .description("Messages sortants en attente pour la session, à l'envoi")
+        .publishPercentiles(PERCENTILES)
+        .register(meterRegistry);
+    Gauge
+      .builder(
+        "websocket.session.backlog.largest",
+        this,
+        StompFrameMetrics::maxBacklog
+      )
+      .description("Plus grande file sortante d'une session")
+      .register(meterRegistry);
+  }
+
+  public ExecutorChannelInterceptor inbound() {
+    return inbound;
+  }
+
+  public ExecutorChannelInterceptor outbound() {
+    return outbound;
+  }
+
+  @EventListener
+  public void onDisconnect(SessionDisconnectEvent event) {
+    backlogs.invalidate(event.getSessionId());
+  }
+
+  int backlog(String sessionId) {
+    AtomicInteger pending = backlogs.getIfPresent(sessionId);
+    return pending == null ? 0 : pending.get();
+  }
+
+  private double maxBacklog() {
+    int max = 0;
+    for (AtomicInteger pending : backlogs.asMap().values()) {
+      max = Math.max(max, pending.get());
+    }
+    return max;
+  }
+
+  /**
+   * STOMP (SEND, SUBSCRIBE...) si présent, sinon le type SiMP (MESSAGE...).
+   */
+  private static String command(MessageHeaders headers) {
+    Object command = headers.get(STOMP_COMMAND_HEADER);
+    if (command != null) {
+      return command.toString();
+    }
+    SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+    return type == null ? DestinationPatterns.NONE : type.name();
+  }
+
+  private static long payloadSize(Object payload) {
+    if (payload instanceof byte[] bytes) {
+      return bytes.length;
+    }
+    if (payload instanceof String text) {
+      return text.length();
+    }
+    return -1;
+  }
+
+  private Timer queueTimer(FrameKey key) {
+    Timer timer = queueTimers.get(key);
+    if (timer == null) {
+      timer =
+        Timer
+          .builder("websocket.frame.queue")
+          .description("Attente d'une trame dans le canal client")
+          .tag("channel", key.channel())
+          .tag("command", key.command())
+          .tag("handler", key.handler())
+          .publishPercentiles(PERCENTILES)
+          .register(meterRegistry);
+      queueTimers.putIfAbsent(key, timer);
+    }
+    return timer;
+  }
+
+  private Timer handlerTimer(FrameKey key) {
+    Timer timer = handlerTimers.get(key);
+    if (timer == null) {
+      timer =
+        Timer
+          .builder("websocket.frame.handler")
+          .description("Traitement d'une trame par un handler du canal client")
+          .tag("channel", key.channel())
+          .tag("command", key.command())
+          .tag("destination", key.destination())
+          .tag("handler", key.handler())
+          .publishPercentiles(PERCENTILES)
+          .register(meterRegistry);
+      handlerTimers.putIfAbsent(key, timer);
+    }
+    return timer;
+  }
+
+  private DistributionSummary frameSize(FrameKey key) {
+    DistributionSummary summary = frameSizes.get(key);
+    if (summary == null) {
+      summary =
+        DistributionSummary
+          .builder("websocket.frame.size")
+          .description("Taille de la charge utile d'une trame STOMP")
+          .baseUnit("bytes")
+          .tag("channel", key.channel())
+          .tag("command", key.command())
+          .publishPercentiles(PERCENTILES)
+          .register(meterRegistry);
+      frameSizes.putIfAbsent(key, summary);
+    }
+    return summary;
+  }
+
+  /** Clé des compteurs ; destination et handler absents selon la mesure. */
+  private record FrameKey(
+    String channel,
+    String command,
+    String destination,
+    String handler
+  ) {}
+
+  /**
+   * Intercepteur d'un canal. Le temps d'envoi est porté par un en-tête :
+   * posé sur l'accesseur encore modifiable (cas des trames client et des
+   * diffusions du broker), ou sur une copie du message et de son
+   * accesseur sinon. Le début du traitement reste dans le thread qui
+   * exécute le handler : une tâche du canal enchaîne beforeHandle, le
+   * handler et afterMessageHandled.
+   */
+  private final class ChannelMetrics implements ExecutorChannelInterceptor {
+
+    private final String channel;
+    private final boolean trackBacklog;
+    private final ThreadLocal<long[]> handleStartedAt = ThreadLocal.withInitial(
+      () -> new long[1]
+    );
+
+    private ChannelMetrics(String channel, boolean trackBacklog) {
+      this.channel = channel;
+      this.trackBacklog = trackBacklog;
+    }
+
+    @SuppressWarnings("null")
+    @Override
+    public Message<?> preSend(
+      Message<?> message,
+      MessageChannel messageChannel
+    ) {
+      long size = payloadSize(message.getPayload());
+      if (size >= 0) {
+        frameSize(
+          new FrameKey(channel, command(message.getHeaders()), null, null)
+        )
+          .record(size);
+      }
+      if (trackBacklog) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(
+          message.getHeaders()
+        );
+        if (sessionId != null) {
+          backlogSummary.record(
+            backlogs.get(sessionId, id -> new AtomicInteger()).incrementAndGet()
+          );
+        }
+      }
+
+      Long enqueuedAt = System.nanoTime();
+      MessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(
+        message,
+        MessageHeaderAccessor.class
+      );
+      if (accessor != null && accessor.isMutable()) {
+        accessor.setHeader(ENQUEUED_AT_HEADER, enqueuedAt);
+        return message;
+      }
+      // copie du même type d'accesseur : le broker en exige un
+      MessageHeaderAccessor copy = accessor != null
+        ? MessageHeaderAccessor.getMutableAccessor(message)
+        : SimpMessageHeaderAccessor.wrap(message);
+      copy.setHeader(ENQUEUED_AT_HEADER, enqueuedAt);
+      return MessageBuilder.createMessage(
+        message.getPayload(),
+        copy.getMessageHeaders()
+      );
+    }
+
+    @SuppressWarnings("null")
+    @Override
+    public Message<?> beforeHandle(
+      Message<?> message,
+      MessageChannel messageChannel,
+      MessageHandler handler
+    ) {
+      long now = System.nanoTime();
+      MessageHeaders headers = message.getHeaders();
+      if (headers.get(ENQUEUED_AT_HEADER) instanceof Long enqueuedAt) {
+        queueTimer(
+          new FrameKey(channel, command(headers), null, handlerName(handler))
+        )
+          .record(now - enqueuedAt, TimeUnit.NANOSECONDS);
+      }
+      handleStartedAt.get()[0] = now;
+      return message;
+    }
+
+    @SuppressWarnings("null")
+    @Override
+    public void afterMessageHandled(
+      Message<?> message,
+      MessageChannel messageChannel,
+      MessageHandler handler,
+      Exception ex
+    ) {
+      long elapsed = System.nanoTime() - handleStartedAt.get()[0];
+      MessageHeaders headers = message.getHeaders();
+      handlerTimer(
+        new FrameKey(
+          channel,
+          command(headers),
+          DestinationPatterns.of(
+            SimpMessageHeaderAccessor.getDestination(headers)
+          ),
+          handlerName(handler)
+        )
+      )
+        .record(elapsed, TimeUnit.NANOSECONDS);
+      // la file se vide quand le message est écrit vers la session
+      if (trackBacklog && handler instanceof SubProtocolWebSocketHandler) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        AtomicInteger pending = sessionId == null
+          ? null
+          : backlogs.getIfPresent(sessionId);
+        if (pending != null) {
+          pending.decrementAndGet();
+        }
+      }
+    }
+  }
+
+  /** Nom simple de la classe ; les lambdas ont un nom généré, non borné. */
+  private static String handlerName(MessageHandler handler) {
+    Class<?> type = handler.getClass();
+    if (type.isHidden() || type.isSynthetic()) {
+      return "lambda";
+    }
+    String name = type.getSimpleName();
+    return name.isEmpty() ? type.getName() : name;
+  }
+}
@@ -0,0 +1,37 @@
+package com.ycyw.poc_chat.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Persistance d'un message de chat ({@code DialogService.sendMessage}) :
+ * la durée couvre le chargement du dialogue, l'attribution du numéro de
+ * séquence et l'écriture du message.
+ */
+@Name("com.ycyw.chat.ChatMessagePersisted")
+@Label("Chat Message Persisted")
+@Category({ "YCYW", "Chat" })
+@Description("Message de chat enregistré dans un dialogue")
+@StackTrace(false)
+public class ChatMessagePersistedEvent extends Event {
+
+  @Label("Dialog Id")
+  public long dialogId;
+
+  @Label("Message Id")
+  public long messageId;
+
+  @Label("Sequence")
+  public long seq;
+
+  @Label("Rows Written")
+  @Description("Lignes insérées : le message, plus l'expéditeur s'il rejoint le dialogue")
+  public int rows;
+
+  @Label("Status Changed")
+  public boolean statusChanged;
+}
@@ -0,0 +1,37 @@
+package com.ycyw.poc_chat.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Changement de statut appliqué par {@code DialogLifecycleManager}
+ * (arrivée, départ d'un participant, nouveau message).
+ */
+@Name("com.ycyw.chat.DialogStatusTransition")
+@Label("Dialog Status Transition")
+@Category({ "YCYW", "Chat" })
+@Description("Transition de statut d'un dialogue")
+@StackTrace(false)
+public class DialogStatusTransitionEvent extends Event {
+
+  @Label("Dialog Id")
+  public long dialogId;
+
+  @Label("From")
+  public String from;
+
+  @Label("To")
+  public String to;
+
+  @Label("Trigger")
+  @Description("userJoined, userLeft ou messageSent")
+  public String trigger;
+
+  @Label("Participants")
+  @Description("Participants connectés au dialogue après l'événement")
+  public int participants;
+}
@@ -0,0 +1,34 @@
+package com.ycyw.poc_chat.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Passage de l'échéancier d'inactivité ({@code DialogInactivityTimer}).
+ * N'est enregistré que si au moins une échéance a été traitée.
+ */
+@Name("com.ycyw.chat.InactivitySweep")
+@Label("Inactivity Sweep")
+@Category({ "YCYW", "Chat" })
+@Description("Traitement des échéances d'inactivité expirées")
+@StackTrace(false)
+public class InactivitySweepEvent extends Event {
+
+  @Label("Deadlines")
+  @Description("Échéances expirées traitées")
+  public int deadlines;
+
+  @Label("Warned")
+  public int warned;
+
+  @Label("Closed")
+  public int closed;
+
+  @Label("Armed")
+  @Description("Dialogues encore suivis après le passage")
+  public int armed;
+}
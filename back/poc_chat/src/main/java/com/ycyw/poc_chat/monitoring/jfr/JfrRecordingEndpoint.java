@@ -0,0 +1,230 @@
+package com.ycyw.poc_chat.monitoring.jfr;
+
+import jakarta.annotation.PreDestroy;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Enregistrement JDK Flight Recorder piloté par l'actuator (rôle ADMIN) :
+ * - GET    /actuator/jfr          : état de l'enregistrement ;
+ * - POST   /actuator/jfr          : démarrage, {@code {"settings": "profile"}}
+ *   (ou « default », moins coûteux) ;
+ * - DELETE /actuator/jfr          : arrêt, les données restent téléchargeables ;
+ * - GET    /actuator/jfr/recording : fichier .jfr des données enregistrées,
+ *   en cours d'enregistrement ou après l'arrêt.
+ *
+ * Les événements du chat (catégorie YCYW) s'ajoutent à ceux de la JVM
+ * (GC, contention, E/S) dans le même fichier. L'enregistrement est borné
+ * en durée et en taille ({@code chat.jfr.max-age}, {@code chat.jfr.max-size}).
+ */
+@Slf4j
+@Component
+@WebEndpoint(id = "jfr")
+public class JfrRecordingEndpoint {
+
+  static final String RECORDING_NAME = "ycyw-chat";
+  static final String DEFAULT_SETTINGS = "profile";
+
+  private final Duration maxAge;
+  private final DataSize maxSize;
+  private final ReentrantLock lock = new ReentrantLock();
+  private Recording recording;
+  private String settings;
+
+  public JfrRecordingEndpoint(
+    @Value("${chat.jfr.max-age:30m}") Duration maxAge,
+    @Value("${chat.jfr.max-size:200MB}") DataSize maxSize
+  ) {
+    this.maxAge = maxAge;
+    this.maxSize = maxSize;
+  }
+
+  @ReadOperation
+  public Map<String, Object> status() {
+    lock.lock();
+    try {
+      return describe();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Démarre un nouvel enregistrement ; le précédent, s'il est arrêté, est
+   * abandonné.
+   *
+   * @param settings configuration JFR (profile, default), profile par défaut
+   */
+  @WriteOperation
+  public WebEndpointResponse<Map<String, Object>> start(
+    @Nullable String settings
+  ) {
+    if (!FlightRecorder.isAvailable()) {
+      return response(WebEndpointResponse.STATUS_SERVICE_UNAVAILABLE);
+    }
+    String name = settings == null || settings.isBlank()
+      ? DEFAULT_SETTINGS
+      : settings;
+    Configuration configuration;
+    try {
+      configuration = Configuration.getConfiguration(name);
+    } catch (IOException | ParseException e) {
+      log.warn("JFR: unknown settings '{}': {}", name, e.getMessage());
+      return response(WebEndpointResponse.STATUS_BAD_REQUEST);
+    }
+
+    lock.lock();
+    try {
+      if (isRunning()) {
+        return new WebEndpointResponse<>(describe(), 409);
+      }
+      if (recording != null) {
+        recording.close();
+      }
+      recording = new Recording(configuration);
+      recording.setName(RECORDING_NAME);
+      recording.setToDisk(true);
+      recording.setMaxAge(maxAge);
+      recording.setMaxSize(maxSize.toBytes());
+      recording.start();
+      this.settings = name;
+      log.info("JFR recording started ({})", name);
+      return new WebEndpointResponse<>(describe());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @DeleteOperation
+  public WebEndpointResponse<Map<String, Object>> stop() {
+    lock.lock();
+    try {
+      if (!isRunning()) {
+        return new WebEndpointResponse<>(describe(), 409);
+      }
+      recording.stop();
+      log.info("JFR recording stopped ({} bytes)", recording.getSize());
+      return new WebEndpointResponse<>(describe());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Flux .jfr lu depuis une copie arrêtée de l'enregistrement : celui-ci
+   * continue pendant le téléchargement, et la copie est libérée à la
+   * fermeture du flux.
+   *
+   * @param file {@code recording}
+   */
+  @ReadOperation(produces = "application/octet-stream")
+  public WebEndpointResponse<Resource> download(@Selector String file) {
+    Recording snapshot;
+    lock.lock();
+    try {
+      if (!"recording".equals(file) || recording == null) {
+        return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+      }
+      snapshot = recording.copy(true);
+    } finally {
+      lock.unlock();
+    }
+    try {
+      InputStream stream = snapshot.getStream(null, null);
+      if (stream == null) {
+        snapshot.close();
+        return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NO_CONTENT);
+      }
+      return new WebEndpointResponse<>(
+        new InputStreamResource(new ClosingStream(stream, snapshot))
+      );
+    } catch (IOException e) {
+      snapshot.close();
+      log.warn("JFR: cannot read recording: {}", e.getMessage());
+      return new WebEndpointResponse<>(
+        WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR
+      );
+    }
+  }
+
+  @PreDestroy
+  public void close() {
+    lock.lock();
+    try {
+      if (recording != null) {
+        recording.close();
+        recording = null;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean isRunning() {
+    return recording != null && recording.getState() == RecordingState.RUNNING;
+  }
+
+  private WebEndpointResponse<Map<String, Object>> response(int status) {
+    return new WebEndpointResponse<>(status(), status);
+  }
+
+  private Map<String, Object> describe() {
+    Map<String, Object> body = new LinkedHashMap<>();
+    body.put("name", RECORDING_NAME);
+    if (recording == null) {
+      body.put("state", "NONE");
+      return body;
+    }
+    body.put("state", recording.getState().name());
+    body.put("settings", settings);
+    body.put("startTime", recording.getStartTime());
+    body.put("stopTime", recording.getStopTime());
+    body.put("sizeBytes", recording.getSize());
+    body.put("maxAge", maxAge.toString());
+    body.put("maxSizeBytes", maxSize.toBytes());
+    return body;
+  }
+
+  /** Ferme la copie de l'enregistrement avec le flux. */
+  private static final class ClosingStream extends FilterInputStream {
+
+    private final Recording snapshot;
+
+    private ClosingStream(InputStream in, Recording snapshot) {
+      super(in);
+      this.snapshot = snapshot;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        snapshot.close();
+      }
+    }
+  }
+}
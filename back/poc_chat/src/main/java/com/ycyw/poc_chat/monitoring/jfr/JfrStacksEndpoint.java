@@ -0,0 +1,225 @@
+package com.ycyw.poc_chat.monitoring.jfr;
+
+import com.ycyw.poc_chat.monitoring.jfr.StackSummaryAggregator.Kind;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rapport continu des piles qui allouent et qui attendent, lu dans la JVM
+ * par un {@link RecordingStream} (rôle ADMIN) :
+ * - GET  /actuator/jfrstacks : top {@code chat.jfr.stacks.top} par minute
+ *   des événements jdk.ObjectAllocationSample (poids : octets),
+ *   jdk.JavaMonitorEnter et jdk.ThreadPark (poids : nanosecondes) ;
+ * - POST /actuator/jfrstacks {@code {"enabled": true|false}} : marche /
+ *   arrêt. À l'arrêt le flux JFR est fermé, il ne coûte plus rien ; les
+ *   minutes déjà résumées restent lisibles jusqu'au redémarrage.
+ *
+ * Chaque pile est réduite à ses {@code stack-depth} premières méthodes et
+ * à la première méthode applicative (com.ycyw, hors proxys générés), qui
+ * désigne le code à l'origine d'une allocation faite dans le JDK ou une
+ * bibliothèque.
+ */
+@Slf4j
+@Component
+@WebEndpoint(id = "jfrstacks")
+public class JfrStacksEndpoint {
+
+  static final String ALLOCATION_EVENT = "jdk.ObjectAllocationSample";
+  static final String MONITOR_ENTER_EVENT = "jdk.JavaMonitorEnter";
+  static final String THREAD_PARK_EVENT = "jdk.ThreadPark";
+
+  private static final String APP_PACKAGE = "com.ycyw.";
+
+  private final StackSummaryAggregator aggregator;
+  private final boolean enabledAtStartup;
+  private final int stackDepth;
+  private final String allocationThrottle;
+  private final Duration monitorThreshold;
+  private final Duration parkThreshold;
+  private final ReentrantLock lock = new ReentrantLock();
+  private RecordingStream stream;
+
+  public JfrStacksEndpoint(
+    @Value("${chat.jfr.stacks.enabled:false}") boolean enabledAtStartup,
+    @Value("${chat.jfr.stacks.top:20}") int topN,
+    @Value("${chat.jfr.stacks.max-stacks:2000}") int maxStacks,
+    @Value("${chat.jfr.stacks.minutes:15}") int minutesKept,
+    @Value("${chat.jfr.stacks.stack-depth:8}") int stackDepth,
+    @Value(
+      "${chat.jfr.stacks.allocation-throttle:150/s}"
+    ) String allocationThrottle,
+    @Value(
+      "${chat.jfr.stacks.monitor-threshold:10ms}"
+    ) Duration monitorThreshold,
+    @Value("${chat.jfr.stacks.park-threshold:10ms}") Duration parkThreshold
+  ) {
+    this.aggregator = new StackSummaryAggregator(topN, maxStacks, minutesKept);
+    this.enabledAtStartup = enabledAtStartup;
+    this.stackDepth = stackDepth;
+    this.allocationThrottle = allocationThrottle;
+    this.monitorThreshold = monitorThreshold;
+    this.parkThreshold = parkThreshold;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void startIfEnabled() {
+    if (enabledAtStartup) {
+      setEnabled(true);
+    }
+  }
+
+  @ReadOperation
+  public Map<String, Object> report() {
+    Map<String, Object> body = new LinkedHashMap<>();
+    body.put("enabled", isEnabled());
+    body.put("minutes", aggregator.report());
+    return body;
+  }
+
+  @WriteOperation
+  public WebEndpointResponse<Map<String, Object>> toggle(boolean enabled) {
+    if (enabled && !FlightRecorder.isAvailable()) {
+      return new WebEndpointResponse<>(
+        report(),
+        WebEndpointResponse.STATUS_SERVICE_UNAVAILABLE
+      );
+    }
+    setEnabled(enabled);
+    return new WebEndpointResponse<>(report());
+  }
+
+  @PreDestroy
+  public void close() {
+    setEnabled(false);
+  }
+
+  boolean isEnabled() {
+    lock.lock();
+    try {
+      return stream != null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void setEnabled(boolean enabled) {
+    lock.lock();
+    try {
+      if (enabled && stream == null) {
+        aggregator.clear();
+        stream = open();
+        stream.startAsync();
+        log.info("JFR stack report started");
+      } else if (!enabled && stream != null) {
+        stream.close();
+        stream = null;
+        log.info("JFR stack report stopped");
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private RecordingStream open() {
+    RecordingStream recording = new RecordingStream();
+    // les événements sont consommés au fil de l'eau : peu de disque
+    recording.setMaxAge(Duration.ofSeconds(30));
+    recording
+      .enable(ALLOCATION_EVENT)
+      .with("throttle", allocationThrottle)
+      .withStackTrace();
+    recording
+      .enable(MONITOR_ENTER_EVENT)
+      .withThreshold(monitorThreshold)
+      .withStackTrace();
+    recording
+      .enable(THREAD_PARK_EVENT)
+      .withThreshold(parkThreshold)
+      .withStackTrace();
+    recording.onEvent(
+      ALLOCATION_EVENT,
+      e -> record(Kind.ALLOCATION, e, "objectClass", e.getLong("weight"))
+    );
+    recording.onEvent(
+      MONITOR_ENTER_EVENT,
+      e -> record(Kind.MONITOR_ENTER, e, "monitorClass", e.getDuration().toNanos())
+    );
+    recording.onEvent(
+      THREAD_PARK_EVENT,
+      e -> record(Kind.THREAD_PARK, e, "parkedClass", e.getDuration().toNanos())
+    );
+    return recording;
+  }
+
+  private void record(
+    Kind kind,
+    RecordedEvent event,
+    String subjectField,
+    long weight
+  ) {
+    RecordedClass subject = event.getValue(subjectField);
+    List<String> frames = new ArrayList<>(stackDepth);
+    String appFrame = null;
+    RecordedStackTrace stackTrace = event.getStackTrace();
+    if (stackTrace != null) {
+      for (RecordedFrame frame : stackTrace.getFrames()) {
+        if (!frame.isJavaFrame()) {
+          continue;
+        }
+        String method = format(frame);
+        if (frames.size() < stackDepth) {
+          frames.add(method);
+        }
+        // les proxys générés (Spring CGLIB) ne désignent pas le code appelant
+        if (
+          appFrame == null &&
+          method.startsWith(APP_PACKAGE) &&
+          !method.contains("$$")
+        ) {
+          appFrame = method;
+        }
+        if (appFrame != null && frames.size() >= stackDepth) {
+          break;
+        }
+      }
+    }
+    aggregator.record(
+      kind,
+      event.getStartTime().getEpochSecond() / 60,
+      subject == null ? null : subject.getName(),
+      appFrame,
+      List.copyOf(frames),
+      weight
+    );
+  }
+
+  private static String format(RecordedFrame frame) {
+    return (
+      frame.getMethod().getType().getName() +
+      "." +
+      frame.getMethod().getName() +
+      ":" +
+      frame.getLineNumber()
+    );
+  }
+}
@@ -0,0 +1,29 @@
+package com.ycyw.poc_chat.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Vérification d'un JWT ({@code JwtTokenProvider.parseAndVerify}), servie
+ * par le cache ou avec calcul du HMAC.
+ */
+@Name("com.ycyw.chat.JwtVerification")
+@Label("JWT Verification")
+@Category({ "YCYW", "Security" })
+@Description("Vérification de la signature et de l'expiration d'un JWT")
+@StackTrace(false)
+public class JwtVerificationEvent extends Event {
+
+  @Label("Cached")
+  public boolean cached;
+
+  @Label("Valid")
+  public boolean valid;
+
+  @Label("User Id")
+  public long userId;
+}
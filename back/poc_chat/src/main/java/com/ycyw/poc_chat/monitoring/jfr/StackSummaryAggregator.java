@@ -0,0 +1,193 @@
+package com.ycyw.poc_chat.monitoring.jfr;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Agrège des piles d'appels échantillonnées par minute et par type
+ * d'événement, puis ne garde que les {@code topN} plus lourdes de chaque
+ * minute écoulée.
+ *
+ * Mémoire bornée : la minute en cours suit au plus {@code maxStacks}
+ * piles distinctes par type (au-delà, les événements sont comptés dans
+ * {@code untracked}), et seuls les résumés des {@code minutesKept}
+ * dernières minutes sont conservés. Un événement arrivé après le passage
+ * à la minute suivante est compté dans la minute en cours.
+ */
+class StackSummaryAggregator {
+
+  /** Poids : octets alloués (échantillon pondéré) ou nanosecondes d'attente. */
+  enum Kind {
+    ALLOCATION,
+    MONITOR_ENTER,
+    THREAD_PARK,
+  }
+
+  record StackSummary(
+    String subject,
+    String appFrame,
+    List<String> frames,
+    long count,
+    long weight
+  ) {}
+
+  record KindSummary(
+    long events,
+    long weight,
+    long untracked,
+    List<StackSummary> top
+  ) {}
+
+  record MinuteSummary(Instant minute, Map<Kind, KindSummary> kinds) {}
+
+  private record StackKey(String subject, String appFrame, List<String> frames) {}
+
+  private static final class Stat {
+
+    private long count;
+    private long weight;
+  }
+
+  private final int topN;
+  private final int maxStacks;
+  private final int minutesKept;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Map<Kind, Map<StackKey, Stat>> current = new EnumMap<>(Kind.class);
+  private final Map<Kind, Stat> totals = new EnumMap<>(Kind.class);
+  private final Map<Kind, Stat> untracked = new EnumMap<>(Kind.class);
+  private final Deque<MinuteSummary> history = new ArrayDeque<>();
+  private long currentMinute = Long.MIN_VALUE;
+
+  StackSummaryAggregator(int topN, int maxStacks, int minutesKept) {
+    this.topN = topN;
+    this.maxStacks = maxStacks;
+    this.minutesKept = minutesKept;
+    resetCurrent();
+  }
+
+  /**
+   * @param epochMinute minute de l'événement (secondes epoch / 60)
+   * @param subject classe allouée, du moniteur ou de l'objet d'attente
+   * @param appFrame première méthode applicative de la pile, ou null
+   * @param frames sommet de la pile
+   * @param weight octets ou nanosecondes
+   */
+  void record(
+    Kind kind,
+    long epochMinute,
+    String subject,
+    String appFrame,
+    List<String> frames,
+    long weight
+  ) {
+    lock.lock();
+    try {
+      if (epochMinute > currentMinute) {
+        rollOver(epochMinute);
+      }
+      Map<StackKey, Stat> stacks = current.get(kind);
+      StackKey key = new StackKey(subject, appFrame, frames);
+      Stat stat = stacks.get(key);
+      if (stat == null) {
+        if (stacks.size() < maxStacks) {
+          stat = new Stat();
+          stacks.put(key, stat);
+        } else {
+          stat = untracked.get(kind);
+        }
+      }
+      stat.count++;
+      stat.weight += weight;
+      Stat total = totals.get(kind);
+      total.count++;
+      total.weight += weight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Minutes écoulées conservées, puis la minute en cours. */
+  List<MinuteSummary> report() {
+    lock.lock();
+    try {
+      List<MinuteSummary> minutes = new ArrayList<>(history);
+      if (currentMinute != Long.MIN_VALUE) {
+        minutes.add(summarize());
+      }
+      return minutes;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void clear() {
+    lock.lock();
+    try {
+      history.clear();
+      currentMinute = Long.MIN_VALUE;
+      resetCurrent();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void rollOver(long epochMinute) {
+    if (currentMinute != Long.MIN_VALUE) {
+      history.addLast(summarize());
+      while (history.size() > minutesKept) {
+        history.removeFirst();
+      }
+    }
+    currentMinute = epochMinute;
+    resetCurrent();
+  }
+
+  private void resetCurrent() {
+    for (Kind kind : Kind.values()) {
+      current.put(kind, new HashMap<>());
+      totals.put(kind, new Stat());
+      untracked.put(kind, new Stat());
+    }
+  }
+
+  private MinuteSummary summarize() {
+    Map<Kind, KindSummary> kinds = new EnumMap<>(Kind.class);
+    for (Kind kind : Kind.values()) {
+      List<StackSummary> top = current
+        .get(kind)
+        .entrySet()
+        .stream()
+        .sorted(
+          Comparator.comparingLong(
+            (Map.Entry<StackKey, Stat> e) -> e.getValue().weight
+          )
+            .reversed()
+        )
+        .limit(topN)
+        .map(e ->
+          new StackSummary(
+            e.getKey().subject(),
+            e.getKey().appFrame(),
+            e.getKey().frames(),
+            e.getValue().count,
+            e.getValue().weight
+          )
+        )
+        .toList();
+      Stat total = totals.get(kind);
+      kinds.put(
+        kind,
+        new KindSummary(total.count, total.weight, untracked.get(kind).count, top)
+      );
+    }
+    return new MinuteSummary(Instant.ofEpochSecond(currentMinute * 60), kinds);
+  }
+}
@@ -0,0 +1,65 @@
+package com.ycyw.poc_chat.persistence;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ycyw.poc_chat.repository.ChatMessageRepository;
+import com.ycyw.poc_chat.repository.DialogRepository;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Numéros de séquence des messages, strictement croissants par dialogue.
+ *
+ * En mode relay ({@code chat.broker.mode=relay}), plusieurs nœuds écrivent
+ * dans un même dialogue : le numéro est réservé en base sur la ligne du
+ * dialogue ({@code dialogs.last_seq}), sous son verrou. En mode simple,
+ * un compteur par dialogue vivant, initialisé au premier message depuis le
+ * plus grand numéro en base ; l'attribution est ensuite un simple
+ * incrément atomique, sans verrou ni requête. Les compteurs inactifs
+ * depuis {@code idleTtl} sont oubliés puis rechargés au besoin (le délai
+ * doit rester bien supérieur à celui de l'écriture différée). Un envoi en
+ * échec laisse un trou : le client qui le détecte relit l'historique après
+ * son dernier numéro et n'y trouve rien de plus.
+ * L'index unique (dialog_id, seq) rejette tout doublon.
+ */
+@Component
+public class DialogSequencer {
+
+  private final ChatMessageRepository messageRepository;
+  private final DialogRepository dialogRepository;
+  private final boolean shared;
+  private final Cache<Long, AtomicLong> counters;
+
+  public DialogSequencer(
+    ChatMessageRepository messageRepository,
+    DialogRepository dialogRepository,
+    @Value("${chat.broker.mode:simple}") String brokerMode,
+    @Value("${chat.sequence.idle-ttl:1h}") Duration idleTtl
+  ) {
+    this.messageRepository = messageRepository;
+    this.dialogRepository = dialogRepository;
+    this.shared = "relay".equalsIgnoreCase(brokerMode);
+    this.counters = Caffeine.newBuilder().expireAfterAccess(idleTtl).build();
+  }
+
+  /**
+   * @param dialogId ID du dialogue
+   * @return le numéro de séquence du prochain message du dialogue
+   */
+  public long next(Long dialogId) {
+    if (shared) {
+      return dialogRepository.nextSeq(dialogId);
+    }
+    AtomicLong counter = counters.getIfPresent(dialogId);
+    if (counter == null) {
+      // lecture en base hors de la map : pas de requête sous son verrou
+      Long max = messageRepository.findLastSeq(dialogId);
+      AtomicLong seeded = new AtomicLong(max == null ? 0L : max);
+      AtomicLong previous = counters.asMap().putIfAbsent(dialogId, seeded);
+      counter = previous != null ? previous : seeded;
+    }
+    return counter.incrementAndGet();
+  }
+}
@@ -0,0 +1,12 @@
+package com.ycyw.poc_chat.persistence;
+
+/**
+ * Levée quand le tampon d'écriture différée reste plein au-delà du délai
+ * d'attente : le message n'est ni journalisé ni diffusé.
+ */
+public class MessageBackpressureException extends RuntimeException {
+
+  public MessageBackpressureException(String message) {
+    super(message);
+  }
+}
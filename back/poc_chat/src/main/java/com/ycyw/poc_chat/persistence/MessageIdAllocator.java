@@ -0,0 +1,47 @@
+package com.ycyw.poc_chat.persistence;
+
+import com.ycyw.poc_chat.model.ChatMessage;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Attribue les IDs de messages depuis le générateur Hibernate de
+ * {@link ChatMessage} : les blocs pré-alloués (séquence poolée) sont
+ * partagés avec le chemin JPA synchrone, la base n'est sollicitée
+ * qu'une fois par bloc.
+ */
+@Component
+public class MessageIdAllocator {
+
+  private final SessionFactoryImplementor sessionFactory;
+  private final BeforeExecutionGenerator generator;
+
+  public MessageIdAllocator(EntityManagerFactory entityManagerFactory) {
+    this.sessionFactory =
+      entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    this.generator =
+      (BeforeExecutionGenerator) sessionFactory
+        .getMappingMetamodel()
+        .getEntityDescriptor(ChatMessage.class)
+        .getGenerator();
+  }
+
+  /**
+   * @return un nouvel ID de message, unique pour toute l'application
+   */
+  public Long nextId() {
+    try (StatelessSession session = sessionFactory.openStatelessSession()) {
+      return (Long) generator.generate(
+        (SharedSessionContractImplementor) session,
+        null,
+        null,
+        EventType.INSERT
+      );
+    }
+  }
+}
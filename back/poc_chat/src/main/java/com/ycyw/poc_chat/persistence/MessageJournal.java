@@ -0,0 +1,253 @@
+package com.ycyw.poc_chat.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Journal local (une ligne JSON par message) des messages acceptés
+ * mais pas encore écrits en base. Un message est acquitté une fois
+ * ajouté au journal ; le journal est rejoué au redémarrage puis vidé.
+ * Les E/S se font sous un ReentrantLock plutôt qu'un moniteur, pour ne pas
+ * épingler les threads virtuels appelants.
+ * <p>
+ * Le fsync est groupé : {@link #write} ajoute sans forcer, puis
+ * {@link #sync} attend qu'un fsync couvre la position écrite. Un seul
+ * appelant à la fois force le disque, hors du verrou ; ceux arrivés
+ * pendant ce fsync sont acquittés ensemble par le suivant.
+ */
+@Slf4j
+public class MessageJournal implements AutoCloseable {
+
+  private final Path file;
+  private final ObjectMapper objectMapper;
+  private final boolean fsync;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition syncDone = lock.newCondition();
+  private FileChannel channel;
+  private long appended;
+  private long synced;
+  private boolean syncing;
+  private long syncs;
+
+  public MessageJournal(Path file, ObjectMapper objectMapper, boolean fsync) {
+    this.file = file;
+    this.objectMapper = objectMapper;
+    this.fsync = fsync;
+    try {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+      this.channel = openForAppend(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot open journal " + file, e);
+    }
+  }
+
+  /**
+   * Ajoute un message au journal et attend qu'il soit sur disque.
+   */
+  public void append(PendingMessage message) {
+    sync(write(message));
+  }
+
+  /**
+   * Ajoute un message au journal sans forcer l'écriture disque.
+   *
+   * @return position du message, à passer à {@link #sync}
+   */
+  public long write(PendingMessage message) {
+    lock.lock();
+    try {
+      write(channel, message);
+      return ++appended;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot append to journal " + file, e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Attend que les messages écrits jusqu'à {@code position} soient sur
+   * disque. Si aucun fsync n'est en cours, l'appelant le lance pour tout
+   * ce qui a été écrit jusque-là ; sinon il attend la fin du fsync en
+   * cours, puis recommence si sa position n'était pas couverte.
+   */
+  public void sync(long position) {
+    if (!fsync) {
+      return;
+    }
+    lock.lock();
+    try {
+      while (synced < position) {
+        if (syncing) {
+          syncDone.awaitUninterruptibly();
+          continue;
+        }
+        syncing = true;
+        long target = appended;
+        FileChannel current = channel;
+        IOException failure = null;
+        lock.unlock();
+        try {
+          current.force(false);
+        } catch (IOException e) {
+          failure = e;
+        } finally {
+          lock.lock();
+          syncing = false;
+          syncDone.signalAll();
+        }
+        if (failure == null) {
+          syncs++;
+          synced = Math.max(synced, target);
+        } else if (current == channel) {
+          throw new UncheckedIOException(
+            "Cannot sync journal " + file,
+            failure
+          );
+        }
+        // sinon le journal a été réécrit (et forcé) pendant le fsync
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Relit les messages journalisés ; une dernière ligne tronquée
+   * (arrêt brutal pendant l'écriture) est ignorée.
+   */
+  public List<PendingMessage> readAll() {
+    List<PendingMessage> messages = new ArrayList<>();
+    lock.lock();
+    try (BufferedReader reader = Files.newBufferedReader(file)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isBlank()) {
+          continue;
+        }
+        try {
+          messages.add(objectMapper.readValue(line, PendingMessage.class));
+        } catch (IOException e) {
+          log.warn("Skipping corrupted journal entry: {}", e.getMessage());
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read journal " + file, e);
+    } finally {
+      lock.unlock();
+    }
+    return messages;
+  }
+
+  /**
+   * Vide le journal une fois son contenu écrit en base.
+   */
+  public void truncate() {
+    lock.lock();
+    try {
+      channel.truncate(0);
+      if (fsync) {
+        channel.force(false);
+      }
+      synced = appended;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot truncate journal " + file, e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Remplace atomiquement le contenu du journal par les messages donnés.
+   */
+  public void rewrite(List<PendingMessage> messages) {
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    lock.lock();
+    try {
+      try (
+        FileChannel out = FileChannel.open(
+          tmp,
+          StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING
+        )
+      ) {
+        for (PendingMessage message : messages) {
+          write(out, message);
+        }
+        out.force(false);
+      }
+      channel.close();
+      Files.move(
+        tmp,
+        file,
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE
+      );
+      channel = openForAppend(file);
+      synced = appended;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot rewrite journal " + file, e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return nombre de fsync effectués par {@link #sync}
+   */
+  long syncs() {
+    lock.lock();
+    try {
+      return syncs;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      channel.close();
+    } catch (IOException e) {
+      log.warn("Cannot close journal {}: {}", file, e.getMessage());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void write(FileChannel out, PendingMessage message)
+    throws IOException {
+    byte[] line = (objectMapper.writeValueAsString(message) + "\n").getBytes(
+        StandardCharsets.UTF_8
+      );
+    ByteBuffer buffer = ByteBuffer.wrap(line);
+    while (buffer.hasRemaining()) {
+      out.write(buffer);
+    }
+  }
+
+  private static FileChannel openForAppend(Path file) throws IOException {
+    return FileChannel.open(
+      file,
+      StandardOpenOption.CREATE,
+      StandardOpenOption.WRITE,
+      StandardOpenOption.APPEND
+    );
+  }
+}
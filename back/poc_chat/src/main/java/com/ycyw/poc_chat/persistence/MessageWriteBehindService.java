@@ -0,0 +1,365 @@
+package com.ycyw.poc_chat.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ycyw.poc_chat.lifecycle.DialogStateCache;
+import com.ycyw.poc_chat.model.DialogStatus;
+import com.ycyw.poc_chat.model.MessageType;
+import com.ycyw.poc_chat.monitoring.ChatMetrics;
+import com.ycyw.poc_chat.repository.ChatMessageBatchRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Écriture différée (optionnelle) des messages de chat.
+ *
+ * Un message reçoit un ID pré-alloué, est journalisé localement puis placé
+ * dans un tampon borné : il peut alors être diffusé immédiatement. Un thread
+ * dédié l'écrit ensuite en base par lots JDBC. Quand le tampon est plein,
+ * l'émetteur attend au plus {@code offerTimeoutMs} avant d'être refusé
+ * ({@link MessageBackpressureException}).
+ *
+ * Un lot refusé {@code maxAttempts} fois est réessayé message par message :
+ * un message que la base rejette (contrainte, troncature, valeur invalide)
+ * est copié dans le fichier de lettres mortes et compté
+ * (chat.messages.rejected), les autres sont écrits ; une panne de la base
+ * laisse les messages en file et l'écriture continue de réessayer.
+ */
+@Slf4j
+@Service
+public class MessageWriteBehindService {
+
+  private final DialogStateCache dialogStateCache;
+  private final ObjectProvider<MessageIdAllocator> idAllocator;
+  private final DialogSequencer dialogSequencer;
+  private final ChatMessageBatchRepository batchRepository;
+  private final ObjectMapper objectMapper;
+  private final ChatMetrics chatMetrics;
+
+  private final boolean enabled;
+  private final int capacity;
+  private final int batchSize;
+  private final long offerTimeoutMs;
+  private final Path journalPath;
+  private final boolean fsync;
+  private final int maxAttempts;
+  private final Path deadLetterPath;
+
+  private final ReentrantLock journalLock = new ReentrantLock();
+  private BlockingQueue<PendingMessage> buffer;
+  private Semaphore permits;
+  private MessageJournal journal;
+  private MessageJournal deadLetters;
+  private Thread writer;
+  private volatile boolean running;
+  private int committedSinceRoll;
+
+  public MessageWriteBehindService(
+    DialogStateCache dialogStateCache,
+    ObjectProvider<MessageIdAllocator> idAllocator,
+    DialogSequencer dialogSequencer,
+    ChatMessageBatchRepository batchRepository,
+    ObjectMapper objectMapper,
+    ChatMetrics chatMetrics,
+    @Value("${chat.write-behind.enabled:false}") boolean enabled,
+    @Value("${chat.write-behind.buffer-capacity:10000}") int capacity,
+    @Value("${chat.write-behind.batch-size:200}") int batchSize,
+    @Value("${chat.write-behind.offer-timeout-ms:50}") long offerTimeoutMs,
+    @Value(
+      "${chat.write-behind.journal:./data/messages.journal}"
+    ) Path journalPath,
+    @Value("${chat.write-behind.fsync:true}") boolean fsync,
+    @Value("${chat.write-behind.max-attempts:5}") int maxAttempts,
+    @Value(
+      "${chat.write-behind.dead-letter:./data/messages.dead-letter}"
+    ) Path deadLetterPath
+  ) {
+    this.dialogStateCache = dialogStateCache;
+    this.idAllocator = idAllocator;
+    this.dialogSequencer = dialogSequencer;
+    this.batchRepository = batchRepository;
+    this.objectMapper = objectMapper;
+    this.chatMetrics = chatMetrics;
+    this.enabled = enabled;
+    this.capacity = capacity;
+    this.batchSize = batchSize;
+    this.offerTimeoutMs = offerTimeoutMs;
+    this.journalPath = journalPath;
+    this.fsync = fsync;
+    this.maxAttempts = maxAttempts;
+    this.deadLetterPath = deadLetterPath;
+  }
+
+  /**
+   * Rejoue le journal d'un arrêt précédent puis démarre le thread d'écriture.
+   */
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    journal = new MessageJournal(journalPath, objectMapper, fsync);
+    deadLetters = new MessageJournal(deadLetterPath, objectMapper, true);
+    recover();
+
+    buffer = new ArrayBlockingQueue<>(capacity);
+    permits = new Semaphore(capacity);
+    running = true;
+    writer = new Thread(this::writeLoop, "chat-message-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * Arrêt propre : le tampon est vidé en base avant la fermeture du journal.
+   */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    if (!enabled) {
+      return;
+    }
+    running = false;
+    writer.join(TimeUnit.SECONDS.toMillis(30));
+    journal.close();
+    deadLetters.close();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Accepte un message : statut et participants mis à jour en mémoire,
+   * ID et numéro de séquence attribués, message journalisé puis mis en
+   * file d'écriture.
+   *
+   * @return le message accepté (acquitté), prêt à être diffusé
+   * @throws MessageBackpressureException si le tampon reste plein
+   * @throws java.util.NoSuchElementException si le dialogue n'existe pas
+   */
+  public PendingMessage submit(
+    Long dialogId,
+    Long senderId,
+    String content,
+    boolean isClient
+  ) {
+    if (!permits.tryAcquire()) {
+      try {
+        if (!permits.tryAcquire(offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+          throw new MessageBackpressureException(
+            "Message buffer full (" + capacity + " pending writes)"
+          );
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new MessageBackpressureException("Interrupted while waiting");
+      }
+    }
+
+    PendingMessage message;
+    long position;
+    try {
+      if (isClient) {
+        dialogStateCache.transition(
+          dialogId,
+          DialogStatus.CLOSED,
+          DialogStatus.PENDING
+        );
+      } else {
+        dialogStateCache.transition(
+          dialogId,
+          DialogStatus.PENDING,
+          DialogStatus.OPEN
+        );
+      }
+      boolean newParticipant = dialogStateCache.addParticipant(
+        dialogId,
+        senderId
+      );
+
+      message = PendingMessage
+        .builder()
+        .id(idAllocator.getObject().nextId())
+        .dialogId(dialogId)
+        .seq(dialogSequencer.next(dialogId))
+        .senderId(senderId)
+        .content(content)
+        .type(MessageType.CHAT)
+        .timestamp(LocalDateTime.now())
+        .newParticipant(newParticipant)
+        .build();
+
+      journalLock.lock();
+      try {
+        position = journal.write(message);
+        buffer.add(message);
+      } finally {
+        journalLock.unlock();
+      }
+    } catch (RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+    // Hors du verrou : un seul fsync acquitte tous les messages écrits
+    // avant lui. En cas d'échec le message reste en file d'écriture.
+    journal.sync(position);
+    return message;
+  }
+
+  /**
+   * @return nombre de messages acquittés pas encore écrits en base
+   */
+  public int pendingCount() {
+    return enabled ? capacity - permits.availablePermits() : 0;
+  }
+
+  void recover() {
+    List<PendingMessage> pending = journal.readAll();
+    if (pending.isEmpty()) {
+      return;
+    }
+    for (int from = 0; from < pending.size(); from += batchSize) {
+      List<PendingMessage> batch = pending.subList(
+        from,
+        Math.min(from + batchSize, pending.size())
+      );
+      try {
+        batchRepository.insertBatch(batch);
+      } catch (RuntimeException e) {
+        if (!writeRowByRow(batch).isEmpty()) {
+          throw e;
+        }
+      }
+    }
+    journal.truncate();
+    log.info("Recovered {} journaled messages", pending.size());
+  }
+
+  private void writeLoop() {
+    List<PendingMessage> batch = new ArrayList<>(batchSize);
+    while (running || !buffer.isEmpty()) {
+      try {
+        PendingMessage first = buffer.poll(200, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        buffer.drainTo(batch, batchSize - 1);
+        if (!write(batch)) {
+          return;
+        }
+        roll(batch.size());
+        permits.release(batch.size());
+        batch.clear();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Écrit le lot, en réessayant tant que le service tourne : d'un bloc
+   * {@code maxAttempts} fois, puis message par message. À l'arrêt, un lot
+   * en échec reste dans le journal et sera rejoué au démarrage.
+   */
+  private boolean write(List<PendingMessage> batch)
+    throws InterruptedException {
+    List<PendingMessage> remaining = batch;
+    for (int attempt = 1;; attempt++) {
+      if (attempt <= maxAttempts) {
+        try {
+          batchRepository.insertBatch(remaining);
+          return true;
+        } catch (RuntimeException e) {
+          log.warn(
+            "Batch insert of {} messages failed (attempt {}): {}",
+            remaining.size(),
+            attempt,
+            e.getMessage()
+          );
+        }
+      } else {
+        remaining = writeRowByRow(remaining);
+        if (remaining.isEmpty()) {
+          return true;
+        }
+      }
+      if (!running) {
+        return false;
+      }
+      Thread.sleep(1_000);
+    }
+  }
+
+  /**
+   * Écrit les messages un à un ; ceux que la base rejette passent en
+   * lettres mortes.
+   *
+   * @return les messages à réessayer (échec sans rejet de la donnée)
+   */
+  private List<PendingMessage> writeRowByRow(List<PendingMessage> batch) {
+    List<PendingMessage> retry = new ArrayList<>();
+    for (PendingMessage message : batch) {
+      try {
+        batchRepository.insertBatch(List.of(message));
+      } catch (DataIntegrityViolationException e) {
+        deadLetter(message, e);
+      } catch (RuntimeException e) {
+        retry.add(message);
+      }
+    }
+    if (!retry.isEmpty()) {
+      log.warn("{} messages still failing, retrying", retry.size());
+    }
+    return retry;
+  }
+
+  private void deadLetter(
+    PendingMessage message,
+    DataIntegrityViolationException cause
+  ) {
+    deadLetters.append(message);
+    chatMetrics.countRejected();
+    log.error(
+      "Message {} (dialog {}) rejected by the database, moved to {}: {}",
+      message.getId(),
+      message.getDialogId(),
+      deadLetterPath,
+      cause.getMostSpecificCause().getMessage()
+    );
+  }
+
+  /**
+   * Vide le journal quand plus rien n'est en attente, ou le réécrit avec
+   * les seuls messages en attente s'il a trop grossi sous charge continue.
+   */
+  private void roll(int committed) {
+    committedSinceRoll += committed;
+    journalLock.lock();
+    try {
+      if (permits.availablePermits() + committed == capacity) {
+        journal.truncate();
+        committedSinceRoll = 0;
+      } else if (committedSinceRoll >= capacity) {
+        journal.rewrite(List.copyOf(buffer));
+        committedSinceRoll = 0;
+      }
+    } finally {
+      journalLock.unlock();
+    }
+  }
+}
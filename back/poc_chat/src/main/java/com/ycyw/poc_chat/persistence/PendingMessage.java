@@ -0,0 +1,27 @@
+package com.ycyw.poc_chat.persistence;
+
+import com.ycyw.poc_chat.model.MessageType;
+import java.time.LocalDateTime;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Message accepté (journalisé et diffusé) mais pas encore écrit en base.
+ */
+@Value
+@Builder
+@Jacksonized
+public class PendingMessage {
+
+  Long id;
+  Long dialogId;
+  Long seq;
+  Long senderId;
+  String content;
+  MessageType type;
+  LocalDateTime timestamp;
+
+  /** true si l'expéditeur doit être ajouté aux participants du dialogue */
+  boolean newParticipant;
+}
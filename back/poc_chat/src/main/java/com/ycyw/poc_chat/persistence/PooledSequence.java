@@ -0,0 +1,27 @@
+package com.ycyw.poc_chat.persistence;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Identifiant alloué par blocs depuis une séquence (émulée par une table
+ * sous MySQL), ce qui autorise le batching JDBC des insertions.
+ *
+ * La taille de bloc peut être surchargée par entité via la propriété
+ * {@code spring.jpa.properties.ycyw.id.allocation-size.<name>}.
+ */
+@IdGeneratorType(PooledSequenceGenerator.class)
+@Retention(RUNTIME)
+@Target({ FIELD, METHOD })
+public @interface PooledSequence {
+  /** nom de la séquence (table {@code <name>} sous MySQL) */
+  String name();
+
+  /** taille de bloc par défaut */
+  int allocationSize() default 50;
+}
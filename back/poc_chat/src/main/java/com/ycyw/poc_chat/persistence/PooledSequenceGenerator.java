@@ -0,0 +1,56 @@
+package com.ycyw.poc_chat.persistence;
+
+import java.lang.reflect.Member;
+import java.util.Properties;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Générateur de {@link PooledSequence} : séquence Hibernate standard avec
+ * l'optimiseur pooled-lo (la valeur lue en base est la borne basse du bloc)
+ * et une taille de bloc configurable par entité.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+  public static final String ALLOCATION_SIZE_PREFIX = "ycyw.id.allocation-size.";
+
+  private final PooledSequence config;
+
+  public PooledSequenceGenerator(
+    PooledSequence config,
+    Member member,
+    CustomIdGeneratorCreationContext context
+  ) {
+    this.config = config;
+  }
+
+  @Override
+  public void configure(
+    Type type,
+    Properties parameters,
+    ServiceRegistry serviceRegistry
+  ) throws MappingException {
+    Object allocationSize = serviceRegistry
+      .requireService(ConfigurationService.class)
+      .getSettings()
+      .get(ALLOCATION_SIZE_PREFIX + config.name());
+
+    parameters.setProperty(SEQUENCE_PARAM, config.name());
+    parameters.setProperty(
+      INCREMENT_PARAM,
+      allocationSize != null
+        ? allocationSize.toString()
+        : String.valueOf(config.allocationSize())
+    );
+    parameters.setProperty(
+      OPT_PARAM,
+      StandardOptimizerDescriptor.POOLED_LO.getExternalName()
+    );
+    super.configure(type, parameters, serviceRegistry);
+  }
+}
@@ -0,0 +1,227 @@
+package com.ycyw.poc_chat.persistence;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ycyw.poc_chat.dto.ChatMessageDTO;
+import com.ycyw.poc_chat.mapper.ChatMessageMapper;
+import com.ycyw.poc_chat.model.ChatMessage;
+import com.ycyw.poc_chat.repository.ChatMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * Derniers messages diffusés, par dialogue, pour la reprise des clients
+ * qui se reconnectent.
+ *
+ * Chaque dialogue a un anneau de {@code capacity} messages indexé par
+ * numéro de séquence. L'anneau est préchargé depuis la base une seule
+ * fois, au premier client qui en a besoin ; la base n'est ensuite lue que
+ * si le client a manqué plus de messages que l'anneau n'en contient.
+ *
+ * En mode relay ({@code chat.broker.mode=relay}), un nœud ne voit passer
+ * que les messages qu'il a lui-même reçus : l'anneau serait troué et la
+ * reprise partielle. Elle se fait alors toujours depuis la base (les
+ * messages encore en écriture différée sur un autre nœud n'y sont pas).
+ * Métrique : websocket.replay (source = memory | database).
+ */
+@Component
+public class RecentMessageBuffer {
+
+  private final ChatMessageRepository messageRepository;
+  private final ChatMessageMapper chatMessageMapper;
+  private final int capacity;
+  private final boolean inMemory;
+  private final Cache<Long, Ring> rings;
+  private final Counter memoryReplays;
+  private final Counter databaseReplays;
+
+  public RecentMessageBuffer(
+    ChatMessageRepository messageRepository,
+    ChatMessageMapper chatMessageMapper,
+    MeterRegistry meterRegistry,
+    @Value("${chat.replay.capacity:256}") int capacity,
+    @Value("${chat.replay.max-dialogs:10000}") long maxDialogs,
+    @Value("${chat.replay.idle-ttl:30m}") Duration idleTtl,
+    @Value("${chat.broker.mode:simple}") String brokerMode
+  ) {
+    this.messageRepository = messageRepository;
+    this.chatMessageMapper = chatMessageMapper;
+    this.capacity = capacity;
+    this.inMemory = !"relay".equalsIgnoreCase(brokerMode);
+    this.rings =
+      Caffeine
+        .newBuilder()
+        .maximumSize(maxDialogs)
+        .expireAfterAccess(idleTtl)
+        .build();
+    this.memoryReplays = replayCounter(meterRegistry, "memory");
+    this.databaseReplays = replayCounter(meterRegistry, "database");
+  }
+
+  /**
+   * Retient un message qui vient d'être diffusé (ignoré sans numéro de
+   * séquence : JOIN, LEAVE..., ou en mode relay).
+   */
+  public void append(ChatMessageDTO message) {
+    if (
+      !inMemory || message.getDialogId() == null || message.getSeq() == null
+    ) {
+      return;
+    }
+    ring(message.getDialogId()).put(message);
+  }
+
+  /**
+   * Messages d'un dialogue postérieurs au dernier numéro reçu par le client,
+   * par numéro croissant (au plus {@code capacity}).
+   *
+   * @param dialogId ID du dialogue
+   * @param lastSeen dernier numéro de séquence reçu par le client
+   * @return les messages manquants, depuis l'anneau ou à défaut la base
+   */
+  public List<ChatMessageDTO> since(Long dialogId, long lastSeen) {
+    if (inMemory) {
+      Ring ring = ring(dialogId);
+      warmUp(dialogId, ring);
+      List<ChatMessageDTO> missing = ring.since(lastSeen);
+      if (missing != null) {
+        memoryReplays.increment();
+        return missing;
+      }
+    }
+    databaseReplays.increment();
+    return messageRepository
+      .findPageAfterSeqByDialogId(
+        dialogId,
+        lastSeen,
+        PageRequest.of(0, capacity)
+      )
+      .stream()
+      .map(chatMessageMapper::toDto)
+      .collect(Collectors.toList());
+  }
+
+  private Ring ring(Long dialogId) {
+    return rings.get(dialogId, id -> new Ring(capacity));
+  }
+
+  /**
+   * Précharge l'anneau depuis la base. Un seul appelant lit la base, les
+   * reconnexions simultanées attendent son résultat ; un échec sera retenté
+   * par le client suivant.
+   */
+  private void warmUp(Long dialogId, Ring ring) {
+    while (true) {
+      CompletableFuture<Void> pending = ring.warmUp.get();
+      if (pending != null) {
+        pending.join();
+        return;
+      }
+      CompletableFuture<Void> mine = new CompletableFuture<>();
+      if (!ring.warmUp.compareAndSet(null, mine)) {
+        continue;
+      }
+      try {
+        List<ChatMessage> latest = messageRepository.findLatestBySeqByDialogId(
+          dialogId,
+          PageRequest.of(0, capacity)
+        );
+        latest.forEach(m -> ring.put(chatMessageMapper.toDto(m)));
+        ring.floor =
+          latest.size() < capacity
+            ? 1L
+            : latest.get(latest.size() - 1).getSeq();
+        mine.complete(null);
+        return;
+      } catch (RuntimeException e) {
+        ring.warmUp.set(null);
+        mine.completeExceptionally(e);
+        throw e;
+      }
+    }
+  }
+
+  private static Counter replayCounter(MeterRegistry registry, String source) {
+    return Counter
+      .builder("websocket.replay")
+      .description("Reprises de clients reconnectés")
+      .tag("source", source)
+      .register(registry);
+  }
+
+  /**
+   * Anneau sans verrou : l'emplacement d'un message est seq modulo la
+   * capacité, un message plus ancien n'écrase jamais un plus récent
+   * (les diffusions concurrentes peuvent arriver dans le désordre).
+   */
+  static final class Ring {
+
+    private final AtomicReferenceArray<ChatMessageDTO> slots;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicReference<CompletableFuture<Void>> warmUp =
+      new AtomicReference<>();
+
+    /** Plus petit numéro dont l'anneau garantit la présence (après préchargement) */
+    private volatile long floor = Long.MAX_VALUE;
+
+    Ring(int capacity) {
+      this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    void put(ChatMessageDTO message) {
+      long seq = message.getSeq();
+      int slot = slot(seq);
+      while (true) {
+        ChatMessageDTO current = slots.get(slot);
+        if (current != null && current.getSeq() >= seq) {
+          break;
+        }
+        if (slots.compareAndSet(slot, current, message)) {
+          break;
+        }
+      }
+      head.accumulateAndGet(seq, Math::max);
+    }
+
+    /**
+     * @return les messages après {@code lastSeen}, ou null si certains ont
+     *         pu sortir de l'anneau. Un numéro absent mais dans la fenêtre
+     *         est un envoi en échec ou une diffusion en cours, que le client
+     *         recevra sur son abonnement.
+     */
+    List<ChatMessageDTO> since(long lastSeen) {
+      long last = head.get();
+      if (last - lastSeen > slots.length() || lastSeen + 1 < floor) {
+        return null;
+      }
+      List<ChatMessageDTO> missing = new ArrayList<>();
+      for (long seq = lastSeen + 1; seq <= last; seq++) {
+        ChatMessageDTO message = slots.get(slot(seq));
+        if (message == null || message.getSeq() < seq) {
+          continue;
+        }
+        if (message.getSeq() > seq) {
+          // écrasé pendant la lecture : l'anneau a fait un tour
+          return null;
+        }
+        missing.add(message);
+      }
+      return missing;
+    }
+
+    private int slot(long seq) {
+      return (int) Math.floorMod(seq, (long) slots.length());
+    }
+  }
+}
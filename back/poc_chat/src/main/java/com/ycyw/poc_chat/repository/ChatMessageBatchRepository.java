@@ -0,0 +1,73 @@
+package com.ycyw.poc_chat.repository;
+
+import com.ycyw.poc_chat.persistence.PendingMessage;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Écriture JDBC par lots des messages en écriture différée.
+ * Les insertions sont idempotentes (ID pré-attribué, doublon de clé
+ * ignoré) pour permettre le rejeu du journal après un arrêt brutal.
+ * Seul le doublon de clé est toléré : contrainte étrangère, troncature
+ * ou valeur invalide font échouer l'écriture, au lieu d'être réduites à
+ * un avertissement comme avec INSERT IGNORE. Un autre message portant
+ * déjà le même (dialog_id, seq) est aussi rejeté : la mise à jour tente
+ * alors d'écrire un ID nul.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChatMessageBatchRepository {
+
+  private static final String INSERT_MESSAGE =
+    "INSERT INTO messages " +
+    "(id, content, type, timestamp, seq, dialog_id, sender_id) " +
+    "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+    "ON DUPLICATE KEY UPDATE id = CASE WHEN id = VALUES(id) THEN id END";
+
+  private static final String INSERT_PARTICIPANT =
+    "INSERT INTO rel_user_dialog (dialog_id, user_profile_id) " +
+    "VALUES (?, ?) " +
+    "ON DUPLICATE KEY UPDATE dialog_id = dialog_id";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Insère un lot de messages (et les nouveaux participants) en une transaction.
+   *
+   * @param messages lot à écrire
+   */
+  @Transactional
+  public void insertBatch(List<PendingMessage> messages) {
+    List<Object[]> participants = messages
+      .stream()
+      .filter(PendingMessage::isNewParticipant)
+      .map(m -> new Object[] { m.getDialogId(), m.getSenderId() })
+      .collect(Collectors.toList());
+    if (!participants.isEmpty()) {
+      jdbcTemplate.batchUpdate(INSERT_PARTICIPANT, participants);
+    }
+
+    jdbcTemplate.batchUpdate(
+      INSERT_MESSAGE,
+      messages
+        .stream()
+        .map(m ->
+          new Object[] {
+            m.getId(),
+            m.getContent(),
+            m.getType().name(),
+            Timestamp.valueOf(m.getTimestamp()),
+            m.getSeq(),
+            m.getDialogId(),
+            m.getSenderId(),
+          }
+        )
+        .collect(Collectors.toList())
+    );
+  }
+}
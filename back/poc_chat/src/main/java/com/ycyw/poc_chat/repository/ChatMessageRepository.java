@@ -3,7 +3,10 @@ package com.ycyw.poc_chat.repository;
 import com.ycyw.poc_chat.model.ChatMessage;
 import com.ycyw.poc_chat.model.Dialog;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -22,11 +25,112 @@ public interface ChatMessageRepository
 
 
   /**
-   * Récupère tous les messages non lus d’un dialogue donné, excepté un sender donné.
+   * Récupère le plus grand numéro de séquence d'un dialogue.
    *
    * @param dialogId le dialogue concerné
-   * @param senderId le dialogue concerné
-   * @return liste des messages
+   * @return le dernier numéro attribué, ou null si le dialogue est vide
+   */
+  @Query("SELECT MAX(m.seq) FROM ChatMessage m WHERE m.dialog.id = :dialogId")
+  Long findLastSeq(@Param("dialogId") Long dialogId);
+
+  /**
+   * Récupère les messages postérieurs à un numéro de séquence, pour la
+   * reprise d'un client après une coupure ou un trou détecté.
+   * S'appuie sur l'index composite (dialog_id, seq).
+   *
+   * @param dialogId le dialogue concerné
+   * @param afterSeq dernier numéro reçu par le client (exclu)
+   * @param pageable taille de la page (l'offset doit rester à 0)
+   * @return liste des messages, par numéro de séquence croissant
+   */
+  @Query(
+    """
+        SELECT m
+        FROM ChatMessage m
+        JOIN FETCH m.sender
+        WHERE m.dialog.id = :dialogId
+        AND m.seq > :afterSeq
+        ORDER BY m.seq ASC
+        """
+  )
+  List<ChatMessage> findPageAfterSeqByDialogId(
+    @Param("dialogId") Long dialogId,
+    @Param("afterSeq") Long afterSeq,
+    Pageable pageable
+  );
+
+  /**
+   * Récupère les derniers messages d’un dialogue par numéro de séquence
+   * décroissant (préchargement du tampon de reprise).
+   *
+   * @param dialogId le dialogue concerné
+   * @param pageable taille de la page (l'offset doit rester à 0)
+   * @return liste des messages, du plus récent au plus ancien
+   */
+  @Query(
+    """
+        SELECT m
+        FROM ChatMessage m
+        JOIN FETCH m.sender
+        WHERE m.dialog.id = :dialogId
+        AND m.seq IS NOT NULL
+        ORDER BY m.seq DESC
+        """
+  )
+  List<ChatMessage> findLatestBySeqByDialogId(
+    @Param("dialogId") Long dialogId,
+    Pageable pageable
+  );
+
+  /**
+   * Récupère la page la plus récente des messages d’un dialogue,
+   * triés par (timestamp, id) décroissants.
+   * S'appuie sur l'index composite (dialog_id, timestamp, id).
+   *
+   * @param dialogId le dialogue concerné
+   * @param pageable taille de la page (l'offset doit rester à 0)
+   * @return liste des messages, du plus récent au plus ancien
+   */
+  @Query(
+    """
+        SELECT m
+        FROM ChatMessage m
+        JOIN FETCH m.sender
+        WHERE m.dialog.id = :dialogId
+        ORDER BY m.timestamp DESC, m.id DESC
+        """
+  )
+  List<ChatMessage> findLatestByDialogId(
+    @Param("dialogId") Long dialogId,
+    Pageable pageable
+  );
+
+  /**
+   * Récupère la page de messages strictement antérieurs au message curseur
+   * (pagination par clé sur (timestamp, id), sans OFFSET).
+   *
+   * @param dialogId le dialogue concerné
+   * @param beforeId ID du message curseur (exclu)
+   * @param pageable taille de la page (l'offset doit rester à 0)
+   * @return liste des messages, du plus récent au plus ancien
    */
-  List<ChatMessage> findByDialog_IdAndSender_IdNotAndIsReadFalse(Long dialogId, Long senderId);
+  @Query(
+    """
+        SELECT m
+        FROM ChatMessage m
+        JOIN FETCH m.sender
+        JOIN ChatMessage c ON c.id = :beforeId AND c.dialog.id = :dialogId
+        WHERE m.dialog.id = :dialogId
+        AND (
+          m.timestamp < c.timestamp
+          OR (m.timestamp = c.timestamp AND m.id < c.id)
+        )
+        ORDER BY m.timestamp DESC, m.id DESC
+        """
+  )
+  List<ChatMessage> findPageBeforeByDialogId(
+    @Param("dialogId") Long dialogId,
+    @Param("beforeId") Long beforeId,
+    Pageable pageable
+  );
 }
@@ -0,0 +1,90 @@
+package com.ycyw.poc_chat.repository;
+
+import com.ycyw.poc_chat.model.DialogReadCursor;
+import com.ycyw.poc_chat.model.DialogReadCursorId;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository JPA des curseurs de lecture par participant.
+ */
+@Repository
+public interface DialogReadCursorRepository
+  extends JpaRepository<DialogReadCursor, DialogReadCursorId> {
+  /**
+   * Avance le curseur d'un participant (insertion ou mise à jour d'une
+   * seule ligne). Le curseur ne recule jamais.
+   *
+   * @param dialogId          le dialogue concerné
+   * @param userProfileId     le participant qui lit
+   * @param lastReadSeq       numéro de séquence du dernier message lu
+   * @return nombre de lignes touchées
+   */
+  @Modifying
+  @Query(
+    value = """
+        INSERT INTO dialog_read_cursor
+          (dialog_id, user_profile_id, last_read_seq)
+        VALUES (:dialogId, :userProfileId, :lastReadSeq)
+        ON DUPLICATE KEY UPDATE last_read_seq =
+          GREATEST(last_read_seq, VALUES(last_read_seq))
+        """,
+    nativeQuery = true
+  )
+  int advance(
+    @Param("dialogId") Long dialogId,
+    @Param("userProfileId") Long userProfileId,
+    @Param("lastReadSeq") Long lastReadSeq
+  );
+
+  /**
+   * Compte les messages d'un dialogue postés par d'autres que le lecteur
+   * et postérieurs à son curseur (plage sur l'index (dialog_id, seq)).
+   *
+   * @param dialogId      le dialogue concerné
+   * @param userProfileId le lecteur
+   * @return nombre de messages non lus
+   */
+  @Query(
+    """
+        SELECT COUNT(m)
+        FROM ChatMessage m
+        WHERE m.dialog.id = :dialogId
+        AND m.sender.id <> :userProfileId
+        AND m.seq > COALESCE(
+          (
+            SELECT c.lastReadSeq
+            FROM DialogReadCursor c
+            WHERE c.id.dialogId = :dialogId
+            AND c.id.userProfileId = :userProfileId
+          ),
+          0
+        )
+        """
+  )
+  long countUnread(
+    @Param("dialogId") Long dialogId,
+    @Param("userProfileId") Long userProfileId
+  );
+
+  /**
+   * Récupère les curseurs d'un participant.
+   *
+   * @param userProfileId le participant
+   * @return liste des curseurs
+   */
+  List<DialogReadCursor> findByIdUserProfileId(Long userProfileId);
+
+  /**
+   * Récupère les curseurs de tous les participants d'un ensemble de dialogues.
+   *
+   * @param dialogIds les dialogues concernés
+   * @return liste des curseurs
+   */
+  List<DialogReadCursor> findByIdDialogIdIn(Collection<Long> dialogIds);
+}
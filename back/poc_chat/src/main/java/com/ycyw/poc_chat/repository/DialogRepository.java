@@ -1,15 +1,22 @@
 package com.ycyw.poc_chat.repository;
 
+import com.ycyw.poc_chat.dto.DialogSummaryDTO;
 import com.ycyw.poc_chat.model.Dialog;
 import com.ycyw.poc_chat.model.DialogStatus;
 import com.ycyw.poc_chat.model.UserProfile;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Repository JPA pour l'accès aux dialogues.
@@ -55,6 +62,14 @@ public interface DialogRepository extends JpaRepository<Dialog, Long> {
    */
   List<Dialog> findByStatus(DialogStatus status);
 
+  /**
+   * Compte les dialogues d'un statut donné (jauges de supervision).
+   *
+   * @param status statut recherché
+   * @return nombre de dialogues
+   */
+  long countByStatus(DialogStatus status);
+
   /**
    * Récupère tous les dialogues avec un statut donné (OPEN, PENDING, CLOSED).
    *
@@ -136,4 +151,215 @@ public interface DialogRepository extends JpaRepository<Dialog, Long> {
         """
   )
   Set<Dialog> findAllWithMessagesAndSenders();
+
+  /**
+   * Récupère une page de résumés de dialogues, triés par dernière activité.
+   *
+   * @param readerId ID du profil lecteur (peut être null)
+   * @param pageable page demandée (le tri est fixé par la requête)
+   * @return liste des résumés
+   */
+  default List<DialogSummaryDTO> findDialogSummaries(
+    Long readerId,
+    Pageable pageable
+  ) {
+    return findDialogSummaryPage(
+      readerId,
+      pageable.getPageSize(),
+      pageable.getOffset()
+    );
+  }
+
+  /**
+   * La page de dialogues est d'abord lue sur l'index (last_activity_at, id),
+   * puis non lus et aperçu sont calculés pour ces seuls dialogues : le coût
+   * suit la taille de la page, pas le nombre total de messages.
+   * Non lus : messages de seq supérieur au curseur du lecteur et dont il
+   * n'est pas l'auteur ; sans lecteur, au plus avancé des curseurs.
+   *
+   * @param readerId ID du profil lecteur (peut être null)
+   * @param limit taille de la page
+   * @param offset rang du premier dialogue
+   * @return liste des résumés
+   */
+  @Query(
+    value = """
+        SELECT d.id AS id,
+          d.topic AS topic,
+          d.status AS status,
+          d.last_activity_at AS lastActivityAt,
+          (
+            SELECT COUNT(*)
+            FROM messages m
+            WHERE m.dialog_id = d.id
+            AND m.seq > COALESCE(
+              (
+                SELECT MAX(c.last_read_seq)
+                FROM dialog_read_cursor c
+                WHERE c.dialog_id = d.id
+                AND (:readerId IS NULL OR c.user_profile_id = :readerId)
+              ),
+              0
+            )
+            AND (:readerId IS NULL OR m.sender_id <> :readerId)
+          ) AS unreadCount,
+          (
+            SELECT SUBSTRING(l.content, 1, 100)
+            FROM messages l
+            WHERE l.dialog_id = d.id
+            ORDER BY l.timestamp DESC, l.id DESC
+            LIMIT 1
+          ) AS lastMessagePreview
+        FROM (
+          SELECT p.id, p.topic, p.status, p.last_activity_at
+          FROM dialogs p
+          ORDER BY p.last_activity_at DESC, p.id DESC
+          LIMIT :limit OFFSET :offset
+        ) d
+        ORDER BY d.last_activity_at DESC, d.id DESC
+        """,
+    nativeQuery = true
+  )
+  List<DialogSummaryDTO> findDialogSummaryPage(
+    @Param("readerId") Long readerId,
+    @Param("limit") int limit,
+    @Param("offset") long offset
+  );
+
+  /**
+   * Compte, pour un ensemble de dialogues, les messages au-delà du curseur
+   * de lecture le plus avancé (même règle que les résumés sans lecteur).
+   * Les dialogues sans message non lu sont absents du résultat.
+   *
+   * @param ids identifiants des dialogues
+   * @return un compteur par dialogue ayant des non lus
+   */
+  @Query(
+    value = """
+        SELECT m.dialog_id AS dialogId, COUNT(*) AS unreadCount
+        FROM messages m
+        LEFT JOIN (
+          SELECT c.dialog_id, MAX(c.last_read_seq) AS last_read_seq
+          FROM dialog_read_cursor c
+          WHERE c.dialog_id IN (:ids)
+          GROUP BY c.dialog_id
+        ) rc ON rc.dialog_id = m.dialog_id
+        WHERE m.dialog_id IN (:ids)
+        AND m.seq > COALESCE(rc.last_read_seq, 0)
+        GROUP BY m.dialog_id
+        """,
+    nativeQuery = true
+  )
+  List<UnreadCount> countUnreadByDialogIds(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Nombre de messages non lus d'un dialogue.
+   */
+  interface UnreadCount {
+    Long getDialogId();
+
+    Long getUnreadCount();
+  }
+
+  /**
+   * Ajoute un participant sans charger le dialogue ; sans effet s'il
+   * l'est déjà.
+   *
+   * @param dialogId ID du dialogue
+   * @param profileId ID du profil
+   * @return nombre de lignes insérées
+   */
+  @Modifying
+  @Query(
+    value = """
+        INSERT INTO rel_user_dialog (dialog_id, user_profile_id)
+        VALUES (:dialogId, :profileId)
+        ON DUPLICATE KEY UPDATE dialog_id = dialog_id
+        """,
+    nativeQuery = true
+  )
+  int addParticipant(
+    @Param("dialogId") Long dialogId,
+    @Param("profileId") Long profileId
+  );
+
+  /**
+   * Met à jour l'état d'un dialogue sans le charger.
+   *
+   * @param id identifiant du dialogue
+   * @param status nouveau statut
+   * @param closedAt date de fermeture (null si non fermé)
+   * @param lastActivityAt date de dernière activité
+   * @return nombre de lignes modifiées
+   */
+  @Modifying
+  @Transactional
+  @Query(
+    """
+        UPDATE Dialog d
+        SET d.status = :status,
+          d.closedAt = :closedAt,
+          d.lastActivityAt = :lastActivityAt
+        WHERE d.id = :id
+        """
+  )
+  int updateState(
+    @Param("id") Long id,
+    @Param("status") DialogStatus status,
+    @Param("closedAt") LocalDateTime closedAt,
+    @Param("lastActivityAt") LocalDateTime lastActivityAt
+  );
+
+  /**
+   * Réserve le numéro de séquence suivant d'un dialogue sous le verrou de
+   * sa ligne, tenu jusqu'à la fin de la transaction : deux nœuds ne
+   * peuvent pas obtenir le même numéro.
+   *
+   * @param dialogId ID du dialogue
+   * @return le numéro réservé
+   * @throws NoSuchElementException si le dialogue n'existe pas
+   */
+  @Transactional
+  default long nextSeq(Long dialogId) {
+    if (incrementLastSeq(dialogId) == 0) {
+      throw new NoSuchElementException(
+        "Dialog not found: " + dialogId
+      );
+    }
+    return findLastSeqById(dialogId);
+  }
+
+  /**
+   * Incrémente le compteur de séquence d'un dialogue, rattrapé au besoin
+   * sur le plus grand numéro déjà écrit (base remplie en mode simple).
+   *
+   * @param dialogId ID du dialogue
+   * @return nombre de lignes modifiées
+   */
+  @Modifying
+  @Query(
+    value = """
+        UPDATE dialogs
+        SET last_seq = GREATEST(
+          last_seq,
+          COALESCE(
+            (SELECT MAX(m.seq) FROM messages m WHERE m.dialog_id = :dialogId),
+            0
+          )
+        ) + 1
+        WHERE id = :dialogId
+        """,
+    nativeQuery = true
+  )
+  int incrementLastSeq(@Param("dialogId") Long dialogId);
+
+  /**
+   * @param dialogId ID du dialogue
+   * @return le dernier numéro de séquence réservé pour le dialogue
+   */
+  @Query(
+    value = "SELECT last_seq FROM dialogs WHERE id = :dialogId",
+    nativeQuery = true
+  )
+  Long findLastSeqById(@Param("dialogId") Long dialogId);
 }
@@ -1,8 +1,12 @@
 package com.ycyw.poc_chat.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ycyw.poc_chat.model.UserCredential;
@@ -26,4 +30,42 @@ public interface UserCredentialRepository
    * @return true si un utilisateur existe déjà avec cet email
    */
   boolean existsByEmail(String email);
+
+  /**
+   * Liste les utilisateurs dont des tokens ont été révoqués.
+   * @return couples (ID, génération courante) pour une génération > 0
+   */
+  @Query(
+    "SELECT c.id AS id, c.tokenGeneration AS tokenGeneration " +
+    "FROM UserCredential c WHERE c.tokenGeneration > 0"
+  )
+  List<TokenGeneration> findRevokedTokenGenerations();
+
+  /**
+   * Lit la génération courante des tokens d'un utilisateur.
+   * @param id l'ID de l'utilisateur
+   * @return la génération, vide si l'utilisateur n'existe pas
+   */
+  @Query("SELECT c.tokenGeneration FROM UserCredential c WHERE c.id = :id")
+  Optional<Integer> findTokenGenerationById(@Param("id") Long id);
+
+  /**
+   * Incrémente la génération des tokens d'un utilisateur.
+   * @param id l'ID de l'utilisateur
+   * @return nombre de lignes modifiées
+   */
+  @Modifying
+  @Query(
+    "UPDATE UserCredential c SET c.tokenGeneration = c.tokenGeneration + 1 " +
+    "WHERE c.id = :id"
+  )
+  int incrementTokenGeneration(@Param("id") Long id);
+
+  /**
+   * Génération courante des tokens d'un utilisateur.
+   */
+  interface TokenGeneration {
+    Long getId();
+    Integer getTokenGeneration();
+  }
 }
@@ -1,21 +1,47 @@
 package com.ycyw.poc_chat.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.ycyw.poc_chat.model.UserCredential;
 import com.ycyw.poc_chat.repository.UserCredentialRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
 import java.util.List;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
 
 /**
  * Charge l'utilisateur depuis la table user_credentials.
+ * Les principaux (immuables) sont mis en cache par ID et par email,
+ * bornés en taille et en durée ; statistiques exposées via actuator
+ * (métriques {@code cache.*}, caches user-credentials-by-id / -by-email).
  */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
-  @Autowired
-  private UserCredentialRepository credentialRepo;
+  private final UserCredentialRepository credentialRepo;
+  private final Cache<Long, UserPrincipal> byId;
+  private final Cache<String, UserPrincipal> byEmail;
+
+  public CustomUserDetailsService(
+    UserCredentialRepository credentialRepo,
+    MeterRegistry meterRegistry,
+    @Value("${security.user-cache.max-size:10000}") long maxSize,
+    @Value("${security.user-cache.ttl:10m}") Duration ttl
+  ) {
+    this.credentialRepo = credentialRepo;
+    this.byId = newCache(maxSize, ttl);
+    this.byEmail = newCache(maxSize, ttl);
+    CaffeineCacheMetrics.monitor(meterRegistry, byId, "user-credentials-by-id");
+    CaffeineCacheMetrics.monitor(
+      meterRegistry,
+      byEmail,
+      "user-credentials-by-email"
+    );
+  }
 
   /**
    * Charge un utilisateur par email.
@@ -23,24 +49,69 @@ public class CustomUserDetailsService implements UserDetailsService {
   @Override
   public UserDetails loadUserByUsername(String email)
     throws UsernameNotFoundException {
+    UserPrincipal cached = byEmail.getIfPresent(email);
+    if (cached != null) {
+      return cached;
+    }
     UserCredential uc = credentialRepo
       .findByEmail(email)
       .orElseThrow(() ->
         new UsernameNotFoundException("Utilisateur non trouvé : " + email)
       );
-    return buildPrincipal(uc);
+    return cache(buildPrincipal(uc));
   }
 
   /**
    * Charge un utilisateur par ID (pour le JWT filter).
    */
   public UserDetails loadUserById(Long id) {
+    UserPrincipal cached = byId.getIfPresent(id);
+    if (cached != null) {
+      return cached;
+    }
     UserCredential uc = credentialRepo
       .findById(id)
       .orElseThrow(() ->
         new UsernameNotFoundException("Utilisateur non trouvé ID: " + id)
       );
-    return buildPrincipal(uc);
+    return cache(buildPrincipal(uc));
+  }
+
+  /**
+   * Retire un utilisateur du cache après création ou modification
+   * de ses identifiants (email, mot de passe, rôle).
+   *
+   * @param id    ID de l'utilisateur (peut être null)
+   * @param email email de l'utilisateur, ancien et nouveau si changé
+   */
+  public void evict(Long id, String... email) {
+    if (id != null) {
+      UserPrincipal cached = byId.getIfPresent(id);
+      byId.invalidate(id);
+      if (cached != null) {
+        byEmail.invalidate(cached.getUsername());
+      }
+    }
+    for (String e : email) {
+      if (e != null) {
+        byEmail.invalidate(e);
+      }
+    }
+  }
+
+  private UserPrincipal cache(UserPrincipal principal) {
+    byId.put(principal.getId(), principal);
+    byEmail.put(principal.getUsername(), principal);
+    return principal;
+  }
+
+  private static <K> Cache<K, UserPrincipal> newCache(long maxSize, Duration ttl) {
+    return Caffeine
+      .newBuilder()
+      .maximumSize(maxSize)
+      .expireAfterWrite(ttl)
+      .recordStats()
+      .build();
   }
 
   private UserPrincipal buildPrincipal(UserCredential uc) {
@@ -8,6 +8,8 @@ import java.io.IOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,6 +18,9 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 /**
  * Filtre qui intercepte chaque requête pour y valider le JWT.
+ * En mode sans état ({@code jwt.stateless}), le principal est construit
+ * depuis les claims signés, sans lecture de user_credentials ; seule la
+ * génération du token est contrôlée en mémoire.
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -30,6 +35,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
   @Autowired
   private CustomUserDetailsService userDetailsService;
 
+  @Autowired
+  private TokenRevocationRegistry revocationRegistry;
+
+  @Value("${jwt.stateless:false}")
+  private boolean stateless;
+
   @SuppressWarnings("null")
   @Override
   protected boolean shouldNotFilter(HttpServletRequest request)
@@ -54,16 +65,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     try {
       if (header != null && header.startsWith("Bearer ")) {
         String token = header.substring(7);
-        if (tokenProvider.validateToken(token)) {
-          Long userId = tokenProvider.getUserIdFromToken(token);
-          UserDetails userDetails = userDetailsService.loadUserById(userId);
-          UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
-            userDetails,
-            null,
-            userDetails.getAuthorities()
-          );
-          SecurityContextHolder.getContext().setAuthentication(auth);
+        VerifiedToken verified = tokenProvider.parseAndVerify(token);
+        if (revocationRegistry.isRevoked(verified)) {
+          throw new BadCredentialsException("token révoqué");
         }
+        UserDetails userDetails = stateless
+          ? tokenProvider.toPrincipal(verified)
+          : userDetailsService.loadUserById(verified.getUserId());
+        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+          userDetails,
+          null,
+          userDetails.getAuthorities()
+        );
+        SecurityContextHolder.getContext().setAuthentication(auth);
       }
     } catch (Exception ex) {
       logger.warn("Échec de l'authentification JWT : {}", ex.getMessage());
@@ -1,26 +1,39 @@
 package com.ycyw.poc_chat.security;
 
 import com.ycyw.poc_chat.model.Role;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.ycyw.poc_chat.monitoring.jfr.JwtVerificationEvent;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
 import javax.crypto.SecretKey;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 /**
- * Génère et valide les JSON Web Tokens (JWT)
+ * Génère et valide les JSON Web Tokens (JWT).
+ * Le parseur est construit une fois ; les tokens vérifiés sont mis en cache
+ * (clé : empreinte SHA-256) jusqu'à leur expiration.
  */
 @Component
 public class JwtTokenProvider {
 
   private final SecretKey secretKey;
   private final long jwtExpirationMs;
+  private final JwtParser jwtParser;
+  private final Cache<String, VerifiedToken> verifiedTokens;
 
   public JwtTokenProvider(
     @org.springframework.beans.factory.annotation.Value(
@@ -28,11 +41,23 @@ public class JwtTokenProvider {
     ) String jwtSecret,
     @org.springframework.beans.factory.annotation.Value(
       "${jwt.expiration-ms}"
-    ) long jwtExpirationMs
+    ) long jwtExpirationMs,
+    @org.springframework.beans.factory.annotation.Value(
+      "${jwt.verified-cache.max-size:10000}"
+    ) long verifiedCacheMaxSize
   ) {
     this.secretKey =
       Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
     this.jwtExpirationMs = jwtExpirationMs;
+    this.jwtParser = Jwts.parserBuilder().setSigningKey(secretKey).build();
+    this.verifiedTokens =
+      verifiedCacheMaxSize > 0
+        ? Caffeine
+          .newBuilder()
+          .maximumSize(verifiedCacheMaxSize)
+          .expireAfter(new ExpireAtTokenExpiry())
+          .build()
+        : null;
   }
 
   /**
@@ -44,6 +69,23 @@ public class JwtTokenProvider {
    * @return le token JWT signé
    */
   public String generateToken(Long userId, String email, Role role) {
+    return generateToken(userId, email, role, 0);
+  }
+
+  /**
+   * Génère un token JWT portant la génération de tokens de l'utilisateur.
+   *
+   * @param userId l'ID de l'utilisateur
+   * @param role rôle de l'utilisateur (USER, AGENT, ADMIN)
+   * @param generation génération courante (voir TokenRevocationRegistry)
+   * @return le token JWT signé
+   */
+  public String generateToken(
+    Long userId,
+    String email,
+    Role role,
+    int generation
+  ) {
     Date now = new Date();
     Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
 
@@ -52,12 +94,68 @@ public class JwtTokenProvider {
       .setSubject(userId.toString())
       .claim("role", role)
       .claim("email", email)
+      .claim("gen", generation)
       .setIssuedAt(now)
       .setExpiration(expiryDate)
       .signWith(secretKey, SignatureAlgorithm.HS512)
       .compact();
   }
 
+  /**
+   * Vérifie la signature et l'expiration du token et en extrait tous les
+   * claims en une seule passe. Un token déjà vérifié est servi depuis le
+   * cache jusqu'à son expiration, sans recalcul du HMAC.
+   * Événement JFR : com.ycyw.chat.JwtVerification.
+   *
+   * @param token le JWT
+   * @return les claims vérifiés
+   * @throws JwtException si le token est invalide ou expiré
+   */
+  public VerifiedToken parseAndVerify(String token) {
+    if (token == null || token.isBlank()) {
+      throw new IllegalArgumentException("JWT vide");
+    }
+    JwtVerificationEvent event = new JwtVerificationEvent();
+    event.begin();
+    VerifiedToken verified = null;
+    try {
+      if (verifiedTokens == null) {
+        verified = verify(token);
+        return verified;
+      }
+      String key = hash(token);
+      VerifiedToken cached = verifiedTokens.getIfPresent(key);
+      if (cached != null) {
+        event.cached = true;
+        verified = cached;
+        return cached;
+      }
+      verified = verify(token);
+      verifiedTokens.put(key, verified);
+      return verified;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.valid = verified != null;
+        event.userId = verified == null ? 0L : verified.getUserId();
+        event.commit();
+      }
+    }
+  }
+
+  private VerifiedToken verify(String token) {
+
+    Claims claims = jwtParser.parseClaimsJws(token).getBody();
+    Integer generation = claims.get("gen", Integer.class);
+    return new VerifiedToken(
+      Long.valueOf(claims.getSubject()),
+      claims.get("email", String.class),
+      claims.get("role", String.class),
+      generation == null ? 0 : generation,
+      claims.getExpiration().getTime()
+    );
+  }
+
   /**
    * Récupère l'ID utilisateur depuis le token JWT.
    *
@@ -65,13 +163,7 @@ public class JwtTokenProvider {
    * @return l'ID utilisateur
    */
   public Long getUserIdFromToken(String token) {
-    Claims claims = Jwts
-      .parserBuilder()
-      .setSigningKey(secretKey)
-      .build()
-      .parseClaimsJws(token)
-      .getBody();
-    return Long.valueOf(claims.getSubject());
+    return parseAndVerify(token).getUserId();
   }
 
   /**
@@ -81,13 +173,7 @@ public class JwtTokenProvider {
    * @return rôle de l'utilisateur
    */
   public String getRoleFromToken(String token) {
-    Claims claims = Jwts
-      .parserBuilder()
-      .setSigningKey(secretKey)
-      .build()
-      .parseClaimsJws(token)
-      .getBody();
-    return claims.get("role", String.class);
+    return parseAndVerify(token).getRole();
   }
 
   /**
@@ -97,13 +183,7 @@ public class JwtTokenProvider {
    * @return email de l'utilisateur
    */
   public String getEmailFromToken(String token) {
-    Claims claims = Jwts
-      .parserBuilder()
-      .setSigningKey(secretKey)
-      .build()
-      .parseClaimsJws(token)
-      .getBody();
-    return claims.get("email", String.class);
+    return parseAndVerify(token).getEmail();
   }
 
   /**
@@ -114,11 +194,7 @@ public class JwtTokenProvider {
    */
   public boolean validateToken(String token) {
     try {
-      Jwts
-        .parserBuilder()
-        .setSigningKey(secretKey)
-        .build()
-        .parseClaimsJws(token);
+      parseAndVerify(token);
       return true;
     } catch (JwtException | IllegalArgumentException ex) {
       return false;
@@ -126,15 +202,71 @@ public class JwtTokenProvider {
   }
 
   public UserPrincipal getUserPrincipal(String token) {
-    Long userId = getUserIdFromToken(token);
-    String email = getEmailFromToken(token); 
-    String role = getRoleFromToken(token);
+    return toPrincipal(parseAndVerify(token));
+  }
 
+  /**
+   * Construit le principal à partir de claims déjà vérifiés.
+   */
+  public UserPrincipal toPrincipal(VerifiedToken token) {
     return new UserPrincipal(
-      userId,
-      email,
-      null, 
-      Collections.singleton(new SimpleGrantedAuthority("ROLE_" + role))
+      token.getUserId(),
+      token.getEmail(),
+      null,
+      Collections.singleton(
+        new SimpleGrantedAuthority("ROLE_" + token.getRole())
+      )
     );
   }
+
+  private static String hash(String token) {
+    try {
+      return HexFormat
+        .of()
+        .formatHex(
+          MessageDigest
+            .getInstance("SHA-256")
+            .digest(token.getBytes(StandardCharsets.US_ASCII))
+        );
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Fait expirer chaque entrée du cache à l'expiration de son token.
+   */
+  private static final class ExpireAtTokenExpiry
+    implements Expiry<String, VerifiedToken> {
+
+    @Override
+    public long expireAfterCreate(
+      String key,
+      VerifiedToken value,
+      long currentTime
+    ) {
+      long remainingMs = value.getExpiresAtMs() - System.currentTimeMillis();
+      return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+    }
+
+    @Override
+    public long expireAfterUpdate(
+      String key,
+      VerifiedToken value,
+      long currentTime,
+      long currentDuration
+    ) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(
+      String key,
+      VerifiedToken value,
+      long currentTime,
+      long currentDuration
+    ) {
+      return currentDuration;
+    }
+  }
 }
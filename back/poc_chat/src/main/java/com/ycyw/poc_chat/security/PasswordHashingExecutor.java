@@ -0,0 +1,79 @@
+package com.ycyw.poc_chat.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pool dédié au hachage des mots de passe (BCrypt), hors des threads
+ * Tomcat : taille et file d'attente bornées, refus immédiat quand il est
+ * saturé pour qu'une rafale de connexions ne bloque pas le reste de l'API.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+  private final ThreadPoolExecutor executor;
+  private final Counter rejected;
+
+  public PasswordHashingExecutor(
+    MeterRegistry meterRegistry,
+    @Value("${security.password-hashing.threads:0}") int threads,
+    @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity
+  ) {
+    int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.executor =
+      new ThreadPoolExecutor(
+        size,
+        size,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        new CustomizableThreadFactory("password-hashing-"),
+        new ThreadPoolExecutor.AbortPolicy()
+      );
+    Gauge
+      .builder("auth.password.hashing.queue", executor, e -> e.getQueue().size())
+      .description("Tâches de hachage en attente")
+      .register(meterRegistry);
+    Gauge
+      .builder("auth.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+      .description("Threads de hachage occupés")
+      .register(meterRegistry);
+    this.rejected =
+      Counter
+        .builder("auth.password.hashing.rejected")
+        .description("Tâches refusées, pool saturé")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Exécute une tâche de hachage sur le pool dédié.
+   *
+   * @param task tâche à exécuter
+   * @return résultat asynchrone de la tâche
+   * @throws RejectedExecutionException si le pool et sa file sont pleins
+   */
+  public <T> CompletableFuture<T> submit(Supplier<T> task) {
+    try {
+      return CompletableFuture.supplyAsync(task, executor);
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw e;
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,32 @@
+package com.ycyw.poc_chat.security;
+
+import com.ycyw.poc_chat.model.ProfileType;
+import com.ycyw.poc_chat.model.UserProfile;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Copie immuable du profil d'un utilisateur connecté en WebSocket,
+ * résolue une fois au CONNECT puis partagée par ses sessions.
+ */
+@Value
+@Builder
+public class ProfileSnapshot {
+
+  Long id;
+  String firstName;
+  String lastName;
+  String company;
+  ProfileType type;
+
+  public static ProfileSnapshot of(UserProfile profile) {
+    return ProfileSnapshot
+      .builder()
+      .id(profile.getId())
+      .firstName(profile.getFirstName())
+      .lastName(profile.getLastName())
+      .company(profile.getCompany())
+      .type(profile.getType())
+      .build();
+  }
+}
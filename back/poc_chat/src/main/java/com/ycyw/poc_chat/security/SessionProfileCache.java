@@ -0,0 +1,146 @@
+package com.ycyw.poc_chat.security;
+
+import com.ycyw.poc_chat.model.UserProfile;
+import com.ycyw.poc_chat.repository.UserProfileRepository;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+/**
+ * Profils des utilisateurs connectés en STOMP, indexés par ID de credential.
+ * - Chargé une fois au CONNECT, conservé tant qu'une session reste ouverte.
+ * - Remplacé lors d'une mise à jour du profil, sans relecture en base.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionProfileCache {
+
+  private final UserProfileRepository userProfileRepository;
+
+  private final ConcurrentMap<Long, Entry> byUser = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Long> sessions = new ConcurrentHashMap<>();
+
+  /**
+   * Rattache une session STOMP à l'utilisateur et charge son profil si
+   * aucune autre session ne l'a déjà fait.
+   *
+   * @param sessionId    ID de session STOMP
+   * @param credentialId ID de l'utilisateur (user_credentials)
+   * @return le profil, ou null s'il n'existe pas
+   */
+  public ProfileSnapshot register(String sessionId, Long credentialId) {
+    Entry entry = attach(sessionId, credentialId, null);
+    if (entry == null) {
+      // lecture hors de compute() : pas de requête SQL sous le verrou de la map
+      UserProfile profile = userProfileRepository.findByUserCredentialId(
+        credentialId
+      );
+      if (profile == null) {
+        return null;
+      }
+      entry = attach(sessionId, credentialId, ProfileSnapshot.of(profile));
+    }
+    return entry.snapshot;
+  }
+
+  /**
+   * Compte la session sur l'entrée de l'utilisateur, créée avec
+   * {@code loaded} si elle n'existe pas encore.
+   *
+   * @return l'entrée, ou null si elle n'existe pas et que loaded est null
+   */
+  private Entry attach(
+    String sessionId,
+    Long credentialId,
+    ProfileSnapshot loaded
+  ) {
+    return byUser.compute(
+      credentialId,
+      (id, current) -> {
+        if (current == null) {
+          if (loaded == null) {
+            return null;
+          }
+          current = new Entry(loaded);
+        }
+        if (sessions.putIfAbsent(sessionId, id) == null) {
+          current.sessions++;
+        }
+        return current;
+      }
+    );
+  }
+
+  /**
+   * Détache une session ; le profil est oublié à la fermeture de la dernière.
+   */
+  public void unregister(String sessionId) {
+    Long credentialId = sessions.remove(sessionId);
+    if (credentialId == null) {
+      return;
+    }
+    byUser.computeIfPresent(
+      credentialId,
+      (id, entry) -> --entry.sessions <= 0 ? null : entry
+    );
+  }
+
+  @EventListener
+  public void onDisconnect(SessionDisconnectEvent event) {
+    unregister(event.getSessionId());
+  }
+
+  /**
+   * Profil de l'utilisateur ; sans session enregistrée (cas marginal),
+   * lu en base sans être conservé.
+   *
+   * @param credentialId ID de l'utilisateur (user_credentials)
+   * @return le profil, ou null s'il n'existe pas
+   */
+  public ProfileSnapshot get(Long credentialId) {
+    Entry entry = byUser.get(credentialId);
+    if (entry != null) {
+      return entry.snapshot;
+    }
+    log.debug("Profile of user {} not cached, loading", credentialId);
+    UserProfile profile = userProfileRepository.findByUserCredentialId(
+      credentialId
+    );
+    return profile == null ? null : ProfileSnapshot.of(profile);
+  }
+
+  /**
+   * Remplace le profil en cache après sa modification.
+   *
+   * @param credentialId ID de l'utilisateur (user_credentials)
+   * @param profile      profil à jour
+   */
+  public void refresh(Long credentialId, UserProfile profile) {
+    byUser.computeIfPresent(
+      credentialId,
+      (id, entry) -> {
+        entry.snapshot = ProfileSnapshot.of(profile);
+        return entry;
+      }
+    );
+  }
+
+  int cachedUsers() {
+    return byUser.size();
+  }
+
+  private static final class Entry {
+
+    private volatile ProfileSnapshot snapshot;
+    private int sessions;
+
+    private Entry(ProfileSnapshot snapshot) {
+      this.snapshot = snapshot;
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package com.ycyw.poc_chat.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Mesure la latence de hachage ({@code auth.password.hashing.time},
+ * étiquette operation = encode | matches) de l'encodeur délégué.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+  private final PasswordEncoder delegate;
+  private final Timer encodeTimer;
+  private final Timer matchesTimer;
+
+  public TimedPasswordEncoder(
+    PasswordEncoder delegate,
+    MeterRegistry meterRegistry
+  ) {
+    this.delegate = delegate;
+    this.encodeTimer = timer(meterRegistry, "encode");
+    this.matchesTimer = timer(meterRegistry, "matches");
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return encodeTimer.record(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return matchesTimer.record(() ->
+      delegate.matches(rawPassword, encodedPassword)
+    );
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  private static Timer timer(MeterRegistry registry, String operation) {
+    return Timer
+      .builder("auth.password.hashing.time")
+      .description("Durée de hachage des mots de passe")
+      .tag("operation", operation)
+      .publishPercentiles(0.5, 0.95, 0.99)
+      .register(registry);
+  }
+}
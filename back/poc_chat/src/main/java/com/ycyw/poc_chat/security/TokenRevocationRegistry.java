@@ -0,0 +1,123 @@
+package com.ycyw.poc_chat.security;
+
+import com.ycyw.poc_chat.repository.UserCredentialRepository;
+import com.ycyw.poc_chat.repository.UserCredentialRepository.TokenGeneration;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Révocation des JWT par génération : chaque token porte la génération de
+ * son utilisateur au moment de l'émission, et révoquer incrémente celle-ci.
+ * Seuls les utilisateurs ayant déjà révoqué (génération > 0) sont gardés
+ * en mémoire, chargés au démarrage puis rechargés périodiquement pour
+ * suivre les autres instances. Émettre un token ou révoquer lit la
+ * génération en base, jamais la copie en mémoire.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationRegistry {
+
+  private final UserCredentialRepository credentialRepository;
+
+  private final ReentrantLock revokeLock = new ReentrantLock();
+  private volatile Map<Long, Integer> generations = Map.of();
+
+  /**
+   * Recharge les générations depuis la base.
+   */
+  @PostConstruct
+  @Scheduled(fixedDelayString = "${jwt.revocation.refresh-ms:30000}")
+  public void refresh() {
+    Map<Long, Integer> loaded = new HashMap<>();
+    for (TokenGeneration g : credentialRepository.findRevokedTokenGenerations()) {
+      loaded.put(g.getId(), g.getTokenGeneration());
+    }
+    generations = Map.copyOf(loaded);
+  }
+
+  /**
+   * Génération connue de cette instance pour l'utilisateur.
+   */
+  public int currentGeneration(Long userId) {
+    return generations.getOrDefault(userId, 0);
+  }
+
+  /**
+   * Génération à inscrire dans un nouveau token de l'utilisateur, lue en
+   * base : une révocation faite sur une autre instance depuis le dernier
+   * rechargement est prise en compte.
+   *
+   * @param userId l'ID de l'utilisateur (user_credentials)
+   * @throws EntityNotFoundException si l'utilisateur n'existe pas
+   */
+  @Transactional(readOnly = true)
+  public int generationForNewToken(Long userId) {
+    int generation = loadGeneration(userId);
+    remember(userId, generation);
+    return generation;
+  }
+
+  /**
+   * @return true si le token a été émis avant la dernière révocation
+   */
+  public boolean isRevoked(VerifiedToken token) {
+    return token.getGeneration() < currentGeneration(token.getUserId());
+  }
+
+  /**
+   * Révoque tous les tokens déjà émis pour l'utilisateur.
+   *
+   * @param userId l'ID de l'utilisateur (user_credentials)
+   * @throws EntityNotFoundException si l'utilisateur n'existe pas
+   */
+  @Transactional
+  public void revokeAll(Long userId) {
+    revokeLock.lock();
+    try {
+      if (credentialRepository.incrementTokenGeneration(userId) == 0) {
+        throw new EntityNotFoundException(
+          "Utilisateur non trouvé ID: " + userId
+        );
+      }
+      remember(userId, loadGeneration(userId));
+    } finally {
+      revokeLock.unlock();
+    }
+    log.info("Tokens of user {} revoked", userId);
+  }
+
+  private int loadGeneration(Long userId) {
+    return credentialRepository
+      .findTokenGenerationById(userId)
+      .orElseThrow(() ->
+        new EntityNotFoundException("Utilisateur non trouvé ID: " + userId)
+      );
+  }
+
+  /**
+   * Retient une génération lue en base ; la copie en mémoire ne recule
+   * jamais.
+   */
+  private void remember(Long userId, int generation) {
+    if (generation <= currentGeneration(userId)) {
+      return;
+    }
+    revokeLock.lock();
+    try {
+      Map<Long, Integer> updated = new HashMap<>(generations);
+      updated.merge(userId, generation, Math::max);
+      generations = Map.copyOf(updated);
+    } finally {
+      revokeLock.unlock();
+    }
+  }
+}
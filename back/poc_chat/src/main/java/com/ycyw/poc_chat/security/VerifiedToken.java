@@ -0,0 +1,16 @@
+package com.ycyw.poc_chat.security;
+
+import lombok.Value;
+
+/**
+ * Claims d'un JWT dont la signature et l'expiration ont été vérifiées.
+ */
+@Value
+public class VerifiedToken {
+
+  Long userId;
+  String email;
+  String role;
+  int generation;
+  long expiresAtMs;
+}
@@ -14,14 +14,23 @@ import org.springframework.stereotype.Component;
 /**
  * Intercepteur STOMP qui valide le token JWT lors de la commande CONNECT
  * et place l'objet Authentication dans le contexte du message.
+ * Le profil de l'utilisateur est résolu à ce moment, une fois par session.
  */
 @Component
 public class WebSocketAuthInterceptor implements ChannelInterceptor {
 
   private final JwtTokenProvider jwtTokenProvider;
+  private final SessionProfileCache sessionProfileCache;
+  private final TokenRevocationRegistry revocationRegistry;
 
-  public WebSocketAuthInterceptor(JwtTokenProvider jwtTokenProvider) {
+  public WebSocketAuthInterceptor(
+    JwtTokenProvider jwtTokenProvider,
+    SessionProfileCache sessionProfileCache,
+    TokenRevocationRegistry revocationRegistry
+  ) {
     this.jwtTokenProvider = jwtTokenProvider;
+    this.sessionProfileCache = sessionProfileCache;
+    this.revocationRegistry = revocationRegistry;
   }
 
   @SuppressWarnings("null")
@@ -41,15 +50,18 @@ public class WebSocketAuthInterceptor implements ChannelInterceptor {
         if (bearer.startsWith("Bearer ")) {
           String token = bearer.substring(7);
           try {
-            if (jwtTokenProvider.validateToken(token)) {
-              UserPrincipal user = jwtTokenProvider.getUserPrincipal(token);
-              Authentication auth = new UsernamePasswordAuthenticationToken(
-                user,
-                null,
-                user.getAuthorities()
-              );
-              accessor.setUser(auth);
+            VerifiedToken verified = jwtTokenProvider.parseAndVerify(token);
+            if (revocationRegistry.isRevoked(verified)) {
+              return message;
             }
+            UserPrincipal user = jwtTokenProvider.toPrincipal(verified);
+            Authentication auth = new UsernamePasswordAuthenticationToken(
+              user,
+              null,
+              user.getAuthorities()
+            );
+            accessor.setUser(auth);
+            sessionProfileCache.register(accessor.getSessionId(), user.getId());
           } catch (Exception ex) {}
         }
       }
@@ -1,20 +1,32 @@
 package com.ycyw.poc_chat.service;
 
+import com.ycyw.poc_chat.dto.ChatMessageDTO;
 import com.ycyw.poc_chat.dto.DialogDTO;
+import com.ycyw.poc_chat.lifecycle.DialogStateCache;
+import com.ycyw.poc_chat.lifecycle.DialogUpdateFeed;
 import com.ycyw.poc_chat.mapper.DialogMapper;
 import com.ycyw.poc_chat.model.*;
+import com.ycyw.poc_chat.monitoring.jfr.ChatMessagePersistedEvent;
+import com.ycyw.poc_chat.persistence.DialogSequencer;
 import com.ycyw.poc_chat.repository.*;
 import jakarta.persistence.EntityNotFoundException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 @RequiredArgsConstructor
@@ -25,6 +37,10 @@ public class DialogService {
   private final ChatMessageRepository messageRepository;
   private final SimpMessagingTemplate messagingTemplate;
   private final DialogMapper dialogMapper;
+  private final DialogStateCache dialogStateCache;
+  private final DialogReadCursorRepository readCursorRepository;
+  private final DialogSequencer dialogSequencer;
+  private final DialogUpdateFeed dialogUpdateFeed;
 
   /**
 +   * Crée un nouveau dialogue pour un utilisateur donné.
@@ -62,12 +78,24 @@ public class DialogService {
     dialog.getParticipants().add(clientProfile);
 
     Dialog savedDialog = dialogRepository.save(dialog);
+    afterCommit(() ->
+      dialogUpdateFeed.statusChanged(
+        savedDialog.getId(),
+        savedDialog.getStatus(),
+        savedDialog.getCreatedAt()
+      )
+    );
 
     return savedDialog;
   }
 
   /**
    * Envoie un message dans un dialogue existant.
+   * Statut, dernière activité et participants sont lus et modifiés dans
+   * {@link DialogStateCache} (le dialogue n'est pas chargé) : la ligne
+   * dialogs est écrite par le cache, jamais depuis cette transaction.
+   * Événement JFR : com.ycyw.chat.ChatMessagePersisted (jusqu'à l'écriture
+   * du message, hors validation de la transaction).
    *
    * @param dialogId ID du dialogue
    * @param senderId ID de l'utilisateur expéditeur
@@ -81,83 +109,107 @@ public class DialogService {
     String content,
     boolean isClient
   ) {
-    UserProfile senderProfile;
-    Dialog dialog = dialogRepository
-      .findById(dialogId)
-      .orElseThrow(() -> new RuntimeException("Dialog not found"));
-
-    if (isClient) {
-      if (dialog.getStatus() == DialogStatus.CLOSED) {
-        dialog.setStatus(DialogStatus.PENDING);
-        dialog.setClosedAt(null);
-      }
-      senderProfile = UserProfile.builder().id(senderId).build();
-    } else {
-      senderProfile = userProfileRepository.getReferenceById(senderId);
-      if (dialog.getStatus() == DialogStatus.PENDING) {
-        dialog.setStatus(DialogStatus.OPEN);
-      }
+    ChatMessagePersistedEvent event = new ChatMessagePersistedEvent();
+    event.begin();
+    try {
+      dialogStateCache.get(dialogId);
+    } catch (NoSuchElementException e) {
+      throw new RuntimeException("Dialog not found");
     }
 
-    dialog.setLastActivityAt(LocalDateTime.now());
+    boolean statusChanged = isClient
+      ? dialogStateCache.transition(
+        dialogId,
+        DialogStatus.CLOSED,
+        DialogStatus.PENDING
+      )
+      : dialogStateCache.transition(
+        dialogId,
+        DialogStatus.PENDING,
+        DialogStatus.OPEN
+      );
+    if (!statusChanged) {
+      dialogStateCache.touch(dialogId);
+    }
 
-    if (
-      dialog
-        .getParticipants()
-        .stream()
-        .noneMatch(p -> p.getId().equals(senderId))
-    ) {
-      dialog.getParticipants().add(senderProfile);
+    boolean joined = dialogStateCache.addParticipant(dialogId, senderId);
+    if (joined) {
+      dialogRepository.addParticipant(dialogId, senderId);
+      afterRollback(() ->
+        dialogStateCache.removeParticipant(dialogId, senderId)
+      );
     }
 
+    UserProfile senderProfile = isClient
+      ? UserProfile.builder().id(senderId).build()
+      : userProfileRepository.getReferenceById(senderId);
+
     ChatMessage message = ChatMessage
       .builder()
       .sender(senderProfile)
       .timestamp(LocalDateTime.now())
+      .seq(dialogSequencer.next(dialogId))
       .content(content)
       .type(MessageType.CHAT)
-      .isRead(false)
-      .dialog(dialog)
+      .dialog(dialogRepository.getReferenceById(dialogId))
       .build();
 
-    return messageRepository.save(message);
+    ChatMessage saved = messageRepository.save(message);
+    event.end();
+    if (event.shouldCommit()) {
+      event.dialogId = dialogId;
+      event.messageId = saved.getId() == null ? 0L : saved.getId();
+      event.seq = saved.getSeq() == null ? 0L : saved.getSeq();
+      event.rows = joined ? 2 : 1;
+      event.statusChanged = statusChanged;
+      event.commit();
+    }
+    return saved;
   }
 
   /**
    * Ferme un dialogue (change son statut).
+   * La transition passe par {@link DialogStateCache}, qui fait foi pour le
+   * statut et signale le changement ; elle est écrite en base sans
+   * attendre le flush périodique.
    */
-  @Transactional
   public Dialog closeDialog(Long dialogId) {
-    Dialog dialog = dialogRepository
+    try {
+      if (!dialogStateCache.close(dialogId)) {
+        throw new RuntimeException("Dialog already closed");
+      }
+    } catch (NoSuchElementException e) {
+      throw new RuntimeException("Dialog not found");
+    }
+    dialogStateCache.flush(dialogId);
+    return dialogRepository
       .findById(dialogId)
       .orElseThrow(() -> new RuntimeException("Dialog not found"));
-
-    if (dialog.getStatus() == DialogStatus.CLOSED) {
-      throw new RuntimeException("Dialog already closed");
-    }
-    dialog.setStatus(DialogStatus.CLOSED);
-    dialog.setClosedAt(LocalDateTime.now());
-
-    return dialogRepository.save(dialog);
   }
 
   /**
    * Ajoute un participant à un dialogue existant.
+   * Comme pour un message, participants et activité sont modifiés dans
+   * {@link DialogStateCache} ; seule la ligne de participation est écrite
+   * par cette transaction.
    */
   @Transactional
   public void inviteUser(Long dialogId, Long userId) {
-    Dialog dialog = dialogRepository
-      .findById(dialogId)
-      .orElseThrow(() -> new EntityNotFoundException("Dialog not found"));
-
-    UserProfile invitee = userProfileRepository
-      .findById(userId)
-      .orElseThrow(() -> new EntityNotFoundException("User not found"));
+    try {
+      dialogStateCache.get(dialogId);
+    } catch (NoSuchElementException e) {
+      throw new EntityNotFoundException("Dialog not found");
+    }
+    if (!userProfileRepository.existsById(userId)) {
+      throw new EntityNotFoundException("User not found");
+    }
 
-    if (!dialog.getParticipants().contains(invitee)) {
-      dialog.getParticipants().add(invitee);
-      dialog.setLastActivityAt(LocalDateTime.now());
-      dialogRepository.save(dialog);
+    if (dialogStateCache.addParticipant(dialogId, userId)) {
+      dialogRepository.addParticipant(dialogId, userId);
+      afterRollback(() ->
+        dialogStateCache.removeParticipant(dialogId, userId)
+      );
+      dialogStateCache.touch(dialogId);
 
       messagingTemplate.convertAndSend(
         "/topic/dialog/" + dialogId + "/invites",
@@ -168,22 +220,153 @@ public class DialogService {
 
 
   /**
- * Marque comme lus tous les messages d'un dialogue dont l'expéditeur n'est pas l'utilisateur spécifié.
- * 
- * @param dialogId ID du dialogue
- * @param senderId ID de l'utilisateur qui lit les messages
- */
-@Transactional
-public void markMessagesAsRead(Long dialogId, Long senderId) {
-  
-  List<ChatMessage> unreadMessages = messageRepository.findByDialog_IdAndSender_IdNotAndIsReadFalse(dialogId, senderId);
-  
-  unreadMessages.forEach(message -> message.setIsRead(true));
-  messageRepository.saveAll(unreadMessages);
-  
-  messagingTemplate.convertAndSend(
-    "/topic/dialog/" + dialogId + "/read",
-    Map.of("dialogId", dialogId, "readerId", senderId)
-  );
-}
+   * Marque comme lus tous les messages d'un dialogue dont l'expéditeur n'est pas l'utilisateur spécifié.
+   * Le curseur de lecture du participant avance jusqu'au dernier message
+   * du dialogue : une seule ligne écrite, quel que soit le nombre de messages en retard.
+   *
+   * @param dialogId ID du dialogue
+   * @param senderId ID de l'utilisateur qui lit les messages
+   * @return nombre de messages qui étaient non lus
+   */
+  @Transactional
+  public long markMessagesAsRead(Long dialogId, Long senderId) {
+    Long lastReadSeq = messageRepository.findLastSeq(dialogId);
+    long unread = 0;
+    if (lastReadSeq != null) {
+      unread = readCursorRepository.countUnread(dialogId, senderId);
+      readCursorRepository.advance(dialogId, senderId, lastReadSeq);
+    }
+
+    messagingTemplate.convertAndSend(
+      "/topic/dialog/" + dialogId + "/read",
+      Map.of(
+        "dialogId",
+        dialogId,
+        "readerId",
+        senderId,
+        "count",
+        unread,
+        "lastReadSeq",
+        lastReadSeq == null ? 0L : lastReadSeq
+      )
+    );
+    return unread;
+  }
+
+  /**
+   * Renseigne l'indicateur de lecture des messages d'après les curseurs.
+   * - Avec un lecteur : lu s'il en est l'auteur ou si son curseur le couvre.
+   * - Sans lecteur : lu si un autre participant que l'auteur l'a lu.
+   *
+   * @param dialogs  dialogues à enrichir
+   * @param readerId ID du profil lecteur (peut être null)
+   */
+  @Transactional(readOnly = true)
+  public void applyReadState(Collection<DialogDTO> dialogs, Long readerId) {
+    Map<Long, Collection<ChatMessageDTO>> messagesByDialog = new HashMap<>();
+    for (DialogDTO dialog : dialogs) {
+      messagesByDialog.put(dialog.getId(), dialog.getMessages());
+    }
+    applyReadState(messagesByDialog, readerId);
+    // l'indicateur entre dans le hashCode des messages : on recompose les ensembles
+    dialogs.forEach(d -> d.setMessages(new LinkedHashSet<>(d.getMessages())));
+  }
+
+  /**
+   * Renseigne l'indicateur de lecture d'une page de messages d'un dialogue.
+   *
+   * @param dialogId ID du dialogue
+   * @param messages messages à enrichir
+   * @param readerId ID du profil lecteur (peut être null)
+   */
+  @Transactional(readOnly = true)
+  public void applyReadState(
+    Long dialogId,
+    Collection<ChatMessageDTO> messages,
+    Long readerId
+  ) {
+    applyReadState(Map.of(dialogId, messages), readerId);
+  }
+
+  private void applyReadState(
+    Map<Long, Collection<ChatMessageDTO>> messagesByDialog,
+    Long readerId
+  ) {
+    if (messagesByDialog.isEmpty()) {
+      return;
+    }
+    List<DialogReadCursor> cursors = readerId == null
+      ? readCursorRepository.findByIdDialogIdIn(messagesByDialog.keySet())
+      : readCursorRepository.findByIdUserProfileId(readerId);
+    Map<Long, List<DialogReadCursor>> cursorsByDialog = cursors
+      .stream()
+      .collect(Collectors.groupingBy(c -> c.getId().getDialogId()));
+
+    messagesByDialog.forEach((dialogId, messages) -> {
+      List<DialogReadCursor> dialogCursors = cursorsByDialog.getOrDefault(
+        dialogId,
+        List.of()
+      );
+      for (ChatMessageDTO message : messages) {
+        message.setIsRead(isRead(message, dialogCursors, readerId));
+      }
+    });
+  }
+
+  private boolean isRead(
+    ChatMessageDTO message,
+    List<DialogReadCursor> cursors,
+    Long readerId
+  ) {
+    if (readerId != null && String.valueOf(readerId).equals(message.getSender())) {
+      return true;
+    }
+    return cursors
+      .stream()
+      .anyMatch(c ->
+        !String.valueOf(c.getId().getUserProfileId()).equals(message.getSender()) &&
+        message.getSeq() != null &&
+        message.getSeq() <= c.getLastReadSeq()
+      );
+  }
+
+  /**
+   * Exécute {@code action} une fois la transaction en cours validée
+   * (sans transaction, immédiatement) : les abonnés du flux ne voient
+   * jamais un état que la base n'a pas retenu.
+   */
+  private static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+      new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      }
+    );
+  }
+
+  /**
+   * Exécute {@code action} si la transaction en cours est annulée
+   * (sans transaction, jamais).
+   */
+  private static void afterRollback(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+      new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          if (status == STATUS_ROLLED_BACK) {
+            action.run();
+          }
+        }
+      }
+    );
+  }
 }
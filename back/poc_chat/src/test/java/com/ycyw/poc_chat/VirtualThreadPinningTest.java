@@ -0,0 +1,237 @@
+package com.ycyw.poc_chat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ycyw.poc_chat.model.Dialog;
+import com.ycyw.poc_chat.model.Role;
+import com.ycyw.poc_chat.model.UserCredential;
+import com.ycyw.poc_chat.model.UserProfile;
+import com.ycyw.poc_chat.repository.UserCredentialRepository;
+import com.ycyw.poc_chat.repository.UserProfileRepository;
+import com.ycyw.poc_chat.security.SessionProfileCache;
+import com.ycyw.poc_chat.security.TokenRevocationRegistry;
+import com.ycyw.poc_chat.service.DialogService;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Épinglage des threads virtuels (événement JFR jdk.VirtualThreadPinned),
+ * profil virtual-threads, H2 en mémoire.
+ *
+ * Des centaines de threads virtuels rejouent les chemins bloquants du chat
+ * (CONNECT STOMP, envoi de message, révocation de tokens) avec un pool
+ * Hikari réduit à 2 connexions, pour forcer l'attente d'une connexion.
+ * Le test échoue si un thread virtuel se bloque alors qu'il est dans une
+ * méthode synchronized de l'application ou dans un compute() de
+ * ConcurrentHashMap appelé par l'application ; les autres épinglages
+ * (pilote JDBC, bibliothèques) sont listés sur la sortie standard.
+ *
+ * Ignoré avant Java 21 : {@code mvn -Pjava21 test -Dtest=VirtualThreadPinningTest}.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@ActiveProfiles("virtual-threads")
+@SpringBootTest(
+  properties = {
+    "spring.datasource.url=jdbc:h2:mem:pinning;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE,TIMESTAMP",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.hikari.maximum-pool-size=2",
+    "spring.datasource.hikari.minimum-idle=2",
+    "spring.datasource.hikari.connection-timeout=30000",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false",
+    "database.name=pinning",
+    "spring.rabbitmq.username=guest",
+    "spring.rabbitmq.password=guest",
+    "jwt.secret=pinning-test-secret-pinning-test-secret-pinning-test-secret-pinning",
+    "jwt.expiration-ms=3600000",
+  }
+)
+@DisplayName("Épinglage des threads virtuels")
+class VirtualThreadPinningTest {
+
+  private static final String APP_PACKAGE = "com.ycyw.poc_chat.";
+  private static final int USERS = 20;
+  private static final int TASKS = 400;
+
+  @Autowired
+  private UserCredentialRepository credentialRepository;
+
+  @Autowired
+  private UserProfileRepository profileRepository;
+
+  @Autowired
+  private DialogService dialogService;
+
+  @Autowired
+  private SessionProfileCache sessionProfileCache;
+
+  @Autowired
+  private TokenRevocationRegistry revocationRegistry;
+
+  @Test
+  @DisplayName("aucun blocage sous un moniteur pris par l'application")
+  void chatPathsShouldNotPinCarrierThreads() throws Exception {
+    List<UserProfile> profiles = new ArrayList<>();
+    for (int i = 0; i < USERS; i++) {
+      UserCredential credential = credentialRepository.save(
+        UserCredential
+          .builder()
+          .email("pin" + i + "@test.com")
+          .password("x")
+          .role(Role.USER)
+          .build()
+      );
+      profiles.add(
+        profileRepository.save(
+          UserProfile
+            .builder()
+            .userCredential(credential)
+            .firstName("P" + i)
+            .build()
+        )
+      );
+    }
+    Dialog dialog = dialogService.createDialog(
+      "pinning",
+      profiles.get(0).getId()
+    );
+
+    List<RecordedEvent> pinned;
+    Path dump = Files.createTempFile("pinning", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording
+        .enable("jdk.VirtualThreadPinned")
+        .withThreshold(Duration.ZERO)
+        .withStackTrace();
+      recording.start();
+      runOnVirtualThreads(profiles, dialog.getId());
+      recording.stop();
+      recording.dump(dump);
+      pinned = RecordingFile.readAllEvents(dump);
+    } finally {
+      Files.deleteIfExists(dump);
+    }
+
+    report(pinned);
+    assertThat(pinned)
+      .as("blocages sous un moniteur de l'application")
+      .noneMatch(VirtualThreadPinningTest::heldByApplication);
+  }
+
+  private void runOnVirtualThreads(List<UserProfile> profiles, Long dialogId)
+    throws Exception {
+    VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor(
+      "pinning-"
+    );
+    List<Future<?>> tasks = new ArrayList<>();
+    for (int i = 0; i < TASKS; i++) {
+      UserProfile profile = profiles.get(i % profiles.size());
+      Long credentialId = profile.getUserCredential().getId();
+      String sessionId = "session-" + i;
+      int n = i;
+      tasks.add(
+        executor.submit(() -> {
+          sessionProfileCache.register(sessionId, credentialId);
+          dialogService.sendMessage(
+            dialogId,
+            profile.getId(),
+            "message " + n,
+            false
+          );
+          if (n % 10 == 0) {
+            revocationRegistry.revokeAll(credentialId);
+          }
+          sessionProfileCache.unregister(sessionId);
+        })
+      );
+    }
+    for (Future<?> task : tasks) {
+      task.get();
+    }
+  }
+
+  /**
+   * Vrai si la pile traverse une méthode synchronized de l'application, ou
+   * un ConcurrentHashMap.compute*() appelé directement par l'application.
+   */
+  private static boolean heldByApplication(RecordedEvent event) {
+    List<RecordedFrame> frames = event.getStackTrace().getFrames();
+    for (int i = 0; i < frames.size(); i++) {
+      RecordedFrame frame = frames.get(i);
+      String type = frame.getMethod().getType().getName();
+      if (
+        type.startsWith(APP_PACKAGE) &&
+        Modifier.isSynchronized(frame.getMethod().getModifiers())
+      ) {
+        return true;
+      }
+      if (
+        type.equals("java.util.concurrent.ConcurrentHashMap") &&
+        frame.getMethod().getName().startsWith("compute") &&
+        i + 1 < frames.size() &&
+        frames
+          .get(i + 1)
+          .getMethod()
+          .getType()
+          .getName()
+          .startsWith(APP_PACKAGE)
+      ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Regroupe les épinglages par sommet de pile (5 premières frames).
+   */
+  private static void report(List<RecordedEvent> pinned) {
+    Map<String, Long> byStack = pinned
+      .stream()
+      .collect(
+        Collectors.groupingBy(
+          event ->
+            event
+              .getStackTrace()
+              .getFrames()
+              .stream()
+              .limit(5)
+              .map(frame ->
+                frame.getMethod().getType().getName() +
+                "." +
+                frame.getMethod().getName()
+              )
+              .collect(Collectors.joining(" <- ")),
+          TreeMap::new,
+          Collectors.counting()
+        )
+      );
+    System.out.printf("%d épinglage(s)%n", pinned.size());
+    byStack.forEach((stack, count) ->
+      System.out.printf("%5d  %s%n", count, stack)
+    );
+  }
+}
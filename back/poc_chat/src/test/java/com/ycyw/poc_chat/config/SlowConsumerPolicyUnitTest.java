@@ -0,0 +1,148 @@
+package com.ycyw.poc_chat.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willAnswer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SlowConsumerPolicyUnitTest {
+
+  @Mock
+  private WebSocketHandler handler;
+
+  @Mock
+  private WebSocketSession session;
+
+  private SimpleMeterRegistry meterRegistry;
+  private CountDownLatch release;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    meterRegistry = new SimpleMeterRegistry();
+    release = new CountDownLatch(1);
+    given(session.getId()).willReturn("s1");
+    willAnswer(invocation -> release.await(5, TimeUnit.SECONDS))
+      .given(session)
+      .sendMessage(any());
+  }
+
+  @Test
+  @DisplayName("drop: should discard broadcasts to a session stuck in a send")
+  void drop_shouldDiscardMessagesForStalledSession() throws Exception {
+    SlowConsumerPolicy policy = policy("drop");
+    WebSocketSession tracked = establish(policy);
+
+    assertThat(policy.preSend(message("s1", SimpMessageType.MESSAGE), null))
+      .isNotNull();
+
+    Thread sender = stall(tracked);
+    Thread.sleep(100);
+
+    assertThat(policy.preSend(message("s1", SimpMessageType.MESSAGE), null))
+      .isNull();
+    assertThat(policy.preSend(message("s2", SimpMessageType.MESSAGE), null))
+      .isNotNull();
+    assertThat(
+      policy.preSend(message("s1", SimpMessageType.CONNECT_ACK), null)
+    )
+      .isNotNull();
+    assertThat(count("dropped")).isEqualTo(1.0);
+
+    release.countDown();
+    sender.join(5_000);
+    assertThat(policy.preSend(message("s1", SimpMessageType.MESSAGE), null))
+      .isNotNull();
+  }
+
+  @Test
+  @DisplayName("disconnect: should keep messages and count sessions closed by Spring limits")
+  void disconnect_shouldOnlyCountClosedSessions() throws Exception {
+    SlowConsumerPolicy policy = policy("disconnect");
+    WebSocketSession tracked = establish(policy);
+    Thread sender = stall(tracked);
+    Thread.sleep(100);
+
+    assertThat(policy.preSend(message("s1", SimpMessageType.MESSAGE), null))
+      .isNotNull();
+
+    policy
+      .decorate(handler)
+      .afterConnectionClosed(session, CloseStatus.SESSION_NOT_RELIABLE);
+
+    assertThat(count("disconnected")).isEqualTo(1.0);
+    assertThat(policy.trackedSessions()).isZero();
+    release.countDown();
+    sender.join(5_000);
+  }
+
+  private SlowConsumerPolicy policy(String name) {
+    return new SlowConsumerPolicy(meterRegistry, name, Duration.ofMillis(20));
+  }
+
+  private WebSocketSession establish(SlowConsumerPolicy policy)
+    throws Exception {
+    policy.decorate(handler).afterConnectionEstablished(session);
+    ArgumentCaptor<WebSocketSession> captor = ArgumentCaptor.forClass(
+      WebSocketSession.class
+    );
+    then(handler).should().afterConnectionEstablished(captor.capture());
+    return captor.getValue();
+  }
+
+  private static Thread stall(WebSocketSession tracked) {
+    Thread sender = new Thread(() -> {
+      try {
+        tracked.sendMessage(new TextMessage("frame"));
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    sender.start();
+    return sender;
+  }
+
+  private static Message<byte[]> message(
+    String sessionId,
+    SimpMessageType type
+  ) {
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+    accessor.setSessionId(sessionId);
+    return MessageBuilder.createMessage(
+      new byte[0],
+      accessor.getMessageHeaders()
+    );
+  }
+
+  private double count(String action) {
+    return meterRegistry
+      .get("websocket.slow_consumer")
+      .tag("action", action)
+      .counter()
+      .count();
+  }
+}
@@ -0,0 +1,229 @@
+package com.ycyw.poc_chat.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ycyw.poc_chat.monitoring.StompFrameMetrics;
+import com.ycyw.poc_chat.persistence.RecentMessageBuffer;
+import com.ycyw.poc_chat.security.WebSocketAuthInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+/**
+ * Mode relais du broker STOMP, contre un broker STOMP en mémoire
+ * ({@link StompBrokerStandIn}) à la place de RabbitMQ : deux instances
+ * du backend partagent les topics de dialogue.
+ */
+class StompBrokerRelayTest {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+  private StompBrokerStandIn broker;
+  private AnnotationConfigWebApplicationContext nodeA;
+  private AnnotationConfigWebApplicationContext nodeB;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    broker = new StompBrokerStandIn();
+    nodeA = startNode();
+    nodeB = startNode();
+    awaitTrue(() -> relay(nodeA).isBrokerAvailable());
+    awaitTrue(() -> relay(nodeB).isBrokerAvailable());
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    nodeA.close();
+    nodeB.close();
+    broker.close();
+  }
+
+  @Test
+  @DisplayName("should open the system session with vhost, credentials and heartbeats")
+  void relay_shouldOpenTunedSystemSession() {
+    assertThat(broker.received("CONNECT"))
+      .hasSize(2)
+      .allSatisfy(connect -> {
+        assertThat(connect.headers())
+          .containsEntry("host", "ycyw")
+          .containsEntry("login", "system")
+          .containsEntry("passcode", "system-secret")
+          .containsEntry("heart-beat", "4000,6000");
+      });
+  }
+
+  @Test
+  @DisplayName("should deliver a dialog message published on one node to a client of the other")
+  void relay_shouldShareDialogTopicsAcrossInstances() throws Exception {
+    BlockingQueue<Message<?>> toClient = new LinkedBlockingQueue<>();
+    nodeB
+      .getBean("clientOutboundChannel", SubscribableChannel.class)
+      .subscribe(toClient::add);
+    MessageChannel inboundB = nodeB.getBean(
+      "clientInboundChannel",
+      MessageChannel.class
+    );
+
+    inboundB.send(clientFrame(StompCommand.CONNECT, null));
+    assertThat(command(toClient.poll(10, TimeUnit.SECONDS)))
+      .isEqualTo(StompCommand.CONNECTED);
+    assertThat(broker.received("CONNECT").get(2).headers())
+      .containsEntry("login", "client")
+      .containsEntry("passcode", "client-secret");
+
+    inboundB.send(clientFrame(StompCommand.SUBSCRIBE, "/topic/dialog/42"));
+    awaitTrue(() -> broker.subscriptions("/topic/dialog/42") == 1);
+
+    nodeA
+      .getBean(SimpMessagingTemplate.class)
+      .convertAndSend("/topic/dialog/42", Map.of("content", "bonjour"));
+
+    Message<?> delivered = toClient.poll(10, TimeUnit.SECONDS);
+    assertThat(command(delivered)).isEqualTo(StompCommand.MESSAGE);
+    assertThat(StompHeaderAccessor.wrap(delivered).getDestination())
+      .isEqualTo("/topic/dialog/42");
+    assertThat(new String((byte[]) delivered.getPayload(), StandardCharsets.UTF_8))
+      .contains("bonjour");
+  }
+
+  private AnnotationConfigWebApplicationContext startNode() {
+    AnnotationConfigWebApplicationContext context =
+      new AnnotationConfigWebApplicationContext();
+    context.setServletContext(new MockServletContext());
+    context
+      .getEnvironment()
+      .getPropertySources()
+      .addFirst(
+        new MapPropertySource(
+          "relay",
+          Map.ofEntries(
+            Map.entry("chat.broker.mode", "relay"),
+            Map.entry("chat.broker.relay.host", "127.0.0.1"),
+            Map.entry("chat.broker.relay.port", broker.port()),
+            Map.entry("chat.broker.relay.virtual-host", "ycyw"),
+            Map.entry("chat.broker.relay.client-login", "client"),
+            Map.entry("chat.broker.relay.client-passcode", "client-secret"),
+            Map.entry("chat.broker.relay.system-login", "system"),
+            Map.entry("chat.broker.relay.system-passcode", "system-secret"),
+            Map.entry("chat.broker.relay.heartbeat-send-ms", 4000),
+            Map.entry("chat.broker.relay.heartbeat-receive-ms", 6000),
+            Map.entry("chat.broker.relay.max-connections", 8)
+          )
+        )
+      );
+    context.register(NodeConfig.class);
+    context.refresh();
+    return context;
+  }
+
+  private static StompBrokerRelayMessageHandler relay(
+    AnnotationConfigWebApplicationContext context
+  ) {
+    return context.getBean(StompBrokerRelayMessageHandler.class);
+  }
+
+  private static Message<byte[]> clientFrame(
+    StompCommand command,
+    String destination
+  ) {
+    StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+    accessor.setSessionId("session-1");
+    if (command == StompCommand.CONNECT) {
+      accessor.setAcceptVersion("1.2");
+      accessor.setHeartbeat(0, 0);
+    } else {
+      accessor.setSubscriptionId("sub-0");
+      accessor.setDestination(destination);
+    }
+    return MessageBuilder.createMessage(
+      new byte[0],
+      accessor.getMessageHeaders()
+    );
+  }
+
+  private static StompCommand command(Message<?> message) {
+    assertThat(message).isNotNull();
+    return StompHeaderAccessor.wrap(message).getCommand();
+  }
+
+  private static void awaitTrue(BooleanSupplier condition)
+    throws InterruptedException {
+    long deadline = System.nanoTime() + TIMEOUT.toNanos();
+    while (!condition.getAsBoolean()) {
+      assertThat(System.nanoTime()).as("timeout").isLessThan(deadline);
+      Thread.sleep(20);
+    }
+  }
+
+  @Configuration
+  @Import(
+    {
+      WebSocketConfig.class,
+      SlowConsumerPolicy.class,
+      SubscribeReplayInterceptor.class,
+      StompFrameMetrics.class,
+    }
+  )
+  static class NodeConfig {
+
+    /** Conversions Spring Boot (Duration « 5s »...) hors SpringApplication. */
+    @Bean
+    static ConversionService conversionService() {
+      return ApplicationConversionService.getSharedInstance();
+    }
+
+    @Bean
+    MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    ObjectMapper objectMapper() {
+      return new ObjectMapper().findAndRegisterModules();
+    }
+
+    @Bean
+    RecentMessageBuffer recentMessageBuffer() {
+      return mock(RecentMessageBuffer.class);
+    }
+
+    @Bean
+    WebSocketAuthInterceptor webSocketAuthInterceptor() {
+      WebSocketAuthInterceptor interceptor = mock(WebSocketAuthInterceptor.class);
+      willAnswer(invocation -> invocation.getArgument(0))
+        .given(interceptor)
+        .preSend(any(), any());
+      return interceptor;
+    }
+  }
+}
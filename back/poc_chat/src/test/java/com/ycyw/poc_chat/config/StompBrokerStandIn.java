@@ -0,0 +1,208 @@
+package com.ycyw.poc_chat.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Broker STOMP 1.2 minimal, en mémoire, qui remplace RabbitMQ dans les tests
+ * du relais : CONNECT/STOMP, SUBSCRIBE/UNSUBSCRIBE, SEND (diffusion aux
+ * abonnés de la destination exacte) et DISCONNECT. Les heartbeats sont
+ * refusés (CONNECTED heart-beat:0,0).
+ */
+class StompBrokerStandIn implements AutoCloseable {
+
+  /** Trame reçue d'un client. */
+  record Frame(String command, Map<String, String> headers, String body) {}
+
+  private final ServerSocket server;
+  private final List<Frame> received = new CopyOnWriteArrayList<>();
+  private final List<Connection> connections = new CopyOnWriteArrayList<>();
+  private final AtomicLong messageIds = new AtomicLong();
+
+  StompBrokerStandIn() throws IOException {
+    server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    Thread acceptor = new Thread(this::acceptLoop, "stomp-stand-in");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  int port() {
+    return server.getLocalPort();
+  }
+
+  List<Frame> received() {
+    return received;
+  }
+
+  List<Frame> received(String command) {
+    return received.stream().filter(f -> f.command().equals(command)).toList();
+  }
+
+  long subscriptions(String destination) {
+    return connections
+      .stream()
+      .flatMap(c -> c.subscriptions.values().stream())
+      .filter(destination::equals)
+      .count();
+  }
+
+  @Override
+  public void close() throws IOException {
+    server.close();
+    for (Connection connection : connections) {
+      connection.close();
+    }
+  }
+
+  private void acceptLoop() {
+    while (!server.isClosed()) {
+      try {
+        Connection connection = new Connection(server.accept());
+        connections.add(connection);
+        Thread reader = new Thread(connection::readLoop, "stomp-stand-in-conn");
+        reader.setDaemon(true);
+        reader.start();
+      } catch (IOException e) {
+        return;
+      }
+    }
+  }
+
+  private void fanOut(Frame send) {
+    String destination = send.headers().get("destination");
+    for (Connection connection : connections) {
+      connection.subscriptions.forEach((id, subscribed) -> {
+        if (subscribed.equals(destination)) {
+          Map<String, String> headers = new LinkedHashMap<>();
+          headers.put("subscription", id);
+          headers.put("message-id", String.valueOf(messageIds.incrementAndGet()));
+          headers.put("destination", destination);
+          String contentType = send.headers().get("content-type");
+          if (contentType != null) {
+            headers.put("content-type", contentType);
+          }
+          connection.write("MESSAGE", headers, send.body());
+        }
+      });
+    }
+  }
+
+  private final class Connection {
+
+    private final Socket socket;
+    private final Map<String, String> subscriptions = new ConcurrentHashMap<>();
+
+    private Connection(Socket socket) {
+      this.socket = socket;
+    }
+
+    private void readLoop() {
+      try (InputStream in = socket.getInputStream()) {
+        Frame frame;
+        while ((frame = readFrame(in)) != null) {
+          received.add(frame);
+          handle(frame);
+        }
+      } catch (IOException e) {
+        // connexion fermée
+      } finally {
+        connections.remove(this);
+      }
+    }
+
+    private void handle(Frame frame) {
+      switch (frame.command()) {
+        case "CONNECT", "STOMP" -> write(
+          "CONNECTED",
+          Map.of("version", "1.2", "heart-beat", "0,0"),
+          ""
+        );
+        case "SUBSCRIBE" -> subscriptions.put(
+          frame.headers().get("id"),
+          frame.headers().get("destination")
+        );
+        case "UNSUBSCRIBE" -> subscriptions.remove(frame.headers().get("id"));
+        case "SEND" -> fanOut(frame);
+        case "DISCONNECT" -> {
+          String receipt = frame.headers().get("receipt");
+          if (receipt != null) {
+            write("RECEIPT", Map.of("receipt-id", receipt), "");
+          }
+          close();
+        }
+        default -> {}
+      }
+    }
+
+    private synchronized void write(
+      String command,
+      Map<String, String> headers,
+      String body
+    ) {
+      StringBuilder frame = new StringBuilder(command).append('\n');
+      headers.forEach((k, v) -> frame.append(k).append(':').append(v).append('\n'));
+      frame.append('\n').append(body).append('\0');
+      try {
+        OutputStream out = socket.getOutputStream();
+        out.write(frame.toString().getBytes(StandardCharsets.UTF_8));
+        out.flush();
+      } catch (IOException e) {
+        close();
+      }
+    }
+
+    private void close() {
+      try {
+        socket.close();
+      } catch (IOException e) {
+        // déjà fermée
+      }
+    }
+  }
+
+  /**
+   * Lit une trame (les fins de ligne isolées, heartbeats, sont ignorées).
+   */
+  private static Frame readFrame(InputStream in) throws IOException {
+    ByteArrayOutputStream raw = new ByteArrayOutputStream();
+    int b;
+    while ((b = in.read()) != -1) {
+      if (b == 0) {
+        break;
+      }
+      if (raw.size() == 0 && (b == '\n' || b == '\r')) {
+        continue;
+      }
+      raw.write(b);
+    }
+    if (b == -1) {
+      return null;
+    }
+    String text = raw.toString(StandardCharsets.UTF_8);
+    int split = text.indexOf("\n\n");
+    String head = split < 0 ? text : text.substring(0, split);
+    String body = split < 0 ? "" : text.substring(split + 2);
+    String[] lines = head.split("\r?\n");
+    Map<String, String> headers = new LinkedHashMap<>();
+    for (int i = 1; i < lines.length; i++) {
+      int colon = lines[i].indexOf(':');
+      headers.putIfAbsent(
+        lines[i].substring(0, colon),
+        lines[i].substring(colon + 1)
+      );
+    }
+    return new Frame(lines[0], headers, body);
+  }
+}
@@ -0,0 +1,160 @@
+package com.ycyw.poc_chat.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ycyw.poc_chat.dto.ChatMessageDTO;
+import com.ycyw.poc_chat.persistence.RecentMessageBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SubscribeReplayInterceptorUnitTest {
+
+  @Mock
+  private RecentMessageBuffer recentMessages;
+
+  @Mock
+  private ObjectProvider<MessageChannel> outboundProvider;
+
+  @Mock
+  private MessageChannel clientOutboundChannel;
+
+  @Mock
+  private MessageChannel clientInboundChannel;
+
+  private final MessageHandler broker = mock(SimpleBrokerMessageHandler.class);
+  private SubscribeReplayInterceptor interceptor;
+
+  @BeforeEach
+  void setUp() {
+    given(outboundProvider.getObject()).willReturn(clientOutboundChannel);
+    interceptor =
+      new SubscribeReplayInterceptor(
+        recentMessages,
+        outboundProvider,
+        new ObjectMapper().findAndRegisterModules()
+      );
+  }
+
+  private static Message<byte[]> subscribe(String destination, String lastSeen) {
+    StompHeaderAccessor accessor = StompHeaderAccessor.create(
+      StompCommand.SUBSCRIBE
+    );
+    accessor.setSessionId("s1");
+    accessor.setSubscriptionId("sub-0");
+    accessor.setDestination(destination);
+    if (lastSeen != null) {
+      accessor.setNativeHeader(
+        SubscribeReplayInterceptor.LAST_SEEN_HEADER,
+        lastSeen
+      );
+    }
+    return MessageBuilder.createMessage(
+      new byte[0],
+      accessor.getMessageHeaders()
+    );
+  }
+
+  @Test
+  @DisplayName("should send missed messages to the subscribing session only")
+  @SuppressWarnings("unchecked")
+  void afterMessageHandled_shouldReplayOnSubscription() {
+    given(recentMessages.since(7L, 3L))
+      .willReturn(
+        List.of(
+          ChatMessageDTO.builder().dialogId(7L).seq(4L).content("a").build(),
+          ChatMessageDTO.builder().dialogId(7L).seq(5L).content("b").build()
+        )
+      );
+
+    interceptor.afterMessageHandled(
+      subscribe("/topic/dialog/7", "3"),
+      clientInboundChannel,
+      broker,
+      null
+    );
+
+    ArgumentCaptor<Message<byte[]>> sent = ArgumentCaptor.forClass(
+      Message.class
+    );
+    then(clientOutboundChannel).should(times(2)).send(sent.capture());
+    Message<byte[]> first = sent.getAllValues().get(0);
+    SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(first);
+    assertThat(headers.getSessionId()).isEqualTo("s1");
+    assertThat(headers.getSubscriptionId()).isEqualTo("sub-0");
+    assertThat(headers.getDestination()).isEqualTo("/topic/dialog/7");
+    assertThat(
+      headers.getFirstNativeHeader(SubscribeReplayInterceptor.REPLAY_HEADER)
+    )
+      .isEqualTo("true");
+    assertThat(new String(first.getPayload(), StandardCharsets.UTF_8))
+      .contains("\"seq\":4")
+      .contains("\"content\":\"a\"");
+  }
+
+  @Test
+  @DisplayName("should ignore subscriptions without last-seen or to other topics")
+  void afterMessageHandled_shouldIgnoreOtherSubscriptions() {
+    interceptor.afterMessageHandled(
+      subscribe("/topic/dialog/7", null),
+      clientInboundChannel,
+      broker,
+      null
+    );
+    interceptor.afterMessageHandled(
+      subscribe("/topic/dialog/7/read", "3"),
+      clientInboundChannel,
+      broker,
+      null
+    );
+    interceptor.afterMessageHandled(
+      subscribe("/topic/dialog/7", "abc"),
+      clientInboundChannel,
+      broker,
+      null
+    );
+
+    then(recentMessages).should(never()).since(any(), anyLong());
+    then(clientOutboundChannel).shouldHaveNoInteractions();
+  }
+
+  @Test
+  @DisplayName("should wait for the broker handler before replaying")
+  void afterMessageHandled_otherHandler_shouldDoNothing() {
+    interceptor.afterMessageHandled(
+      subscribe("/topic/dialog/7", "3"),
+      clientInboundChannel,
+      mock(MessageHandler.class),
+      null
+    );
+
+    then(recentMessages).shouldHaveNoInteractions();
+  }
+}
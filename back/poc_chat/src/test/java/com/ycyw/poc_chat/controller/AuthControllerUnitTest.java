@@ -0,0 +1,142 @@
+package com.ycyw.poc_chat.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.*;
+
+import com.ycyw.poc_chat.dto.RegisterRequest;
+import com.ycyw.poc_chat.model.UserCredential;
+import com.ycyw.poc_chat.repository.UserCredentialRepository;
+import com.ycyw.poc_chat.security.CustomUserDetailsService;
+import com.ycyw.poc_chat.security.JwtTokenProvider;
+import com.ycyw.poc_chat.security.PasswordHashingExecutor;
+import com.ycyw.poc_chat.security.TokenRevocationRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+@ExtendWith(MockitoExtension.class)
+class AuthControllerUnitTest {
+
+  @Mock
+  private AuthenticationManager authManager;
+
+  @Mock
+  private JwtTokenProvider tokenProvider;
+
+  @Mock
+  private PasswordEncoder passwordEncoder;
+
+  @Mock
+  private UserCredentialRepository credentialRepo;
+
+  @Mock
+  private TokenRevocationRegistry revocationRegistry;
+
+  @Mock
+  private CustomUserDetailsService userDetailsService;
+
+  private PasswordHashingExecutor hashingExecutor;
+  private RegisterRequest request;
+
+  @BeforeEach
+  void setUp() {
+    hashingExecutor =
+      new PasswordHashingExecutor(new SimpleMeterRegistry(), 1, 4);
+    request = new RegisterRequest();
+    request.setEmail("alice@example.com");
+    request.setPassword("secret");
+    request.setRole("user");
+    given(credentialRepo.existsByEmail("alice@example.com")).willReturn(false);
+    given(passwordEncoder.encode("secret")).willReturn("hash");
+  }
+
+  @AfterEach
+  void tearDown() {
+    hashingExecutor.shutdown();
+  }
+
+  private AuthController controller(Executor registrationExecutor) {
+    return new AuthController(
+      authManager,
+      tokenProvider,
+      passwordEncoder,
+      credentialRepo,
+      revocationRegistry,
+      userDetailsService,
+      hashingExecutor,
+      registrationExecutor
+    );
+  }
+
+  private ResponseEntity<String> register(Executor registrationExecutor)
+    throws Exception {
+    return controller(registrationExecutor)
+      .register(request)
+      .get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  @DisplayName("register should persist on the registration executor")
+  void register_shouldPersistOffHashingPool() throws Exception {
+    AtomicReference<String> saveThread = new AtomicReference<>();
+    given(credentialRepo.save(any(UserCredential.class)))
+      .willAnswer(inv -> {
+        saveThread.set(Thread.currentThread().getName());
+        UserCredential uc = inv.getArgument(0);
+        uc.setId(42L);
+        return uc;
+      });
+    Executor registrationExecutor = task ->
+      new Thread(task, "registration-test").start();
+
+    ResponseEntity<String> response = register(registrationExecutor);
+
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(saveThread.get()).isEqualTo("registration-test");
+    then(credentialRepo)
+      .should()
+      .save(argThat(uc -> "hash".equals(uc.getPassword())));
+    then(userDetailsService).should().evict(42L, "alice@example.com");
+  }
+
+  @Test
+  @DisplayName("register should answer 400 when a concurrent signup wins")
+  void register_shouldMapDuplicateEmailRace() throws Exception {
+    given(credentialRepo.save(any(UserCredential.class)))
+      .willThrow(new DataIntegrityViolationException("uk_email"));
+
+    ResponseEntity<String> response = register(Runnable::run);
+
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    assertThat(response.getBody()).isEqualTo("Email déjà utilisé");
+    then(userDetailsService).shouldHaveNoInteractions();
+  }
+
+  @Test
+  @DisplayName("register should answer 503 when the registration pool is full")
+  void register_shouldAnswer503WhenRegistrationSaturated() throws Exception {
+    Executor saturated = task -> {
+      throw new RejectedExecutionException("full");
+    };
+
+    ResponseEntity<String> response = register(saturated);
+
+    assertThat(response.getStatusCode())
+      .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    then(credentialRepo).should(never()).save(any());
+  }
+}
@@ -3,10 +3,15 @@ package com.ycyw.poc_chat.controller;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.*;
 
+import com.ycyw.poc_chat.dto.ChatMessageDTO;
 import com.ycyw.poc_chat.dto.DialogDTO;
+import com.ycyw.poc_chat.dto.DialogSummaryDTO;
+import com.ycyw.poc_chat.mapper.ChatMessageMapper;
 import com.ycyw.poc_chat.mapper.DialogMapper;
+import com.ycyw.poc_chat.model.ChatMessage;
 import com.ycyw.poc_chat.model.Dialog;
 import com.ycyw.poc_chat.model.DialogStatus;
+import com.ycyw.poc_chat.repository.ChatMessageRepository;
 import com.ycyw.poc_chat.repository.DialogRepository;
 import com.ycyw.poc_chat.service.DialogService;
 import jakarta.persistence.EntityNotFoundException;
@@ -23,6 +28,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -38,6 +44,12 @@ class DialogControllerUnitTest {
   @Mock
   private DialogMapper mapper;
 
+  @Mock
+  private ChatMessageRepository messageRepo;
+
+  @Mock
+  private ChatMessageMapper messageMapper;
+
   @InjectMocks
   private DialogController controller;
 
@@ -226,7 +238,7 @@ class DialogControllerUnitTest {
   @DisplayName("Should mark messages as read successfully")
   void markMessagesAsRead_success() {
     
-    willDoNothing().given(service).markMessagesAsRead(1L, 99L);
+    given(service.markMessagesAsRead(1L, 99L)).willReturn(2L);
 
     ResponseEntity<Void> resp = controller.markMessagesAsRead(1L, 99L);
 
@@ -307,4 +319,115 @@ class DialogControllerUnitTest {
     assertThat(response.getBody()).hasSize(2);
     assertThat(response.getBody()).containsExactlyInAnyOrder(dto1, dto2);
   }
+
+  @Test
+  @DisplayName("Should return latest messages page in chronological order")
+  void getDialogMessages_withoutCursor_shouldReturnLatestPage() {
+    ChatMessage newest = ChatMessage.builder().id(11L).build();
+    ChatMessage older = ChatMessage.builder().id(10L).build();
+    ChatMessageDTO newestDto = ChatMessageDTO.builder().id(11L).build();
+    ChatMessageDTO olderDto = ChatMessageDTO.builder().id(10L).build();
+    given(repo.existsById(1L)).willReturn(true);
+    given(messageRepo.findLatestByDialogId(1L, PageRequest.of(0, 2)))
+      .willReturn(List.of(newest, older));
+    given(messageMapper.toDto(newest)).willReturn(newestDto);
+    given(messageMapper.toDto(older)).willReturn(olderDto);
+
+    ResponseEntity<List<ChatMessageDTO>> resp = controller.getDialogMessages(
+      1L,
+      null,
+      null,
+      2
+    );
+
+    assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(resp.getBody()).containsExactly(olderDto, newestDto);
+    then(repo).should(never()).findByIdWithMessagesAndSenders(anyLong());
+  }
+
+  @Test
+  @DisplayName("Should query keyset page before cursor and clamp the limit")
+  void getDialogMessages_withCursor_shouldUseKeysetQuery() {
+    given(repo.existsById(1L)).willReturn(true);
+    given(
+      messageRepo.findPageBeforeByDialogId(
+        1L,
+        10L,
+        PageRequest.of(0, DialogController.MAX_PAGE_SIZE)
+      )
+    )
+      .willReturn(Collections.emptyList());
+
+    ResponseEntity<List<ChatMessageDTO>> resp = controller.getDialogMessages(
+      1L,
+      10L,
+      null,
+      10_000
+    );
+
+    assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(resp.getBody()).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should resume after a sequence number in ascending order")
+  void getDialogMessages_withAfterSeq_shouldResumeFromSequence() {
+    ChatMessage next = ChatMessage.builder().id(12L).seq(5L).build();
+    ChatMessage last = ChatMessage.builder().id(13L).seq(6L).build();
+    ChatMessageDTO nextDto = ChatMessageDTO.builder().id(12L).seq(5L).build();
+    ChatMessageDTO lastDto = ChatMessageDTO.builder().id(13L).seq(6L).build();
+    given(repo.existsById(1L)).willReturn(true);
+    given(messageRepo.findPageAfterSeqByDialogId(1L, 4L, PageRequest.of(0, 50)))
+      .willReturn(List.of(next, last));
+    given(messageMapper.toDto(next)).willReturn(nextDto);
+    given(messageMapper.toDto(last)).willReturn(lastDto);
+
+    ResponseEntity<List<ChatMessageDTO>> resp = controller.getDialogMessages(
+      1L,
+      10L,
+      4L,
+      50
+    );
+
+    assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(resp.getBody()).containsExactly(nextDto, lastDto);
+    then(messageRepo)
+      .should(never())
+      .findPageBeforeByDialogId(anyLong(), anyLong(), any());
+  }
+
+  @Test
+  @DisplayName("Should return 404 for messages of unknown dialog")
+  void getDialogMessages_notFound() {
+    given(repo.existsById(999L)).willReturn(false);
+
+    ResponseEntity<List<ChatMessageDTO>> resp = controller.getDialogMessages(
+      999L,
+      null,
+      null,
+      50
+    );
+
+    assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    then(messageRepo).shouldHaveNoInteractions();
+  }
+
+  @Test
+  @DisplayName("Should return dialog summaries without loading entities")
+  void getDialogSummaries_shouldUseProjection() {
+    DialogSummaryDTO summary = mock(DialogSummaryDTO.class);
+    given(repo.findDialogSummaries(5L, PageRequest.of(1, 20)))
+      .willReturn(List.of(summary));
+
+    ResponseEntity<List<DialogSummaryDTO>> resp = controller.getDialogSummaries(
+      1,
+      20,
+      5L
+    );
+
+    assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(resp.getBody()).containsExactly(summary);
+    then(repo).should(never()).findAllWithMessagesAndSenders();
+    then(mapper).shouldHaveNoInteractions();
+  }
 }
@@ -0,0 +1,176 @@
+package com.ycyw.poc_chat.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+/**
+ * Rafale de connexions : vérifie que les endpoints de chat restent réactifs
+ * pendant que le pool de hachage BCrypt est saturé.
+ *
+ * Un flot continu de POST /auth/login occupe le pool (2 threads, file de 4) ;
+ * en parallèle on mesure la latence de GET /api/dialog/summaries, qui ne
+ * doit pas dépendre du hachage. Les connexions en surplus reçoivent 503.
+ *
+ * Hors suite par défaut (non suffixé Test) :
+ * {@code mvn test -Dtest=LoginFloodBenchmark}. H2 en mémoire.
+ */
+@SpringBootTest(
+  webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+  properties = {
+    "spring.datasource.url=jdbc:h2:mem:flood;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE,TIMESTAMP",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false",
+    "database.name=flood",
+    "spring.rabbitmq.username=guest",
+    "spring.rabbitmq.password=guest",
+    "jwt.secret=flood-benchmark-secret-flood-benchmark-secret-flood-benchmark-secret",
+    "jwt.expiration-ms=3600000",
+    "security.password-hashing.threads=2",
+    "security.password-hashing.queue-capacity=4",
+  }
+)
+@DisplayName("Benchmark rafale de connexions")
+class LoginFloodBenchmark {
+
+  private static final int FLOOD_CLIENTS = 32;
+  private static final int PROBES = 200;
+  private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+  @LocalServerPort
+  private int port;
+
+  private final HttpClient http = HttpClient
+    .newBuilder()
+    .connectTimeout(Duration.ofSeconds(5))
+    .build();
+
+  @Test
+  @DisplayName("les résumés de dialogues restent rapides pendant la rafale")
+  void chatEndpointsStayResponsiveDuringLoginFlood() throws Exception {
+    String credentials =
+      "{\"email\":\"flood@test.com\",\"password\":\"password123\"}";
+    assertThat(
+      post(
+        "/auth/register",
+        "{\"email\":\"flood@test.com\",\"password\":\"password123\",\"role\":\"USER\"}"
+      )
+        .statusCode()
+    )
+      .isEqualTo(200);
+    String token = extractToken(post("/auth/login", credentials).body());
+
+    long[] baseline = probe(token);
+
+    AtomicInteger ok = new AtomicInteger();
+    AtomicInteger saturated = new AtomicInteger();
+    AtomicInteger other = new AtomicInteger();
+    long[] underLoad;
+    Thread[] clients = new Thread[FLOOD_CLIENTS];
+    AtomicBoolean running = new AtomicBoolean(true);
+    for (int i = 0; i < FLOOD_CLIENTS; i++) {
+      clients[i] =
+        new Thread(() -> {
+          while (running.get()) {
+            try {
+              int status = post("/auth/login", credentials).statusCode();
+              (status == 200 ? ok : status == 503 ? saturated : other)
+                .incrementAndGet();
+            } catch (Exception e) {
+              other.incrementAndGet();
+            }
+          }
+        });
+      clients[i].start();
+    }
+    try {
+      Thread.sleep(500);
+      underLoad = probe(token);
+    } finally {
+      running.set(false);
+      for (Thread client : clients) {
+        client.join();
+      }
+    }
+
+    System.out.printf(
+      "logins : %d ok, %d 503, %d autres%n" +
+      "summaries p50/p99 (ms) : repos %.1f / %.1f, rafale %.1f / %.1f%n",
+      ok.get(),
+      saturated.get(),
+      other.get(),
+      percentile(baseline, 0.50),
+      percentile(baseline, 0.99),
+      percentile(underLoad, 0.50),
+      percentile(underLoad, 0.99)
+    );
+    assertThat(saturated.get()).isPositive();
+    assertThat(other.get()).isZero();
+    assertThat(percentile(underLoad, 0.99)).isLessThan(250.0);
+  }
+
+  private long[] probe(String token) throws Exception {
+    long[] latencies = new long[PROBES];
+    for (int i = 0; i < PROBES; i++) {
+      HttpRequest request = HttpRequest
+        .newBuilder(uri("/api/dialog/summaries"))
+        .header("Authorization", "Bearer " + token)
+        .GET()
+        .build();
+      long start = System.nanoTime();
+      HttpResponse<String> response = http.send(
+        request,
+        HttpResponse.BodyHandlers.ofString()
+      );
+      latencies[i] = System.nanoTime() - start;
+      assertThat(response.statusCode()).isEqualTo(200);
+    }
+    return latencies;
+  }
+
+  private HttpResponse<String> post(String path, String json)
+    throws Exception {
+    return http.send(
+      HttpRequest
+        .newBuilder(uri(path))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(json))
+        .build(),
+      HttpResponse.BodyHandlers.ofString()
+    );
+  }
+
+  private URI uri(String path) {
+    return URI.create("http://localhost:" + port + path);
+  }
+
+  private static String extractToken(String body) {
+    Matcher matcher = TOKEN.matcher(body);
+    assertThat(matcher.find()).as("token in %s", body).isTrue();
+    return matcher.group(1);
+  }
+
+  private static double percentile(long[] samplesNs, double p) {
+    long[] sorted = samplesNs.clone();
+    Arrays.sort(sorted);
+    int index = (int) Math.ceil(p * sorted.length) - 1;
+    return sorted[Math.max(index, 0)] / 1e6;
+  }
+}
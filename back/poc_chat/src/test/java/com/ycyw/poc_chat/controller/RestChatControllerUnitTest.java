@@ -19,6 +19,7 @@ import com.ycyw.poc_chat.model.ChatMessage;
 import com.ycyw.poc_chat.model.Dialog;
 import com.ycyw.poc_chat.model.DialogStatus;
 import com.ycyw.poc_chat.model.MessageType;
+import com.ycyw.poc_chat.persistence.RecentMessageBuffer;
 import com.ycyw.poc_chat.security.UserPrincipal;
 import com.ycyw.poc_chat.service.DialogService;
 import java.time.LocalDateTime;
@@ -57,6 +58,9 @@ class RestChatControllerUnitTest {
   @Mock
   private SimpMessagingTemplate messagingTemplate;
 
+  @Mock
+  private RecentMessageBuffer recentMessages;
+
   @Mock
   private Authentication authentication;
 
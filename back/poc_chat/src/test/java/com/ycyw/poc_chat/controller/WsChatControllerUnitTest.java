@@ -2,9 +2,13 @@ package com.ycyw.poc_chat.controller;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 import com.ycyw.poc_chat.dto.ChatMessageDTO;
 import com.ycyw.poc_chat.lifecycle.DialogLifecycleManager;
@@ -12,7 +16,13 @@ import com.ycyw.poc_chat.model.ChatMessage;
 import com.ycyw.poc_chat.model.Dialog;
 import com.ycyw.poc_chat.model.MessageType;
 import com.ycyw.poc_chat.model.UserProfile;
-import com.ycyw.poc_chat.repository.UserProfileRepository;
+import com.ycyw.poc_chat.monitoring.ChatMetrics;
+import com.ycyw.poc_chat.persistence.MessageBackpressureException;
+import com.ycyw.poc_chat.persistence.MessageWriteBehindService;
+import com.ycyw.poc_chat.persistence.PendingMessage;
+import com.ycyw.poc_chat.persistence.RecentMessageBuffer;
+import com.ycyw.poc_chat.security.ProfileSnapshot;
+import com.ycyw.poc_chat.security.SessionProfileCache;
 import com.ycyw.poc_chat.security.UserPrincipal;
 import com.ycyw.poc_chat.service.DialogService;
 import java.util.Collections;
@@ -42,11 +52,20 @@ class WSChatControllerUnitTest {
   private DialogService dialogService;
 
   @Mock
-  private UserProfileRepository userProfileRepository;
+  private SessionProfileCache sessionProfileCache;
 
   @Mock
   private DialogLifecycleManager lifecycleManager;
 
+  @Mock
+  private MessageWriteBehindService writeBehindService;
+
+  @Mock
+  private RecentMessageBuffer recentMessages;
+
+  @Mock
+  private ChatMetrics chatMetrics;
+
   @Mock
   private SimpMessageHeaderAccessor headerAccessor;
 
@@ -81,7 +100,7 @@ class WSChatControllerUnitTest {
 
     given(headerAccessor.getUser()).willReturn(authentication);
     given(authentication.getPrincipal()).willReturn(userPrincipal);
-    given(userProfileRepository.findByUserCredentialId(1L)).willReturn(profile);
+    given(sessionProfileCache.get(1L)).willReturn(ProfileSnapshot.of(profile));
   }
 
   @Test
@@ -123,12 +142,57 @@ class WSChatControllerUnitTest {
 
     String destination = "/topic/dialog/7";
     verify(dialogService).sendMessage(7L, 1L, "Hello", true);
-    verify(lifecycleManager).messageSent(7L);
+    verify(lifecycleManager).messageSent(eq(7L), any());
     verify(messagingTemplate).convertAndSend(destination, messageDTO);
+    verify(recentMessages).append(messageDTO);
+    verify(chatMetrics).countMessage(MessageType.CHAT);
+    verify(chatMetrics).recordSend(anyLong(), anyLong(), anyLong());
+  }
+
+  @Test
+  @DisplayName(
+    "sendUserMessage in write-behind mode should broadcast without sync save"
+  )
+  void sendUserMessage_writeBehind_shouldBroadcastAcceptedMessage() {
+    ChatMessageDTO messageDTO = new ChatMessageDTO();
+    messageDTO.setDialogId(7L);
+    messageDTO.setContent("Hello");
+    given(writeBehindService.isEnabled()).willReturn(true);
+    given(writeBehindService.submit(7L, 1L, "Hello", true))
+      .willReturn(
+        PendingMessage.builder().id(500L).dialogId(7L).seq(12L).build()
+      );
+
+    controller.sendUserMessage(messageDTO, headerAccessor);
+
+    assertThat(messageDTO.getId()).isEqualTo(500L);
+    assertThat(messageDTO.getSeq()).isEqualTo(12L);
+    verify(dialogService, never()).sendMessage(7L, 1L, "Hello", true);
+    verify(lifecycleManager).messageSent(eq(7L), any());
+    verify(messagingTemplate).convertAndSend("/topic/dialog/7", messageDTO);
+  }
+
+  @Test
+  @DisplayName("sendUserMessage should notify sender when buffer is full")
+  void sendUserMessage_writeBehindSaturated_shouldNotBroadcast() {
+    ChatMessageDTO messageDTO = new ChatMessageDTO();
+    messageDTO.setDialogId(7L);
+    messageDTO.setContent("Hello");
+    given(writeBehindService.isEnabled()).willReturn(true);
+    given(writeBehindService.submit(7L, 1L, "Hello", true))
+      .willThrow(new MessageBackpressureException("full"));
+
+    controller.sendUserMessage(messageDTO, headerAccessor);
+
+    verify(messagingTemplate)
+      .convertAndSendToUser(eq("testuser"), eq("/queue/errors"), any(Map.class));
+    verify(messagingTemplate, never())
+      .convertAndSend("/topic/dialog/7", messageDTO);
+    verify(lifecycleManager, never()).messageSent(eq(7L), any());
   }
 
   @Test
-  @DisplayName("addUser should prepare JOIN message and notify and lifecycle")
+  @DisplayName("addUser should prepare JOIN message and notify")
   void addUser_shouldMarkJoinAndNotify() {
     ChatMessageDTO messageDTO = new ChatMessageDTO();
     messageDTO.setDialogId(7L);
@@ -139,7 +203,7 @@ class WSChatControllerUnitTest {
     assertThat(messageDTO.getSender()).isEqualTo("Alice");
     String destination = "/topic/dialog/7";
     verify(messagingTemplate).convertAndSend(destination, messageDTO);
-    verify(lifecycleManager).userJoined(7L, "testuser");
+    verifyNoInteractions(lifecycleManager);
   }
 
   @Test
@@ -149,6 +213,7 @@ class WSChatControllerUnitTest {
   void disconnectUser_shouldCloseDialogAndNotifyAndLifecycle() {
     ChatMessageDTO messageDTO = new ChatMessageDTO();
     messageDTO.setDialogId(7L);
+    given(headerAccessor.getSessionId()).willReturn("s1");
 
     controller.disconnectUser(messageDTO, headerAccessor);
 
@@ -157,6 +222,6 @@ class WSChatControllerUnitTest {
     verify(dialogService).closeDialog(7L);
     String destination = "/topic/dialog/7";
     verify(messagingTemplate).convertAndSend(destination, messageDTO);
-    verify(lifecycleManager).userLeft(7L, "testuser");
+    verify(lifecycleManager).sessionLeft("s1", 7L);
   }
 }
@@ -0,0 +1,156 @@
+package com.ycyw.poc_chat.lifecycle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+import com.ycyw.poc_chat.model.Dialog;
+import com.ycyw.poc_chat.model.DialogStatus;
+import com.ycyw.poc_chat.monitoring.ChatMetrics;
+import com.ycyw.poc_chat.repository.DialogRepository;
+import com.ycyw.poc_chat.service.DialogService;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DialogInactivityTimerUnitTest {
+
+  private static final long MINUTE = 60_000L;
+
+  @Mock
+  private DialogRepository dialogRepository;
+
+  @Mock
+  private DialogService dialogService;
+
+  @Mock
+  private DialogStateCache dialogStateCache;
+
+  @Mock
+  private SimpMessagingTemplate messagingTemplate;
+
+  @Mock
+  private ChatMetrics chatMetrics;
+
+  private DialogInactivityTimer timer;
+
+  @BeforeEach
+  void setUp() {
+    timer =
+      new DialogInactivityTimer(
+        dialogRepository,
+        dialogService,
+        dialogStateCache,
+        messagingTemplate,
+        Duration.ofMinutes(49),
+        Duration.ofMinutes(59),
+        chatMetrics
+      );
+    given(dialogStateCache.get(5L))
+      .willReturn(
+        DialogState.builder().dialogId(5L).status(DialogStatus.OPEN).build()
+      );
+  }
+
+  @Test
+  @DisplayName("should not fire before the warning deadline")
+  void tick_beforeDeadline_shouldDoNothing() {
+    timer.arm(5L, System.currentTimeMillis() - 10 * MINUTE);
+
+    timer.tick();
+
+    then(messagingTemplate).shouldHaveNoInteractions();
+    assertThat(timer.armedCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("should warn once after the warning deadline")
+  void tick_afterWarnDeadline_shouldWarnOnce() {
+    timer.arm(5L, System.currentTimeMillis() - 50 * MINUTE);
+
+    timer.tick();
+    timer.tick();
+
+    then(messagingTemplate)
+      .should(times(1))
+      .convertAndSend(eq("/topic/dialog/5"), any(Map.class));
+    then(dialogService).should(never()).closeDialog(5L);
+  }
+
+  @Test
+  @DisplayName("should warn then close after the close deadline")
+  void tick_afterCloseDeadline_shouldClose() {
+    timer.arm(5L, System.currentTimeMillis() - 60 * MINUTE);
+
+    timer.tick();
+
+    then(dialogService).should().closeDialog(5L);
+    then(messagingTemplate)
+      .should()
+      .convertAndSend("/topic/dialog/5", Map.of("type", "CLOSE", "dialogId", 5L));
+    assertThat(timer.armedCount()).isZero();
+  }
+
+  @Test
+  @DisplayName("re-arming with recent activity should postpone the deadline")
+  void arm_withRecentActivity_shouldPostpone() {
+    timer.arm(5L, System.currentTimeMillis() - 60 * MINUTE);
+    timer.arm(5L);
+
+    timer.tick();
+
+    then(messagingTemplate).shouldHaveNoInteractions();
+    then(dialogService).shouldHaveNoInteractions();
+    assertThat(timer.armedCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("disarmed or non-open dialogs should be dropped")
+  void tick_whenDisarmedOrNotOpen_shouldDrop() {
+    timer.arm(5L, System.currentTimeMillis() - 60 * MINUTE);
+    timer.disarm(5L);
+    given(dialogStateCache.get(6L))
+      .willReturn(
+        DialogState.builder().dialogId(6L).status(DialogStatus.CLOSED).build()
+      );
+    timer.arm(6L, System.currentTimeMillis() - 60 * MINUTE);
+
+    timer.tick();
+
+    then(messagingTemplate).shouldHaveNoInteractions();
+    then(dialogService).shouldHaveNoInteractions();
+    assertThat(timer.armedCount()).isZero();
+  }
+
+  @Test
+  @DisplayName("rehydrate should arm every open dialog from the database")
+  void rehydrate_shouldArmOpenDialogs() {
+    given(dialogRepository.findByStatus(DialogStatus.OPEN))
+      .willReturn(
+        List.of(
+          Dialog.builder().id(5L).lastActivityAt(LocalDateTime.now()).build(),
+          Dialog.builder().id(7L).lastActivityAt(LocalDateTime.now()).build()
+        )
+      );
+
+    timer.rehydrate();
+
+    assertThat(timer.armedCount()).isEqualTo(2);
+  }
+}
@@ -0,0 +1,185 @@
+package com.ycyw.poc_chat.lifecycle;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+import com.ycyw.poc_chat.model.DialogStatus;
+import com.ycyw.poc_chat.security.UserPrincipal;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DialogLifecycleManagerUnitTest {
+
+  @Mock
+  private DialogStateCache dialogStateCache;
+
+  @Mock
+  private DialogInactivityTimer inactivityTimer;
+
+  @Mock
+  private SimpMessagingTemplate messagingTemplate;
+
+  private DialogLifecycleManager manager;
+
+  @BeforeEach
+  void setUp() {
+    manager =
+      new DialogLifecycleManager(
+        dialogStateCache,
+        inactivityTimer,
+        messagingTemplate,
+        new SessionRegistry()
+      );
+    // alice (1) et bob (2) participent au dialogue, mallory (3) non
+    participants(1L, 2L);
+    given(
+      dialogStateCache.transition(
+        anyLong(),
+        eq(DialogStatus.PENDING),
+        eq(DialogStatus.OPEN)
+      )
+    )
+      .willReturn(true);
+    given(
+      dialogStateCache.transition(
+        anyLong(),
+        eq(DialogStatus.OPEN),
+        eq(DialogStatus.CLOSED)
+      )
+    )
+      .willReturn(true);
+  }
+
+  private void participants(Long... userIds) {
+    given(dialogStateCache.get(7L))
+      .willReturn(
+        DialogState
+          .builder()
+          .dialogId(7L)
+          .status(DialogStatus.PENDING)
+          .participantIds(Set.of(userIds))
+          .build()
+      );
+  }
+
+  private static Principal user(String name) {
+    long id = List.of("alice", "bob", "mallory").indexOf(name) + 1;
+    UserPrincipal principal = new UserPrincipal(id, name, null, List.of());
+    return new UsernamePasswordAuthenticationToken(principal, null, List.of());
+  }
+
+  private SessionSubscribeEvent subscribe(String sessionId, String user) {
+    StompHeaderAccessor headers = StompHeaderAccessor.create(
+      StompCommand.SUBSCRIBE
+    );
+    headers.setSessionId(sessionId);
+    headers.setSubscriptionId("sub-0");
+    headers.setDestination("/topic/dialog/7");
+    return new SessionSubscribeEvent(
+      this,
+      MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders()),
+      user == null ? null : user(user)
+    );
+  }
+
+  private SessionDisconnectEvent disconnect(String sessionId) {
+    StompHeaderAccessor headers = StompHeaderAccessor.create(
+      StompCommand.DISCONNECT
+    );
+    headers.setSessionId(sessionId);
+    return new SessionDisconnectEvent(
+      this,
+      MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders()),
+      sessionId,
+      CloseStatus.GOING_AWAY
+    );
+  }
+
+  @Test
+  @DisplayName("second user should open the dialog, a second tab should not")
+  void onSubscribe_shouldOpenOnSecondUser() {
+    manager.onSubscribe(subscribe("s1", "alice"));
+    manager.onSubscribe(subscribe("s2", "alice"));
+    then(dialogStateCache).should(never())
+      .transition(7L, DialogStatus.PENDING, DialogStatus.OPEN);
+
+    manager.onSubscribe(subscribe("s3", "bob"));
+
+    then(dialogStateCache).should()
+      .transition(7L, DialogStatus.PENDING, DialogStatus.OPEN);
+    then(inactivityTimer).should().arm(7L);
+  }
+
+  @Test
+  @DisplayName("anonymous or non-participant subscribers should not open the dialog")
+  void onSubscribe_shouldIgnoreNonParticipants() {
+    manager.onSubscribe(subscribe("s1", "alice"));
+    manager.onSubscribe(subscribe("s2", null));
+    manager.onSubscribe(subscribe("s3", "mallory"));
+
+    then(dialogStateCache).should(never())
+      .transition(7L, DialogStatus.PENDING, DialogStatus.OPEN);
+  }
+
+  @Test
+  @DisplayName("agent subscribed before its first message should count once it sends")
+  void messageSent_shouldAdmitSubscribedAgent() {
+    participants(1L);
+    manager.onSubscribe(subscribe("s1", "alice"));
+    manager.onSubscribe(subscribe("s2", "mallory"));
+    then(dialogStateCache).should(never())
+      .transition(7L, DialogStatus.PENDING, DialogStatus.OPEN);
+
+    // le premier message de l'agent en fait un participant
+    participants(1L, 3L);
+    manager.messageSent(7L, "s2");
+    then(dialogStateCache).should()
+      .transition(7L, DialogStatus.PENDING, DialogStatus.OPEN);
+
+    manager.onDisconnect(disconnect("s2"));
+
+    then(dialogStateCache).should()
+      .transition(7L, DialogStatus.OPEN, DialogStatus.CLOSED);
+    then(messagingTemplate).should()
+      .convertAndSend("/topic/dialog/7", Map.of("type", "CLOSE", "dialogId", 7L));
+  }
+
+  @Test
+  @DisplayName("dropped connection should close the dialog without chat.disconnect")
+  void onDisconnect_shouldCloseDialog() {
+    manager.onSubscribe(subscribe("s1", "alice"));
+    manager.onSubscribe(subscribe("s2", "bob"));
+
+    manager.onDisconnect(disconnect("s2"));
+    manager.onDisconnect(disconnect("s2"));
+
+    then(dialogStateCache).should()
+      .transition(7L, DialogStatus.OPEN, DialogStatus.CLOSED);
+    then(inactivityTimer).should().disarm(7L);
+    then(messagingTemplate).should()
+      .convertAndSend("/topic/dialog/7", Map.of("type", "CLOSE", "dialogId", 7L));
+  }
+}
@@ -0,0 +1,201 @@
+package com.ycyw.poc_chat.lifecycle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+import com.ycyw.poc_chat.model.Dialog;
+import com.ycyw.poc_chat.model.DialogStatus;
+import com.ycyw.poc_chat.model.UserProfile;
+import com.ycyw.poc_chat.repository.DialogRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DialogStateCacheUnitTest {
+
+  @Mock
+  private DialogRepository dialogRepository;
+
+  @Mock
+  private DialogUpdateFeed dialogUpdateFeed;
+
+  private DialogStateCache cache;
+
+  private Dialog dialog;
+
+  @BeforeEach
+  void setUp() {
+    cache =
+      new DialogStateCache(
+        dialogRepository,
+        dialogUpdateFeed,
+        Duration.ofMinutes(10)
+      );
+    dialog =
+      Dialog
+        .builder()
+        .id(3L)
+        .status(DialogStatus.PENDING)
+        .lastActivityAt(LocalDateTime.now().minusMinutes(5))
+        .participants(Set.of(UserProfile.builder().id(8L).build()))
+        .build();
+    given(dialogRepository.findById(3L)).willReturn(Optional.of(dialog));
+  }
+
+  @Test
+  @DisplayName("should load once from the database then serve from memory")
+  void get_shouldLoadOnce() {
+    DialogState first = cache.get(3L);
+    DialogState second = cache.get(3L);
+
+    assertThat(first.getStatus()).isEqualTo(DialogStatus.PENDING);
+    assertThat(first.getParticipantIds()).containsExactly(8L);
+    assertThat(second).isSameAs(first);
+    then(dialogRepository).should(times(1)).findById(3L);
+  }
+
+  @Test
+  @DisplayName("should throw when dialog does not exist")
+  void get_whenMissing_shouldThrow() {
+    given(dialogRepository.findById(4L)).willReturn(Optional.empty());
+
+    assertThatThrownBy(() -> cache.get(4L))
+      .isInstanceOf(NoSuchElementException.class);
+  }
+
+  @Test
+  @DisplayName("transition should only apply from the expected status")
+  void transition_shouldBeConditional() {
+    assertThat(
+      cache.transition(3L, DialogStatus.OPEN, DialogStatus.CLOSED)
+    )
+      .isFalse();
+    assertThat(
+      cache.transition(3L, DialogStatus.PENDING, DialogStatus.OPEN)
+    )
+      .isTrue();
+    assertThat(
+      cache.transition(3L, DialogStatus.PENDING, DialogStatus.OPEN)
+    )
+      .isFalse();
+    assertThat(cache.get(3L).getStatus()).isEqualTo(DialogStatus.OPEN);
+    then(dialogRepository)
+      .should(never())
+      .updateState(anyLong(), any(), any(), any());
+    then(dialogUpdateFeed)
+      .should(times(1))
+      .statusChanged(eq(3L), eq(DialogStatus.OPEN), any());
+  }
+
+  @Test
+  @DisplayName("flush should write pending transitions once")
+  void flush_shouldWriteDirtyStates() {
+    cache.transition(3L, DialogStatus.PENDING, DialogStatus.OPEN);
+
+    cache.flush();
+    cache.flush();
+
+    then(dialogRepository)
+      .should(times(1))
+      .updateState(eq(3L), eq(DialogStatus.OPEN), isNull(), any());
+  }
+
+  @Test
+  @DisplayName("flush should persist the activity date of touched dialogs")
+  void flush_shouldWriteTouchedStates() {
+    cache.touch(3L);
+
+    cache.flush();
+
+    then(dialogRepository)
+      .should()
+      .updateState(eq(3L), eq(DialogStatus.PENDING), isNull(), any());
+  }
+
+  @Test
+  @DisplayName("close should apply from any open status and write at once")
+  void close_shouldTransitionAndFlush() {
+    assertThat(cache.close(3L)).isTrue();
+    assertThat(cache.close(3L)).isFalse();
+
+    cache.flush(3L);
+    cache.flush(3L);
+
+    assertThat(cache.get(3L).getClosedAt()).isNotNull();
+    then(dialogRepository)
+      .should(times(1))
+      .updateState(eq(3L), eq(DialogStatus.CLOSED), any(), any());
+    then(dialogUpdateFeed)
+      .should(times(1))
+      .statusChanged(eq(3L), eq(DialogStatus.CLOSED), any());
+  }
+
+  @Test
+  @DisplayName("flush should evict closed and idle entries once written")
+  void flush_shouldEvictClosedAndIdleStates() {
+    Dialog idle = Dialog
+      .builder()
+      .id(4L)
+      .status(DialogStatus.OPEN)
+      .lastActivityAt(LocalDateTime.now().minusHours(1))
+      .participants(Set.of())
+      .build();
+    given(dialogRepository.findById(4L)).willReturn(Optional.of(idle));
+    cache.get(3L);
+    cache.get(4L);
+    cache.close(3L);
+
+    cache.flush();
+
+    assertThat(cache.size()).isZero();
+    then(dialogRepository)
+      .should()
+      .updateState(eq(3L), eq(DialogStatus.CLOSED), any(), any());
+  }
+
+  @Test
+  @DisplayName("flush should keep entries whose write failed")
+  void flush_shouldKeepDirtyStates() {
+    cache.close(3L);
+    given(dialogRepository.updateState(anyLong(), any(), any(), any()))
+      .willThrow(new IllegalStateException("database down"));
+
+    cache.flush();
+
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.get(3L).getStatus()).isEqualTo(DialogStatus.CLOSED);
+    then(dialogRepository).should(times(1)).findById(3L);
+  }
+
+  @Test
+  @DisplayName("a live entry should stay cached across flushes")
+  void flush_shouldKeepLiveStates() {
+    cache.touch(3L);
+
+    cache.flush();
+    cache.flush();
+
+    assertThat(cache.size()).isEqualTo(1);
+    then(dialogRepository).should(times(1)).findById(3L);
+  }
+}
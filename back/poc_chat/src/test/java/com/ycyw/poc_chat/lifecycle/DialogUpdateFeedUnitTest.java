@@ -0,0 +1,113 @@
+package com.ycyw.poc_chat.lifecycle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+import com.ycyw.poc_chat.dto.DialogUpdateDTO;
+import com.ycyw.poc_chat.model.DialogStatus;
+import com.ycyw.poc_chat.repository.DialogRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DialogUpdateFeedUnitTest {
+
+  @Mock
+  private DialogRepository dialogRepository;
+
+  @Mock
+  private SimpMessagingTemplate messagingTemplate;
+
+  @InjectMocks
+  private DialogUpdateFeed feed;
+
+  private static DialogRepository.UnreadCount unread(Long dialogId, long count) {
+    return new DialogRepository.UnreadCount() {
+      @Override
+      public Long getDialogId() {
+        return dialogId;
+      }
+
+      @Override
+      public Long getUnreadCount() {
+        return count;
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<DialogUpdateDTO> sentDeltas() {
+    ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+    then(messagingTemplate)
+      .should(times(1))
+      .convertAndSend(eq(DialogUpdateFeed.DESTINATION), payload.capture());
+    Map<String, Object> frame = (Map<String, Object>) payload.getValue();
+    assertThat(frame).containsEntry("type", "DIALOG_UPDATES");
+    return (List<DialogUpdateDTO>) frame.get("deltas");
+  }
+
+  @Test
+  @DisplayName("should coalesce a window of transitions into one frame")
+  void flush_shouldSendOneFrameWithLatestStatus() {
+    LocalDateTime now = LocalDateTime.now();
+    given(dialogRepository.countUnreadByDialogIds(any()))
+      .willReturn(List.of(unread(1L, 4)));
+
+    feed.statusChanged(1L, DialogStatus.OPEN, now.minusSeconds(2));
+    feed.statusChanged(2L, DialogStatus.PENDING, now.minusSeconds(1));
+    feed.statusChanged(1L, DialogStatus.CLOSED, now);
+    feed.flush();
+
+    List<DialogUpdateDTO> deltas = sentDeltas();
+    assertThat(deltas)
+      .extracting(DialogUpdateDTO::getDialogId)
+      .containsExactly(2L, 1L);
+    assertThat(deltas.get(1).getStatus()).isEqualTo(DialogStatus.CLOSED);
+    assertThat(deltas.get(1).getUnread()).isEqualTo(4L);
+    assertThat(deltas.get(0).getUnread()).isZero();
+  }
+
+  @Test
+  @DisplayName("an idle window should neither query nor send")
+  void flush_withoutChanges_shouldDoNothing() {
+    feed.statusChanged(1L, DialogStatus.OPEN, LocalDateTime.now());
+    feed.flush();
+    feed.flush();
+
+    then(dialogRepository).should(times(1)).countUnreadByDialogIds(any());
+    then(messagingTemplate)
+      .should(times(1))
+      .convertAndSend(anyString(), any(Object.class));
+  }
+
+  @Test
+  @DisplayName("should still send the statuses when unread counts fail")
+  void flush_whenUnreadQueryFails_shouldSendWithoutUnread() {
+    given(dialogRepository.countUnreadByDialogIds(any()))
+      .willThrow(new IllegalStateException("db down"));
+
+    feed.statusChanged(1L, DialogStatus.CLOSED, LocalDateTime.now());
+    feed.flush();
+
+    List<DialogUpdateDTO> deltas = sentDeltas();
+    assertThat(deltas).hasSize(1);
+    assertThat(deltas.get(0).getUnread()).isNull();
+  }
+}
@@ -0,0 +1,36 @@
+package com.ycyw.poc_chat.lifecycle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LongObjectHashMapUnitTest {
+
+  @Test
+  @DisplayName("should behave like a HashMap under random put/remove")
+  void operations_shouldMatchHashMap() {
+    LongObjectHashMap<String> map = new LongObjectHashMap<>(4);
+    Map<Long, String> expected = new HashMap<>();
+    Random random = new Random(42);
+
+    for (int i = 0; i < 200_000; i++) {
+      // clés resserrées : grappes et collisions fréquentes
+      long key = random.nextInt(512) * (random.nextBoolean() ? 1L : 1L << 40);
+      switch (random.nextInt(3)) {
+        case 0 -> assertThat(map.put(key, "v" + i))
+          .isEqualTo(expected.put(key, "v" + i));
+        case 1 -> assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+        default -> assertThat(map.get(key)).isEqualTo(expected.get(key));
+      }
+      assertThat(map.size()).isEqualTo(expected.size());
+    }
+    for (Map.Entry<Long, String> entry : expected.entrySet()) {
+      assertThat(map.get(entry.getKey())).isEqualTo(entry.getValue());
+    }
+    assertThat(map.capacity()).isLessThanOrEqualTo(4096);
+  }
+}
@@ -0,0 +1,172 @@
+package com.ycyw.poc_chat.lifecycle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import com.ycyw.poc_chat.model.DialogStatus;
+import com.ycyw.poc_chat.security.UserPrincipal;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+/**
+ * Endurance : des millions de cycles connexion / abonnement / déconnexion
+ * passés par les écouteurs de {@link DialogLifecycleManager} ne laissent
+ * rien derrière eux, et le tas revient à son niveau de départ.
+ *
+ * Exclu du build par défaut (tag soak) ; lancement (depuis back/) :
+ * {@code mvn -pl poc_chat test -Dtest=SessionRegistrySoakTest -Dtest.excludedGroups=none}
+ */
+@Tag("soak")
+class SessionRegistrySoakTest {
+
+  private static final int CYCLES = 2_000_000;
+  private static final int OPEN_SESSIONS = 1_000;
+  private static final int DIALOGS = 500;
+  private static final long MAX_HEAP_GROWTH = 16L * 1024 * 1024;
+
+  private final SessionRegistry registry = new SessionRegistry();
+  // stubOnly : Mockito ne garde pas trace des appels
+  private final DialogStateCache dialogStateCache = mock(
+    DialogStateCache.class,
+    withSettings().stubOnly()
+  );
+  private final DialogLifecycleManager manager = new DialogLifecycleManager(
+    dialogStateCache,
+    mock(DialogInactivityTimer.class, withSettings().stubOnly()),
+    mock(SimpMessagingTemplate.class, withSettings().stubOnly()),
+    registry
+  );
+
+  /** Tous les utilisateurs partagent un ID participant de chaque dialogue. */
+  @BeforeEach
+  void setUp() {
+    given(dialogStateCache.get(anyLong()))
+      .willReturn(
+        DialogState
+          .builder()
+          .status(DialogStatus.OPEN)
+          .participantIds(Set.of(1L))
+          .build()
+      );
+  }
+
+  @Test
+  @DisplayName("connect/disconnect churn should not grow the registry or the heap")
+  void churn_shouldKeepHeapFlat() {
+    run(0, CYCLES / 10);
+    long baseline = usedHeapAfterGc();
+
+    run(CYCLES / 10, CYCLES);
+
+    assertThat(registry.sessionCount()).isZero();
+    assertThat(registry.dialogCount()).isZero();
+    // la table suit le pic de dialogues simultanés, pas le nombre de cycles
+    assertThat(registry.dialogTableCapacity()).isLessThanOrEqualTo(4 * DIALOGS);
+    assertThat(usedHeapAfterGc() - baseline).isLessThan(MAX_HEAP_GROWTH);
+  }
+
+  /**
+   * Chaque cycle ouvre une session (deux abonnements à un dialogue) et
+   * déconnecte celle ouverte {@code OPEN_SESSIONS} cycles plus tôt ; une
+   * session sur dix part d'abord explicitement, une déconnexion sur dix
+   * est notifiée deux fois.
+   */
+  private void run(int from, int to) {
+    for (int i = from; i < to + OPEN_SESSIONS; i++) {
+      if (i < to) {
+        String sessionId = "s" + i;
+        String user = "user" + (i % 3_000);
+        long dialogId = 1_000_000L + (i * 7L) % DIALOGS;
+        manager.onConnected(connected(sessionId, user));
+        manager.onSubscribe(subscribe(sessionId, user, "sub-0", dialogId));
+        manager.onSubscribe(subscribe(sessionId, user, "sub-1", dialogId));
+        if (i % 10 == 0) {
+          manager.sessionLeft(sessionId, dialogId);
+        }
+      }
+      int closing = i - OPEN_SESSIONS;
+      if (closing >= from) {
+        SessionDisconnectEvent event = disconnect("s" + closing);
+        manager.onDisconnect(event);
+        if (closing % 10 == 3) {
+          manager.onDisconnect(event);
+        }
+      }
+    }
+    assertThat(registry.sessionCount()).isZero();
+  }
+
+  private SessionConnectedEvent connected(String sessionId, String user) {
+    StompHeaderAccessor headers = StompHeaderAccessor.create(
+      StompCommand.CONNECTED
+    );
+    headers.setSessionId(sessionId);
+    return new SessionConnectedEvent(this, message(headers), principal(user));
+  }
+
+  private SessionSubscribeEvent subscribe(
+    String sessionId,
+    String user,
+    String subscriptionId,
+    long dialogId
+  ) {
+    StompHeaderAccessor headers = StompHeaderAccessor.create(
+      StompCommand.SUBSCRIBE
+    );
+    headers.setSessionId(sessionId);
+    headers.setSubscriptionId(subscriptionId);
+    headers.setDestination("/topic/dialog/" + dialogId);
+    return new SessionSubscribeEvent(this, message(headers), principal(user));
+  }
+
+  private SessionDisconnectEvent disconnect(String sessionId) {
+    StompHeaderAccessor headers = StompHeaderAccessor.create(
+      StompCommand.DISCONNECT
+    );
+    headers.setSessionId(sessionId);
+    return new SessionDisconnectEvent(
+      this,
+      message(headers),
+      sessionId,
+      CloseStatus.NORMAL
+    );
+  }
+
+  private static Message<byte[]> message(StompHeaderAccessor headers) {
+    return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+  }
+
+  private static UsernamePasswordAuthenticationToken principal(String user) {
+    UserPrincipal principal = new UserPrincipal(1L, user, null, List.of());
+    return new UsernamePasswordAuthenticationToken(principal, null, List.of());
+  }
+
+  private static long usedHeapAfterGc() {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+      used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+    }
+    return used;
+  }
+}
@@ -0,0 +1,74 @@
+package com.ycyw.poc_chat.lifecycle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ycyw.poc_chat.lifecycle.SessionRegistry.Presence;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SessionRegistryUnitTest {
+
+  private final SessionRegistry registry = new SessionRegistry();
+
+  @Test
+  @DisplayName("two tabs of one user should count as one participant")
+  void subscribed_twoTabsShouldCountOnce() {
+    registry.connected("s1", "alice");
+    registry.connected("s2", "alice");
+    registry.connected("s3", "bob");
+
+    assertThat(registry.subscribed("s1", "alice", "sub-0", 7L, true))
+      .isEqualTo(new Presence(7L, "alice", 1));
+    assertThat(registry.subscribed("s2", "alice", "sub-0", 7L, true)).isNull();
+    assertThat(registry.subscribed("s3", "bob", "sub-0", 7L, true))
+      .isEqualTo(new Presence(7L, "bob", 2));
+    assertThat(registry.participants(7L)).isEqualTo(2);
+
+    // alice reste présente par son second onglet
+    assertThat(registry.disconnected("s1")).isEmpty();
+    assertThat(registry.unsubscribed("s2", "sub-0"))
+      .isEqualTo(new Presence(7L, "alice", 1));
+    assertThat(registry.participants(7L)).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("disconnect should report departures once and forget the session")
+  void disconnected_shouldReportDeparturesOnce() {
+    registry.subscribed("s1", "alice", "sub-0", 7L, true);
+    registry.subscribed("s1", "alice", "sub-1", 7L, true);
+    registry.subscribed("s1", "alice", "sub-2", 8L, true);
+    registry.subscribed("s2", "bob", "sub-0", 7L, true);
+
+    assertThat(registry.disconnected("s1"))
+      .containsExactlyInAnyOrder(
+        new Presence(7L, "alice", 1),
+        new Presence(8L, "alice", 0)
+      );
+    assertThat(registry.disconnected("s1")).isEmpty();
+    assertThat(registry.sessionCount()).isEqualTo(1);
+    assertThat(registry.dialogCount()).isEqualTo(1);
+
+    assertThat(registry.left("s2", 7L)).isEqualTo(new Presence(7L, "bob", 0));
+    assertThat(registry.left("s2", 7L)).isNull();
+    assertThat(registry.unsubscribed("s2", "sub-0")).isNull();
+    assertThat(registry.disconnected("s2")).isEmpty();
+    assertThat(registry.sessionCount()).isZero();
+    assertThat(registry.dialogCount()).isZero();
+  }
+
+  @Test
+  @DisplayName("a subscriber should only count once admitted as a participant")
+  void admitted_shouldEnterPendingSubscription() {
+    registry.subscribed("s1", "alice", "sub-0", 7L, true);
+
+    assertThat(registry.subscribed("s2", "bob", "sub-0", 7L, false)).isNull();
+    assertThat(registry.participants(7L)).isEqualTo(1);
+
+    assertThat(registry.admitted("s2", 7L))
+      .isEqualTo(new Presence(7L, "bob", 2));
+    assertThat(registry.admitted("s2", 7L)).isNull();
+    assertThat(registry.admitted("s2", 8L)).isNull();
+    assertThat(registry.disconnected("s2"))
+      .containsExactly(new Presence(7L, "bob", 1));
+  }
+}
@@ -0,0 +1,146 @@
+package com.ycyw.poc_chat.monitoring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+import com.ycyw.poc_chat.model.DialogStatus;
+import com.ycyw.poc_chat.model.MessageType;
+import com.ycyw.poc_chat.repository.DialogRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ChatMetricsUnitTest {
+
+  @Mock
+  private DialogRepository dialogRepository;
+
+  private SimpleMeterRegistry meterRegistry;
+  private ChatMetrics metrics;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    metrics = new ChatMetrics(meterRegistry, dialogRepository);
+  }
+
+  private Timer latency(String phase) {
+    return meterRegistry
+      .get("chat.message.latency")
+      .tags("phase", phase, "destination", "/topic/dialog/{id}")
+      .timer();
+  }
+
+  private static Message<byte[]> connected(String sessionId) {
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(
+      SimpMessageType.CONNECT_ACK
+    );
+    accessor.setSessionId(sessionId);
+    return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+  }
+
+  @Test
+  @DisplayName("should split a message's time into persist and broadcast phases")
+  void recordSend_shouldRecordEachPhase() {
+    long received = 1_000_000L;
+    metrics.recordSend(received, received + 3_000_000L, received + 5_000_000L);
+
+    assertThat(latency("persist").totalTime(TimeUnit.MILLISECONDS)).isEqualTo(3);
+    assertThat(latency("broadcast").totalTime(TimeUnit.MILLISECONDS))
+      .isEqualTo(2);
+    assertThat(latency("total").totalTime(TimeUnit.MILLISECONDS)).isEqualTo(5);
+  }
+
+  @Test
+  @DisplayName("should count messages per type")
+  void countMessage_shouldIncrementTypeCounter() {
+    metrics.countMessage(MessageType.CHAT);
+    metrics.countMessage(MessageType.CHAT);
+    metrics.countMessage(MessageType.JOIN);
+    metrics.countMessage(null);
+
+    assertThat(meterRegistry.get("chat.messages").tag("type", "CHAT").counter().count())
+      .isEqualTo(2);
+    assertThat(meterRegistry.get("chat.messages").tag("type", "JOIN").counter().count())
+      .isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("session gauge should survive duplicate disconnect events")
+  void sessions_shouldTrackConnectedSessions() {
+    metrics.onConnected(new SessionConnectedEvent(this, connected("s1")));
+    metrics.onConnected(new SessionConnectedEvent(this, connected("s2")));
+    SessionDisconnectEvent disconnect = new SessionDisconnectEvent(
+      this,
+      connected("s1"),
+      "s1",
+      CloseStatus.NORMAL
+    );
+    metrics.onDisconnect(disconnect);
+    metrics.onDisconnect(disconnect);
+
+    assertThat(meterRegistry.get("websocket.sessions").gauge().value())
+      .isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("dialog gauges should reflect the last refresh")
+  void refreshDialogCounts_shouldUpdateGauges() {
+    given(dialogRepository.countByStatus(DialogStatus.OPEN)).willReturn(4L);
+    given(dialogRepository.countByStatus(DialogStatus.PENDING)).willReturn(7L);
+
+    metrics.refreshDialogCounts();
+
+    assertThat(meterRegistry.get("chat.dialogs").tag("status", "open").gauge().value())
+      .isEqualTo(4);
+    assertThat(
+      meterRegistry.get("chat.dialogs").tag("status", "pending").gauge().value()
+    )
+      .isEqualTo(7);
+  }
+
+  @Test
+  @DisplayName("destinations should be reduced to bounded patterns")
+  void destinationPatterns_shouldHideIdentifiers() {
+    Map<String, String> expected = Map.of(
+      "/topic/dialog/42",
+      "/topic/dialog/{id}",
+      "/topic/dialog/42/read",
+      "/topic/dialog/{id}/read",
+      "/app/chat.sendMessage",
+      "/app/chat.sendMessage",
+      "/queue/errors-user1a2b3c",
+      "/queue/errors-user{session}",
+      "/topic/dialogs/update",
+      "/topic/dialogs/update",
+      "/user/queue/dialog-created",
+      "/user/queue/dialog-created",
+      "/app/chat.a1b2c3",
+      DestinationPatterns.OTHER,
+      "/topic/anything-the-client-wants",
+      DestinationPatterns.OTHER
+    );
+    expected.forEach((destination, pattern) ->
+      assertThat(DestinationPatterns.of(destination)).isEqualTo(pattern)
+    );
+    assertThat(DestinationPatterns.of(null)).isEqualTo(DestinationPatterns.NONE);
+  }
+}
@@ -0,0 +1,171 @@
+package com.ycyw.poc_chat.monitoring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+class StompFrameMetricsUnitTest {
+
+  private static final MessageHandler HANDLER = new AppHandler();
+
+  private SimpleMeterRegistry meterRegistry;
+  private StompFrameMetrics metrics;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    metrics = new StompFrameMetrics(meterRegistry, Duration.ofMinutes(10));
+  }
+
+  private static Message<byte[]> clientSend(String destination, String body) {
+    StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+    accessor.setSessionId("s1");
+    accessor.setDestination(destination);
+    accessor.setLeaveMutable(true);
+    return MessageBuilder.createMessage(
+      body.getBytes(StandardCharsets.UTF_8),
+      accessor.getMessageHeaders()
+    );
+  }
+
+  private static Message<byte[]> brokerMessage(String sessionId) {
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(
+      SimpMessageType.MESSAGE
+    );
+    accessor.setSessionId(sessionId);
+    accessor.setDestination("/topic/dialog/42");
+    return MessageBuilder.createMessage(new byte[10], accessor.getMessageHeaders());
+  }
+
+  /** Séquence d'une tâche de canal : envoi, début et fin du traitement. */
+  private static Message<?> dispatch(
+    ExecutorChannelInterceptor interceptor,
+    Message<?> message
+  ) {
+    Message<?> sent = interceptor.preSend(message, null);
+    Message<?> handled = interceptor.beforeHandle(sent, null, HANDLER);
+    interceptor.afterMessageHandled(handled, null, HANDLER, null);
+    return sent;
+  }
+
+  @Test
+  @DisplayName("should time queueing and handling of an inbound SEND per destination")
+  void inbound_shouldRecordQueueAndHandlerTimes() {
+    Message<?> sent = dispatch(
+      metrics.inbound(),
+      clientSend("/app/chat.sendMessage", "{\"content\":\"bonjour\"}")
+    );
+
+    assertThat(sent.getHeaders().get(StompFrameMetrics.ENQUEUED_AT_HEADER))
+      .isInstanceOf(Long.class);
+    Timer queue = meterRegistry
+      .get("websocket.frame.queue")
+      .tags("channel", "inbound", "command", "SEND", "handler", "AppHandler")
+      .timer();
+    Timer handler = meterRegistry
+      .get("websocket.frame.handler")
+      .tags(
+        "channel",
+        "inbound",
+        "command",
+        "SEND",
+        "destination",
+        "/app/chat.sendMessage",
+        "handler",
+        "AppHandler"
+      )
+      .timer();
+    assertThat(queue.count()).isEqualTo(1);
+    assertThat(handler.count()).isEqualTo(1);
+    assertThat(
+      meterRegistry
+        .get("websocket.frame.size")
+        .tags("channel", "inbound", "command", "SEND")
+        .summary()
+        .totalAmount()
+    )
+      .isEqualTo(21);
+  }
+
+  @Test
+  @DisplayName("should stamp a copy, keeping its accessor, when headers are immutable")
+  void preSend_shouldCopyImmutableMessage() {
+    Message<byte[]> immutable = brokerMessage("s1");
+
+    Message<?> sent = metrics.outbound().preSend(immutable, null);
+
+    assertThat(sent).isNotSameAs(immutable);
+    assertThat(sent.getHeaders().get(StompFrameMetrics.ENQUEUED_AT_HEADER))
+      .isInstanceOf(Long.class);
+    assertThat(SimpMessageHeaderAccessor.getSessionId(sent.getHeaders()))
+      .isEqualTo("s1");
+    assertThat(
+      MessageHeaderAccessor.getAccessor(sent, SimpMessageHeaderAccessor.class)
+    )
+      .isNotNull();
+  }
+
+  @Test
+  @DisplayName("should track each session's outbound backlog until disconnect")
+  void outbound_shouldTrackSessionBacklog() {
+    ExecutorChannelInterceptor outbound = metrics.outbound();
+    Message<?> first = outbound.preSend(brokerMessage("s1"), null);
+    outbound.preSend(brokerMessage("s1"), null);
+    outbound.preSend(brokerMessage("s2"), null);
+
+    assertThat(metrics.backlog("s1")).isEqualTo(2);
+    assertThat(meterRegistry.get("websocket.session.backlog.largest").gauge().value())
+      .isEqualTo(2);
+
+    MessageHandler webSocketHandler = mock(SubProtocolWebSocketHandler.class);
+    outbound.afterMessageHandled(
+      outbound.beforeHandle(first, null, webSocketHandler),
+      null,
+      webSocketHandler,
+      null
+    );
+    assertThat(metrics.backlog("s1")).isEqualTo(1);
+
+    metrics.onDisconnect(
+      new SessionDisconnectEvent(this, brokerMessage("s1"), "s1", CloseStatus.NORMAL)
+    );
+    assertThat(metrics.backlog("s1")).isZero();
+    assertThat(meterRegistry.get("websocket.session.backlog").summary().count())
+      .isEqualTo(3);
+    assertThat(
+      meterRegistry
+        .get("websocket.frame.handler")
+        .tag("destination", "/topic/dialog/{id}")
+        .tag("command", "MESSAGE")
+        .tag("handler", "SubProtocolWebSocketHandler")
+        .timer()
+        .count()
+    )
+      .isEqualTo(1);
+  }
+
+  private static final class AppHandler implements MessageHandler {
+
+    @Override
+    public void handleMessage(Message<?> message) {}
+  }
+}
@@ -0,0 +1,92 @@
+package com.ycyw.poc_chat.monitoring.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+class JfrRecordingEndpointUnitTest {
+
+  private JfrRecordingEndpoint endpoint;
+
+  @TempDir
+  Path tempDir;
+
+  @BeforeEach
+  void setUp() {
+    endpoint =
+      new JfrRecordingEndpoint(Duration.ofMinutes(1), DataSize.ofMegabytes(10));
+  }
+
+  @AfterEach
+  void tearDown() {
+    endpoint.close();
+  }
+
+  @Test
+  @DisplayName("should record chat events and stream them while still running")
+  void start_thenDownload_shouldContainChatEvents() throws Exception {
+    WebEndpointResponse<Map<String, Object>> started = endpoint.start("default");
+    assertThat(started.getStatus()).isEqualTo(200);
+    assertThat(started.getBody()).containsEntry("state", "RUNNING");
+
+    ChatMessagePersistedEvent event = new ChatMessagePersistedEvent();
+    event.begin();
+    event.dialogId = 42L;
+    event.rows = 1;
+    event.commit();
+
+    WebEndpointResponse<Resource> download = endpoint.download("recording");
+    assertThat(download.getStatus()).isEqualTo(200);
+    Path file = tempDir.resolve("chat.jfr");
+    try (InputStream in = download.getBody().getInputStream()) {
+      Files.copy(in, file);
+    }
+    List<RecordedEvent> persisted = RecordingFile
+      .readAllEvents(file)
+      .stream()
+      .filter(e -> e.getEventType().getName().equals("com.ycyw.chat.ChatMessagePersisted"))
+      .toList();
+    assertThat(persisted).hasSize(1);
+    assertThat(persisted.get(0).getLong("dialogId")).isEqualTo(42L);
+    assertThat(endpoint.status()).containsEntry("state", "RUNNING");
+  }
+
+  @Test
+  @DisplayName("should refuse a second start and a stop without recording")
+  void startAndStop_shouldReportConflicts() {
+    assertThat(endpoint.stop().getStatus()).isEqualTo(409);
+    assertThat(endpoint.start(null).getStatus()).isEqualTo(200);
+    assertThat(endpoint.start(null).getStatus()).isEqualTo(409);
+
+    WebEndpointResponse<Map<String, Object>> stopped = endpoint.stop();
+
+    assertThat(stopped.getStatus()).isEqualTo(200);
+    assertThat(stopped.getBody())
+      .containsEntry("state", "STOPPED")
+      .containsEntry("settings", "profile");
+    assertThat(endpoint.download("recording").getStatus()).isEqualTo(200);
+  }
+
+  @Test
+  @DisplayName("should reject unknown settings and unknown files")
+  void start_shouldRejectUnknownSettings() {
+    assertThat(endpoint.start("missing").getStatus()).isEqualTo(400);
+    assertThat(endpoint.download("recording").getStatus()).isEqualTo(404);
+    assertThat(endpoint.status()).containsEntry("state", "NONE");
+  }
+}
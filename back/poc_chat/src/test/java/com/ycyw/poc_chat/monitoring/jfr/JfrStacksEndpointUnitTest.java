@@ -0,0 +1,62 @@
+package com.ycyw.poc_chat.monitoring.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ycyw.poc_chat.monitoring.jfr.StackSummaryAggregator.Kind;
+import com.ycyw.poc_chat.monitoring.jfr.StackSummaryAggregator.MinuteSummary;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class JfrStacksEndpointUnitTest {
+
+  private final JfrStacksEndpoint endpoint = new JfrStacksEndpoint(
+    false,
+    10,
+    100,
+    5,
+    8,
+    "150/s",
+    Duration.ofMillis(10),
+    Duration.ofMillis(10)
+  );
+
+  @AfterEach
+  void tearDown() {
+    endpoint.close();
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<MinuteSummary> minutes() {
+    return (List<MinuteSummary>) endpoint.report().get("minutes");
+  }
+
+  private boolean parkedHereReported() {
+    return minutes()
+      .stream()
+      .flatMap(m -> m.kinds().get(Kind.THREAD_PARK).top().stream())
+      .anyMatch(s ->
+        s.appFrame() != null && s.appFrame().contains("JfrStacksEndpointUnitTest")
+      );
+  }
+
+  @Test
+  @DisplayName("should report parked stacks while enabled, and stop on demand")
+  void toggle_shouldStreamThreadParkStacks() throws InterruptedException {
+    assertThat(endpoint.toggle(true).getBody()).containsEntry("enabled", true);
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+    while (!parkedHereReported()) {
+      assertThat(System.nanoTime()).as("timeout").isLessThan(deadline);
+      LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    assertThat(endpoint.toggle(false).getBody()).containsEntry("enabled", false);
+    assertThat(endpoint.isEnabled()).isFalse();
+    assertThat(minutes()).isNotEmpty();
+  }
+}
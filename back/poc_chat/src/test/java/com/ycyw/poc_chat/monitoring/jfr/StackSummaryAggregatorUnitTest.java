@@ -0,0 +1,88 @@
+package com.ycyw.poc_chat.monitoring.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.ycyw.poc_chat.monitoring.jfr.StackSummaryAggregator.Kind;
+import com.ycyw.poc_chat.monitoring.jfr.StackSummaryAggregator.KindSummary;
+import com.ycyw.poc_chat.monitoring.jfr.StackSummaryAggregator.MinuteSummary;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class StackSummaryAggregatorUnitTest {
+
+  private static final long MINUTE = 29_000_000L;
+  private static final List<String> BUILDER = List.of(
+    "com.ycyw.poc_chat.model.ChatMessage$ChatMessageBuilder.build:24"
+  );
+  private static final List<String> MAP_OF = List.of("java.util.Map.of:1");
+
+  @Test
+  @DisplayName("should keep the heaviest stacks of each minute, in weight order")
+  void report_shouldRankStacksByWeight() {
+    StackSummaryAggregator aggregator = new StackSummaryAggregator(2, 100, 10);
+    aggregator.record(Kind.ALLOCATION, MINUTE, "A", null, BUILDER, 100);
+    aggregator.record(Kind.ALLOCATION, MINUTE, "A", null, BUILDER, 100);
+    aggregator.record(Kind.ALLOCATION, MINUTE, "B", "com.ycyw.X.y:1", MAP_OF, 500);
+    aggregator.record(Kind.ALLOCATION, MINUTE, "C", null, MAP_OF, 10);
+    aggregator.record(Kind.THREAD_PARK, MINUTE, null, null, MAP_OF, 7);
+
+    List<MinuteSummary> report = aggregator.report();
+
+    assertThat(report).hasSize(1);
+    assertThat(report.get(0).minute()).isEqualTo(Instant.ofEpochSecond(MINUTE * 60));
+    KindSummary allocations = report.get(0).kinds().get(Kind.ALLOCATION);
+    assertThat(allocations.events()).isEqualTo(4);
+    assertThat(allocations.weight()).isEqualTo(710);
+    assertThat(allocations.top())
+      .extracting(s -> s.subject() + "/" + s.count() + "/" + s.weight())
+      .containsExactly("B/1/500", "A/2/200");
+    assertThat(allocations.top().get(0).appFrame()).isEqualTo("com.ycyw.X.y:1");
+    assertThat(report.get(0).kinds().get(Kind.THREAD_PARK).weight()).isEqualTo(7);
+  }
+
+  @Test
+  @DisplayName("should bound distinct stacks and retained minutes")
+  void record_shouldStayBounded() {
+    StackSummaryAggregator aggregator = new StackSummaryAggregator(5, 3, 2);
+    for (int i = 0; i < 10; i++) {
+      aggregator.record(
+        Kind.MONITOR_ENTER,
+        MINUTE,
+        "Lock" + i,
+        null,
+        MAP_OF,
+        1
+      );
+    }
+    KindSummary first = aggregator.report().get(0).kinds().get(Kind.MONITOR_ENTER);
+    assertThat(first.top()).hasSize(3);
+    assertThat(first.untracked()).isEqualTo(7);
+    assertThat(first.events()).isEqualTo(10);
+
+    for (long minute = MINUTE + 1; minute <= MINUTE + 5; minute++) {
+      aggregator.record(Kind.MONITOR_ENTER, minute, "Lock", null, MAP_OF, 1);
+    }
+    // deux minutes écoulées conservées, plus la minute en cours
+    assertThat(aggregator.report())
+      .extracting(MinuteSummary::minute)
+      .containsExactly(
+        Instant.ofEpochSecond((MINUTE + 3) * 60),
+        Instant.ofEpochSecond((MINUTE + 4) * 60),
+        Instant.ofEpochSecond((MINUTE + 5) * 60)
+      );
+  }
+
+  @Test
+  @DisplayName("late events should count in the current minute")
+  void record_lateEventShouldCountInCurrentMinute() {
+    StackSummaryAggregator aggregator = new StackSummaryAggregator(5, 10, 5);
+    aggregator.record(Kind.THREAD_PARK, MINUTE + 1, null, null, MAP_OF, 1);
+    aggregator.record(Kind.THREAD_PARK, MINUTE, null, null, MAP_OF, 1);
+
+    assertThat(aggregator.report()).hasSize(1);
+    assertThat(aggregator.report().get(0).kinds().get(Kind.THREAD_PARK).events())
+      .isEqualTo(2);
+  }
+}
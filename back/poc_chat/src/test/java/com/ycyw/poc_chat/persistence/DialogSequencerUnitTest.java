@@ -0,0 +1,112 @@
+package com.ycyw.poc_chat.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+import com.ycyw.poc_chat.repository.ChatMessageRepository;
+import com.ycyw.poc_chat.repository.DialogRepository;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DialogSequencerUnitTest {
+
+  @Mock
+  private ChatMessageRepository messageRepository;
+
+  @Mock
+  private DialogRepository dialogRepository;
+
+  private DialogSequencer sequencer;
+
+  @BeforeEach
+  void setUp() {
+    sequencer =
+      new DialogSequencer(
+        messageRepository,
+        dialogRepository,
+        "simple",
+        Duration.ofHours(1)
+      );
+  }
+
+  @Test
+  @DisplayName("should continue from the last sequence stored for the dialog")
+  void next_shouldSeedFromDatabaseOnce() {
+    given(messageRepository.findLastSeq(7L)).willReturn(41L);
+
+    assertThat(sequencer.next(7L)).isEqualTo(42L);
+    assertThat(sequencer.next(7L)).isEqualTo(43L);
+    then(messageRepository).should(times(1)).findLastSeq(7L);
+  }
+
+  @Test
+  @DisplayName("should start at 1 for an empty dialog, independently per dialog")
+  void next_shouldCountPerDialog() {
+    given(messageRepository.findLastSeq(1L)).willReturn(null);
+    given(messageRepository.findLastSeq(2L)).willReturn(10L);
+
+    assertThat(sequencer.next(1L)).isEqualTo(1L);
+    assertThat(sequencer.next(2L)).isEqualTo(11L);
+    assertThat(sequencer.next(1L)).isEqualTo(2L);
+  }
+
+  @Test
+  @DisplayName("concurrent senders should get distinct, gapless sequences")
+  void next_concurrent_shouldNeverDuplicate() throws Exception {
+    given(messageRepository.findLastSeq(7L)).willReturn(0L);
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Long>> results = IntStream
+        .range(0, 2_000)
+        .mapToObj(i -> pool.submit(() -> sequencer.next(7L)))
+        .collect(Collectors.toList());
+      Set<Long> seqs = ConcurrentHashMap.newKeySet();
+      for (Future<Long> result : results) {
+        seqs.add(result.get());
+      }
+
+      assertThat(seqs)
+        .containsExactlyInAnyOrderElementsOf(
+          LongStream.rangeClosed(1, 2_000).boxed().collect(Collectors.toList())
+        );
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  @DisplayName("in relay mode, should reserve every sequence in database")
+  void next_relay_shouldUseDialogRow() {
+    DialogSequencer relay = new DialogSequencer(
+      messageRepository,
+      dialogRepository,
+      "relay",
+      Duration.ofHours(1)
+    );
+    given(dialogRepository.nextSeq(7L)).willReturn(42L, 43L);
+
+    assertThat(relay.next(7L)).isEqualTo(42L);
+    assertThat(relay.next(7L)).isEqualTo(43L);
+    then(messageRepository).shouldHaveNoInteractions();
+  }
+}
@@ -0,0 +1,132 @@
+package com.ycyw.poc_chat.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ycyw.poc_chat.model.MessageType;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MessageJournalUnitTest {
+
+  @TempDir
+  Path tempDir;
+
+  private final ObjectMapper objectMapper = new ObjectMapper()
+    .findAndRegisterModules();
+  private final AtomicLong ids = new AtomicLong();
+  private MessageJournal journal;
+
+  @BeforeEach
+  void setUp() {
+    journal =
+      new MessageJournal(
+        tempDir.resolve("messages.journal"),
+        objectMapper,
+        true
+      );
+  }
+
+  @AfterEach
+  void tearDown() {
+    journal.close();
+  }
+
+  private PendingMessage message() {
+    long id = ids.incrementAndGet();
+    return PendingMessage
+      .builder()
+      .id(id)
+      .dialogId(1L)
+      .seq(id)
+      .senderId(2L)
+      .content("m" + id)
+      .type(MessageType.CHAT)
+      .timestamp(LocalDateTime.now())
+      .build();
+  }
+
+  @Test
+  @DisplayName("one fsync should acknowledge every message written before it")
+  void sync_shouldCoverEarlierWrites() {
+    long first = journal.write(message());
+    long second = journal.write(message());
+    long third = journal.write(message());
+
+    journal.sync(third);
+    journal.sync(first);
+    journal.sync(second);
+
+    assertThat(journal.syncs()).isEqualTo(1);
+    assertThat(journal.readAll()).hasSize(3);
+  }
+
+  @Test
+  @DisplayName("a write after the last fsync should trigger a new one")
+  void sync_shouldForceLaterWrites() {
+    journal.sync(journal.write(message()));
+    journal.sync(journal.write(message()));
+
+    assertThat(journal.syncs()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("a rewritten journal should already count as synced")
+  void sync_shouldSkipAfterRewrite() {
+    PendingMessage pending = message();
+    long position = journal.write(pending);
+
+    journal.rewrite(List.of(pending));
+    journal.sync(position);
+
+    assertThat(journal.syncs()).isZero();
+    assertThat(journal.readAll())
+      .extracting(PendingMessage::getId)
+      .containsExactly(pending.getId());
+  }
+
+  @Test
+  @DisplayName("concurrent writers should all be durable")
+  void sync_shouldGroupConcurrentWriters() throws Exception {
+    int writers = 8;
+    int perWriter = 50;
+    ExecutorService pool = Executors.newFixedThreadPool(writers);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int w = 0; w < writers; w++) {
+        futures.add(
+          pool.submit(() -> {
+            start.await();
+            for (int i = 0; i < perWriter; i++) {
+              journal.append(message());
+            }
+            return null;
+          })
+        );
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertThat(journal.readAll()).hasSize(writers * perWriter);
+    assertThat(journal.syncs()).isLessThanOrEqualTo(writers * perWriter);
+  }
+}
@@ -0,0 +1,215 @@
+package com.ycyw.poc_chat.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ycyw.poc_chat.lifecycle.DialogStateCache;
+import com.ycyw.poc_chat.monitoring.ChatMetrics;
+import com.ycyw.poc_chat.repository.ChatMessageBatchRepository;
+import com.ycyw.poc_chat.repository.DialogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class MessageWriteBehindServiceUnitTest {
+
+  @Mock
+  private DialogStateCache dialogStateCache;
+
+  @Mock
+  private ObjectProvider<MessageIdAllocator> allocatorProvider;
+
+  @Mock
+  private MessageIdAllocator allocator;
+
+  @Mock
+  private DialogSequencer dialogSequencer;
+
+  @Mock
+  private ChatMessageBatchRepository batchRepository;
+
+  @TempDir
+  Path tempDir;
+
+  private final ObjectMapper objectMapper = new ObjectMapper()
+    .findAndRegisterModules();
+  private final AtomicLong ids = new AtomicLong(1000);
+  private final List<MessageWriteBehindService> started = new ArrayList<>();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private ChatMetrics chatMetrics;
+
+  @BeforeEach
+  void setUp() {
+    chatMetrics = new ChatMetrics(meterRegistry, mock(DialogRepository.class));
+    given(allocatorProvider.getObject()).willReturn(allocator);
+    given(allocator.nextId()).willAnswer(inv -> ids.incrementAndGet());
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    for (MessageWriteBehindService service : started) {
+      service.stop();
+    }
+  }
+
+  private MessageWriteBehindService newService(int capacity) {
+    MessageWriteBehindService service = new MessageWriteBehindService(
+      dialogStateCache,
+      allocatorProvider,
+      dialogSequencer,
+      batchRepository,
+      objectMapper,
+      chatMetrics,
+      true,
+      capacity,
+      50,
+      20,
+      tempDir.resolve("messages.journal"),
+      true,
+      1,
+      tempDir.resolve("messages.dead-letter")
+    );
+    service.start();
+    started.add(service);
+    return service;
+  }
+
+  @Test
+  @DisplayName("accepted messages should be batch-written and journal emptied")
+  void submit_shouldWriteInBackground() throws Exception {
+    // le lot passé au dépôt est réutilisé après l'écriture : on en garde
+    // une copie
+    List<List<PendingMessage>> batches = new CopyOnWriteArrayList<>();
+    willAnswer(inv -> batches.add(List.copyOf(inv.getArgument(0))))
+      .given(batchRepository)
+      .insertBatch(anyList());
+    MessageWriteBehindService service = newService(100);
+
+    PendingMessage accepted = service.submit(7L, 1L, "Hello", true);
+
+    waitUntilIdle(service);
+    assertThat(batches).containsExactly(List.of(accepted));
+    assertThat(accepted.getId()).isEqualTo(1001L);
+    assertThat(Files.size(tempDir.resolve("messages.journal"))).isZero();
+  }
+
+  @Test
+  @DisplayName("a full buffer should reject explicitly")
+  void submit_whenBufferFull_shouldReject() throws Exception {
+    CountDownLatch dbBlocked = new CountDownLatch(1);
+    willAnswer(inv -> {
+        dbBlocked.await();
+        return null;
+      })
+      .given(batchRepository)
+      .insertBatch(anyList());
+    MessageWriteBehindService service = newService(2);
+
+    service.submit(7L, 1L, "one", true);
+    service.submit(7L, 1L, "two", true);
+
+    assertThatThrownBy(() -> service.submit(7L, 1L, "three", true))
+      .isInstanceOf(MessageBackpressureException.class);
+    assertThat(service.pendingCount()).isEqualTo(2);
+    dbBlocked.countDown();
+  }
+
+  @Test
+  @DisplayName("no acknowledged message should be lost after a crash")
+  void crashRecovery_shouldReplayEveryAcknowledgedMessage() throws Exception {
+    willThrow(new IllegalStateException("database down"))
+      .given(batchRepository)
+      .insertBatch(anyList());
+    MessageWriteBehindService crashed = newService(1_000);
+    List<Long> acknowledged = new ArrayList<>();
+    for (int i = 0; i < 120; i++) {
+      acknowledged.add(crashed.submit(7L, 1L, "msg " + i, i % 2 == 0).getId());
+    }
+    crashed.stop();
+    started.remove(crashed);
+    // écriture interrompue en plein milieu d'une ligne
+    Files.write(
+      tempDir.resolve("messages.journal"),
+      "{\"id\":9999,\"dialogId\":7,\"cont".getBytes(StandardCharsets.UTF_8),
+      StandardOpenOption.APPEND
+    );
+
+    List<Long> replayed = new ArrayList<>();
+    willAnswer(inv -> {
+        List<PendingMessage> batch = inv.getArgument(0);
+        replayed.addAll(
+          batch.stream().map(PendingMessage::getId).collect(Collectors.toList())
+        );
+        return null;
+      })
+      .given(batchRepository)
+      .insertBatch(anyList());
+    newService(1_000);
+
+    assertThat(replayed).containsExactlyElementsOf(acknowledged);
+    assertThat(Files.size(tempDir.resolve("messages.journal"))).isZero();
+  }
+
+  @Test
+  @DisplayName("a rejected row should be dead-lettered, not stall the writer")
+  void write_poisonRowShouldBeDeadLettered() throws Exception {
+    List<Long> written = new CopyOnWriteArrayList<>();
+    willAnswer(inv -> {
+        List<PendingMessage> batch = inv.getArgument(0);
+        if (batch.stream().anyMatch(m -> "poison".equals(m.getContent()))) {
+          throw new DataIntegrityViolationException("Data too long");
+        }
+        batch.forEach(m -> written.add(m.getId()));
+        return null;
+      })
+      .given(batchRepository)
+      .insertBatch(anyList());
+    MessageWriteBehindService service = newService(100);
+
+    PendingMessage ok = service.submit(7L, 1L, "ok", true);
+    PendingMessage poison = service.submit(7L, 1L, "poison", true);
+
+    waitUntilIdle(service);
+    assertThat(service.pendingCount()).isZero();
+    assertThat(written).containsExactly(ok.getId());
+    assertThat(meterRegistry.counter("chat.messages.rejected").count())
+      .isEqualTo(1.0);
+    assertThat(Files.readString(tempDir.resolve("messages.dead-letter")))
+      .contains("\"id\":" + poison.getId());
+  }
+
+  private void waitUntilIdle(MessageWriteBehindService service)
+    throws InterruptedException {
+    for (int i = 0; i < 250 && service.pendingCount() > 0; i++) {
+      Thread.sleep(20);
+    }
+  }
+}
@@ -0,0 +1,217 @@
+package com.ycyw.poc_chat.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+import com.ycyw.poc_chat.dto.ChatMessageDTO;
+import com.ycyw.poc_chat.mapper.ChatMessageMapper;
+import com.ycyw.poc_chat.model.ChatMessage;
+import com.ycyw.poc_chat.repository.ChatMessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.PageRequest;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RecentMessageBufferUnitTest {
+
+  private static final int CAPACITY = 8;
+
+  @Mock
+  private ChatMessageRepository messageRepository;
+
+  @Mock
+  private ChatMessageMapper chatMessageMapper;
+
+  private SimpleMeterRegistry meterRegistry;
+  private RecentMessageBuffer buffer;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    buffer =
+      new RecentMessageBuffer(
+        messageRepository,
+        chatMessageMapper,
+        meterRegistry,
+        CAPACITY,
+        100,
+        Duration.ofMinutes(30),
+        "simple"
+      );
+    given(messageRepository.findLatestBySeqByDialogId(anyLong(), any()))
+      .willReturn(List.of());
+    given(chatMessageMapper.toDto(any(ChatMessage.class)))
+      .willAnswer(inv -> {
+        ChatMessage m = inv.getArgument(0);
+        return dto(7L, m.getSeq());
+      });
+  }
+
+  private static ChatMessageDTO dto(Long dialogId, long seq) {
+    return ChatMessageDTO.builder().dialogId(dialogId).seq(seq).build();
+  }
+
+  private static List<Long> seqs(List<ChatMessageDTO> messages) {
+    return messages.stream().map(ChatMessageDTO::getSeq).toList();
+  }
+
+  private double replays(String source) {
+    return meterRegistry.counter("websocket.replay", "source", source).count();
+  }
+
+  @Test
+  @DisplayName("should replay missed messages from memory, in sequence order")
+  void since_shouldReplayFromMemory() {
+    buffer.append(dto(7L, 1));
+    buffer.append(dto(7L, 3));
+    buffer.append(dto(7L, 2));
+    buffer.append(dto(7L, 4));
+
+    assertThat(seqs(buffer.since(7L, 1))).containsExactly(2L, 3L, 4L);
+    assertThat(buffer.since(7L, 4)).isEmpty();
+    then(messageRepository)
+      .should(never())
+      .findPageAfterSeqByDialogId(anyLong(), anyLong(), any());
+    assertThat(replays("memory")).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("in relay mode, should always replay from the database")
+  void since_relay_shouldQueryDatabase() {
+    RecentMessageBuffer relay = new RecentMessageBuffer(
+      messageRepository,
+      chatMessageMapper,
+      meterRegistry,
+      CAPACITY,
+      100,
+      Duration.ofMinutes(30),
+      "relay"
+    );
+    relay.append(dto(7L, 2));
+    given(
+      messageRepository.findPageAfterSeqByDialogId(
+        7L,
+        1L,
+        PageRequest.of(0, CAPACITY)
+      )
+    )
+      .willReturn(
+        List.of(
+          ChatMessage.builder().seq(2L).build(),
+          ChatMessage.builder().seq(3L).build()
+        )
+      );
+
+    assertThat(seqs(relay.since(7L, 1))).containsExactly(2L, 3L);
+    then(messageRepository)
+      .should(never())
+      .findLatestBySeqByDialogId(anyLong(), any());
+    assertThat(replays("database")).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("should skip sequence numbers that were never broadcast")
+  void since_withGap_shouldReturnWhatWasBroadcast() {
+    buffer.append(dto(7L, 1));
+    buffer.append(dto(7L, 3));
+
+    assertThat(seqs(buffer.since(7L, 0))).containsExactly(1L, 3L);
+  }
+
+  @Test
+  @DisplayName("should fall back to a keyset query once the ring is overrun")
+  void since_whenOverrun_shouldQueryDatabase() {
+    LongStream.rangeClosed(1, 20).forEach(seq -> buffer.append(dto(7L, seq)));
+    given(
+      messageRepository.findPageAfterSeqByDialogId(
+        7L,
+        5L,
+        PageRequest.of(0, CAPACITY)
+      )
+    )
+      .willReturn(List.of(ChatMessage.builder().seq(6L).build()));
+
+    assertThat(seqs(buffer.since(7L, 5))).containsExactly(6L);
+    assertThat(seqs(buffer.since(7L, 12))).hasSize(8).startsWith(13L);
+    assertThat(replays("database")).isEqualTo(1);
+    assertThat(replays("memory")).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("should warm up from the database before older history is served")
+  void since_coldDialog_shouldWarmUpOnce() {
+    given(messageRepository.findLatestBySeqByDialogId(7L, PageRequest.of(0, CAPACITY)))
+      .willReturn(
+        LongStream
+          .rangeClosed(3, 10)
+          .map(seq -> 13 - seq)
+          .mapToObj(seq -> ChatMessage.builder().seq(seq).build())
+          .collect(Collectors.toList())
+      );
+
+    assertThat(seqs(buffer.since(7L, 6))).containsExactly(7L, 8L, 9L, 10L);
+    assertThat(seqs(buffer.since(7L, 2))).containsExactly(3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+    buffer.since(7L, 1);
+
+    then(messageRepository)
+      .should(times(1))
+      .findLatestBySeqByDialogId(anyLong(), any());
+    then(messageRepository)
+      .should(times(1))
+      .findPageAfterSeqByDialogId(7L, 1L, PageRequest.of(0, CAPACITY));
+  }
+
+  @Test
+  @DisplayName("a reconnect storm on a cold dialog should read the database once")
+  void since_concurrentReconnects_shouldShareWarmUp() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    given(messageRepository.findLatestBySeqByDialogId(7L, PageRequest.of(0, CAPACITY)))
+      .willAnswer(inv -> {
+        loading.await();
+        return List.of(ChatMessage.builder().seq(1L).build());
+      });
+    ExecutorService pool = Executors.newFixedThreadPool(16);
+    try {
+      List<Future<List<ChatMessageDTO>>> replays = IntStream
+        .range(0, 200)
+        .mapToObj(i -> pool.submit(() -> buffer.since(7L, 0)))
+        .collect(Collectors.toList());
+      Thread.sleep(100);
+      loading.countDown();
+      for (Future<List<ChatMessageDTO>> replay : replays) {
+        assertThat(seqs(replay.get())).containsExactly(1L);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    then(messageRepository)
+      .should(times(1))
+      .findLatestBySeqByDialogId(anyLong(), any());
+    then(messageRepository)
+      .should(never())
+      .findPageAfterSeqByDialogId(anyLong(), anyLong(), any());
+  }
+}
@@ -0,0 +1,102 @@
+package com.ycyw.poc_chat.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+import com.ycyw.poc_chat.model.Role;
+import com.ycyw.poc_chat.model.UserCredential;
+import com.ycyw.poc_chat.repository.UserCredentialRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CustomUserDetailsServiceUnitTest {
+
+  @Mock
+  private UserCredentialRepository credentialRepo;
+
+  private SimpleMeterRegistry meterRegistry;
+  private CustomUserDetailsService service;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    service =
+      new CustomUserDetailsService(
+        credentialRepo,
+        meterRegistry,
+        100,
+        Duration.ofMinutes(10)
+      );
+    UserCredential uc = UserCredential
+      .builder()
+      .id(1L)
+      .email("a@b.c")
+      .password("hash")
+      .role(Role.AGENT)
+      .build();
+    given(credentialRepo.findById(1L)).willReturn(Optional.of(uc));
+    given(credentialRepo.findByEmail("a@b.c")).willReturn(Optional.of(uc));
+  }
+
+  @Test
+  @DisplayName("should read DB once and serve both keys from cache")
+  void load_shouldCacheByIdAndEmail() {
+    UserPrincipal byId = (UserPrincipal) service.loadUserById(1L);
+
+    assertThat(service.loadUserById(1L)).isSameAs(byId);
+    assertThat(service.loadUserByUsername("a@b.c")).isSameAs(byId);
+    assertThat(byId.hasRole("AGENT")).isTrue();
+    then(credentialRepo).should(times(1)).findById(1L);
+    then(credentialRepo).should(never()).findByEmail("a@b.c");
+    assertThat(
+      meterRegistry
+        .get("cache.gets")
+        .tag("cache", "user-credentials-by-id")
+        .tag("result", "hit")
+        .functionCounter()
+        .count()
+    )
+      .isEqualTo(1.0);
+  }
+
+  @Test
+  @DisplayName("should reload after eviction")
+  void evict_shouldForceReload() {
+    service.loadUserByUsername("a@b.c");
+
+    service.evict(1L);
+    service.loadUserByUsername("a@b.c");
+    service.loadUserById(1L);
+
+    then(credentialRepo).should(times(2)).findByEmail("a@b.c");
+    then(credentialRepo).should(never()).findById(1L);
+  }
+
+  @Test
+  @DisplayName("given unknown user, should throw and cache nothing")
+  void load_unknown_shouldThrow() {
+    given(credentialRepo.findById(9L)).willReturn(Optional.empty());
+
+    assertThatThrownBy(() -> service.loadUserById(9L))
+      .isInstanceOf(UsernameNotFoundException.class);
+    assertThatThrownBy(() -> service.loadUserById(9L))
+      .isInstanceOf(UsernameNotFoundException.class);
+    then(credentialRepo).should(times(2)).findById(9L);
+  }
+}
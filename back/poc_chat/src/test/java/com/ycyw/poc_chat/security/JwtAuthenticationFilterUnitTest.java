@@ -0,0 +1,108 @@
+package com.ycyw.poc_chat.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+
+import jakarta.servlet.FilterChain;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class JwtAuthenticationFilterUnitTest {
+
+  private static final VerifiedToken VERIFIED = new VerifiedToken(
+    1L,
+    "a@b.c",
+    "USER",
+    0,
+    Long.MAX_VALUE
+  );
+
+  @Mock
+  private JwtTokenProvider tokenProvider;
+
+  @Mock
+  private CustomUserDetailsService userDetailsService;
+
+  @Mock
+  private TokenRevocationRegistry revocationRegistry;
+
+  @InjectMocks
+  private JwtAuthenticationFilter filter;
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private void doFilter() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest(
+      "GET",
+      "/api/dialog/all"
+    );
+    request.addHeader("Authorization", "Bearer tok");
+    filter.doFilter(
+      request,
+      new MockHttpServletResponse(),
+      mock(FilterChain.class)
+    );
+  }
+
+  @Test
+  @DisplayName("stateless mode should build principal from claims without DB lookup")
+  void stateless_shouldNotLoadUser() throws Exception {
+    ReflectionTestUtils.setField(filter, "stateless", true);
+    UserPrincipal principal = new UserPrincipal(1L, "a@b.c", null, List.of());
+    given(tokenProvider.parseAndVerify("tok")).willReturn(VERIFIED);
+    given(tokenProvider.toPrincipal(VERIFIED)).willReturn(principal);
+
+    doFilter();
+
+    assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal())
+      .isSameAs(principal);
+    then(userDetailsService).shouldHaveNoInteractions();
+  }
+
+  @Test
+  @DisplayName("stateful mode should load user by id")
+  void stateful_shouldLoadUser() throws Exception {
+    ReflectionTestUtils.setField(filter, "stateless", false);
+    UserPrincipal principal = new UserPrincipal(1L, "a@b.c", "x", List.of());
+    given(tokenProvider.parseAndVerify("tok")).willReturn(VERIFIED);
+    given(userDetailsService.loadUserById(1L)).willReturn(principal);
+
+    doFilter();
+
+    assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal())
+      .isSameAs(principal);
+  }
+
+  @Test
+  @DisplayName("revoked token should not authenticate")
+  void revoked_shouldNotAuthenticate() throws Exception {
+    ReflectionTestUtils.setField(filter, "stateless", true);
+    given(tokenProvider.parseAndVerify("tok")).willReturn(VERIFIED);
+    given(revocationRegistry.isRevoked(VERIFIED)).willReturn(true);
+
+    doFilter();
+
+    assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    then(tokenProvider).should(never()).toPrincipal(VERIFIED);
+  }
+}
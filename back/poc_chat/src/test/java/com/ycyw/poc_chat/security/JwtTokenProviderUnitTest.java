@@ -0,0 +1,84 @@
+package com.ycyw.poc_chat.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.ycyw.poc_chat.model.Role;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class JwtTokenProviderUnitTest {
+
+  private static final String SECRET =
+    "0123456789012345678901234567890123456789012345678901234567890123";
+
+  private final JwtTokenProvider provider = new JwtTokenProvider(
+    SECRET,
+    60_000,
+    100
+  );
+
+  @Test
+  @DisplayName("should return all claims from a single verification")
+  void parseAndVerify_shouldReturnAllClaims() {
+    String token = provider.generateToken(5L, "a@b.c", Role.AGENT);
+
+    VerifiedToken verified = provider.parseAndVerify(token);
+
+    assertThat(verified.getUserId()).isEqualTo(5L);
+    assertThat(verified.getEmail()).isEqualTo("a@b.c");
+    assertThat(verified.getRole()).isEqualTo("AGENT");
+    assertThat(verified.getExpiresAtMs()).isGreaterThan(
+      System.currentTimeMillis()
+    );
+  }
+
+  @Test
+  @DisplayName("should carry the token generation claim")
+  void parseAndVerify_shouldReadGeneration() {
+    String token = provider.generateToken(5L, "a@b.c", Role.USER, 3);
+
+    assertThat(provider.parseAndVerify(token).getGeneration()).isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("should serve a repeated token from cache")
+  void parseAndVerify_shouldCacheVerifiedToken() {
+    String token = provider.generateToken(5L, "a@b.c", Role.USER);
+
+    assertThat(provider.parseAndVerify(token)).isSameAs(
+      provider.parseAndVerify(token)
+    );
+    UserPrincipal principal = provider.getUserPrincipal(token);
+    assertThat(principal.getId()).isEqualTo(5L);
+    assertThat(principal.isClient()).isTrue();
+  }
+
+  @Test
+  @DisplayName("should reject a token signed with another key")
+  void parseAndVerify_shouldRejectForeignSignature() {
+    String foreign = new JwtTokenProvider(
+      SECRET.replace('0', 'x'),
+      60_000,
+      100
+    )
+      .generateToken(5L, "a@b.c", Role.USER);
+
+    assertThatThrownBy(() -> provider.parseAndVerify(foreign))
+      .isInstanceOf(JwtException.class);
+    assertThat(provider.validateToken(foreign)).isFalse();
+    assertThat(provider.validateToken("")).isFalse();
+  }
+
+  @Test
+  @DisplayName("should reject an expired token")
+  void parseAndVerify_shouldRejectExpiredToken() {
+    JwtTokenProvider shortLived = new JwtTokenProvider(SECRET, -1_000, 100);
+    String token = shortLived.generateToken(5L, "a@b.c", Role.USER);
+
+    assertThatThrownBy(() -> shortLived.parseAndVerify(token))
+      .isInstanceOf(ExpiredJwtException.class);
+  }
+}
@@ -0,0 +1,106 @@
+package com.ycyw.poc_chat.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+class PasswordHashingExecutorUnitTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private PasswordHashingExecutor executor;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    executor = new PasswordHashingExecutor(meterRegistry, 1, 1);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdown();
+  }
+
+  @Test
+  @DisplayName("should run the task off the caller thread")
+  void submit_shouldRunOnPool() throws Exception {
+    String thread = executor
+      .submit(() -> Thread.currentThread().getName())
+      .get(5, TimeUnit.SECONDS);
+
+    assertThat(thread).startsWith("password-hashing-");
+  }
+
+  @Test
+  @DisplayName("should reject when the worker and the queue are busy")
+  void submit_shouldRejectWhenSaturated() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<Void> running = executor.submit(() -> {
+      started.countDown();
+      await(release);
+      return null;
+    });
+    started.await(5, TimeUnit.SECONDS);
+    CompletableFuture<String> queued = executor.submit(() -> "queued");
+
+    assertThat(meterRegistry.get("auth.password.hashing.queue").gauge().value())
+      .isEqualTo(1.0);
+    assertThatThrownBy(() -> executor.submit(() -> "rejected"))
+      .isInstanceOf(RejectedExecutionException.class);
+    assertThat(
+      meterRegistry.get("auth.password.hashing.rejected").counter().count()
+    )
+      .isEqualTo(1.0);
+
+    release.countDown();
+    running.get(5, TimeUnit.SECONDS);
+    assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("queued");
+  }
+
+  @Test
+  @DisplayName("should time encode and matches separately")
+  void timedEncoder_shouldRecordLatency() {
+    TimedPasswordEncoder encoder = new TimedPasswordEncoder(
+      new BCryptPasswordEncoder(4),
+      meterRegistry
+    );
+
+    String hash = encoder.encode("secret");
+    assertThat(encoder.matches("secret", hash)).isTrue();
+
+    assertThat(
+      meterRegistry
+        .get("auth.password.hashing.time")
+        .tag("operation", "encode")
+        .timer()
+        .count()
+    )
+      .isEqualTo(1);
+    assertThat(
+      meterRegistry
+        .get("auth.password.hashing.time")
+        .tag("operation", "matches")
+        .timer()
+        .count()
+    )
+      .isEqualTo(1);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
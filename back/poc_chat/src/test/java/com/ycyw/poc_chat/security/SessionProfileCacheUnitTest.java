@@ -0,0 +1,91 @@
+package com.ycyw.poc_chat.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+import com.ycyw.poc_chat.model.UserProfile;
+import com.ycyw.poc_chat.repository.UserProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SessionProfileCacheUnitTest {
+
+  @Mock
+  private UserProfileRepository userProfileRepository;
+
+  private SessionProfileCache cache;
+
+  @BeforeEach
+  void setUp() {
+    cache = new SessionProfileCache(userProfileRepository);
+    given(userProfileRepository.findByUserCredentialId(1L))
+      .willReturn(UserProfile.builder().id(42L).firstName("Alice").build());
+  }
+
+  @Test
+  @DisplayName("should load profile once for all sessions of a user")
+  void register_shouldLoadOncePerUser() {
+    cache.register("s1", 1L);
+    cache.register("s2", 1L);
+
+    ProfileSnapshot snapshot = cache.get(1L);
+
+    assertThat(snapshot.getId()).isEqualTo(42L);
+    assertThat(snapshot.getFirstName()).isEqualTo("Alice");
+    then(userProfileRepository).should(times(1)).findByUserCredentialId(1L);
+  }
+
+  @Test
+  @DisplayName("should forget profile when last session disconnects")
+  void unregister_shouldEvictAfterLastSession() {
+    cache.register("s1", 1L);
+    cache.register("s2", 1L);
+
+    cache.unregister("s1");
+    assertThat(cache.cachedUsers()).isEqualTo(1);
+    cache.unregister("s2");
+    cache.unregister("s2");
+
+    assertThat(cache.cachedUsers()).isZero();
+  }
+
+  @Test
+  @DisplayName("should replace snapshot on profile update without reading DB")
+  void refresh_shouldReplaceSnapshot() {
+    cache.register("s1", 1L);
+
+    cache.refresh(1L, UserProfile.builder().id(42L).firstName("Bob").build());
+
+    assertThat(cache.get(1L).getFirstName()).isEqualTo("Bob");
+    then(userProfileRepository).should(times(1)).findByUserCredentialId(1L);
+  }
+
+  @Test
+  @DisplayName("given no session, should load from DB without caching")
+  void get_withoutSession_shouldNotCache() {
+    assertThat(cache.get(1L).getId()).isEqualTo(42L);
+    cache.refresh(1L, UserProfile.builder().id(42L).firstName("Bob").build());
+
+    assertThat(cache.cachedUsers()).isZero();
+    assertThat(cache.get(1L).getFirstName()).isEqualTo("Alice");
+  }
+
+  @Test
+  @DisplayName("given unknown profile, should register nothing")
+  void register_unknownProfile_shouldReturnNull() {
+    assertThat(cache.register("s9", 9L)).isNull();
+    cache.unregister("s9");
+
+    assertThat(cache.cachedUsers()).isZero();
+  }
+}
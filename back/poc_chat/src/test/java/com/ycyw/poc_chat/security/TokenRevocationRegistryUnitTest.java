@@ -0,0 +1,90 @@
+package com.ycyw.poc_chat.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+
+import com.ycyw.poc_chat.repository.UserCredentialRepository;
+import com.ycyw.poc_chat.repository.UserCredentialRepository.TokenGeneration;
+import jakarta.persistence.EntityNotFoundException;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TokenRevocationRegistryUnitTest {
+
+  @Mock
+  private UserCredentialRepository credentialRepository;
+
+  @InjectMocks
+  private TokenRevocationRegistry registry;
+
+  private static VerifiedToken token(long userId, int generation) {
+    return new VerifiedToken(userId, "a@b.c", "USER", generation, 0L);
+  }
+
+  @Test
+  @DisplayName("should reject tokens older than the refreshed generation")
+  void refresh_shouldLoadGenerations() {
+    TokenGeneration g = new TokenGeneration() {
+      public Long getId() {
+        return 1L;
+      }
+
+      public Integer getTokenGeneration() {
+        return 2;
+      }
+    };
+    given(credentialRepository.findRevokedTokenGenerations())
+      .willReturn(List.of(g));
+
+    registry.refresh();
+
+    assertThat(registry.isRevoked(token(1L, 1))).isTrue();
+    assertThat(registry.isRevoked(token(1L, 2))).isFalse();
+    assertThat(registry.isRevoked(token(3L, 0))).isFalse();
+    assertThat(registry.currentGeneration(1L)).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("should revoke immediately on this instance")
+  void revokeAll_shouldBumpLocalGeneration() {
+    given(credentialRepository.incrementTokenGeneration(1L)).willReturn(1);
+    given(credentialRepository.findTokenGenerationById(1L))
+      .willReturn(Optional.of(3));
+
+    registry.revokeAll(1L);
+
+    assertThat(registry.isRevoked(token(1L, 2))).isTrue();
+    assertThat(registry.currentGeneration(1L)).isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("should issue new tokens with the generation stored in database")
+  void generationForNewToken_shouldReadDatabase() {
+    given(credentialRepository.findTokenGenerationById(1L))
+      .willReturn(Optional.of(2));
+
+    assertThat(registry.generationForNewToken(1L)).isEqualTo(2);
+    assertThat(registry.isRevoked(token(1L, 1))).isTrue();
+  }
+
+  @Test
+  @DisplayName("given unknown user, should throw")
+  void revokeAll_unknownUser_shouldThrow() {
+    given(credentialRepository.incrementTokenGeneration(9L)).willReturn(0);
+
+    assertThatThrownBy(() -> registry.revokeAll(9L))
+      .isInstanceOf(EntityNotFoundException.class);
+    assertThat(registry.currentGeneration(9L)).isZero();
+  }
+}
@@ -3,18 +3,29 @@ package com.ycyw.poc_chat.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
+import com.ycyw.poc_chat.dto.ChatMessageDTO;
+import com.ycyw.poc_chat.dto.DialogDTO;
+import com.ycyw.poc_chat.lifecycle.DialogStateCache;
+import com.ycyw.poc_chat.lifecycle.DialogUpdateFeed;
 import com.ycyw.poc_chat.mapper.DialogMapper;
 import com.ycyw.poc_chat.model.ChatMessage;
 import com.ycyw.poc_chat.model.Dialog;
+import com.ycyw.poc_chat.model.DialogReadCursor;
+import com.ycyw.poc_chat.model.DialogReadCursorId;
 import com.ycyw.poc_chat.model.DialogStatus;
 import com.ycyw.poc_chat.model.MessageType;
 import com.ycyw.poc_chat.model.UserProfile;
+import com.ycyw.poc_chat.persistence.DialogSequencer;
 import com.ycyw.poc_chat.repository.ChatMessageRepository;
+import com.ycyw.poc_chat.repository.DialogReadCursorRepository;
 import com.ycyw.poc_chat.repository.DialogRepository;
 import com.ycyw.poc_chat.repository.UserProfileRepository;
 import jakarta.persistence.EntityNotFoundException;
@@ -30,6 +41,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -47,6 +60,18 @@ class DialogServiceUnitTest {
   @Mock
   private SimpMessagingTemplate messagingTemplate;
 
+  @Mock
+  private DialogStateCache dialogStateCache;
+
+  @Mock
+  private DialogReadCursorRepository readCursorRepository;
+
+  @Mock
+  private DialogSequencer dialogSequencer;
+
+  @Mock
+  private DialogUpdateFeed dialogUpdateFeed;
+
   @InjectMocks
   private DialogService dialogService;
 
@@ -97,26 +122,44 @@ class DialogServiceUnitTest {
         .extracting(UserProfile::getId)
         .contains(7L);
     }
+
+    @Test
+    @DisplayName("within a transaction, should notify the feed only after commit")
+    void inTransaction_shouldNotifyAfterCommit() {
+      given(dialogRepository.save(any(Dialog.class)))
+        .willAnswer(inv -> {
+          Dialog d = inv.getArgument(0);
+          d.setId(5L);
+          return d;
+        });
+      TransactionSynchronizationManager.initSynchronization();
+      try {
+        dialogService.createDialog("t", 7L);
+        then(dialogUpdateFeed).shouldHaveNoInteractions();
+
+        TransactionSynchronizationManager
+          .getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+      } finally {
+        TransactionSynchronizationManager.clearSynchronization();
+      }
+
+      then(dialogUpdateFeed)
+        .should()
+        .statusChanged(eq(5L), eq(DialogStatus.PENDING), any());
+    }
   }
 
   @Nested
   @DisplayName("sendMessage")
   class SendMessageTests {
 
-    private Dialog dialog;
-    private UserProfile profile;
-
     @BeforeEach
     void init() {
-      profile = UserProfile.builder().id(42L).build();
-      dialog =
-        Dialog
-          .builder()
-          .id(9L)
-          .status(DialogStatus.PENDING)
-          .participants(new HashSet<>())
-          .build();
-      given(dialogRepository.findById(9L)).willReturn(Optional.of(dialog));
+      given(dialogRepository.getReferenceById(9L))
+        .willReturn(Dialog.builder().id(9L).build());
+      given(messageRepository.save(any(ChatMessage.class)))
+        .willAnswer(inv -> inv.getArgument(0));
     }
 
     @Test
@@ -124,22 +167,38 @@ class DialogServiceUnitTest {
       "when client sends message and dialog closed, reopen and add participant"
     )
     void clientWhenClosed_shouldReopenAndAddParticipant() {
-      dialog.setStatus(DialogStatus.CLOSED);
-      given(messageRepository.save(any(ChatMessage.class)))
-        .willAnswer(inv -> inv.getArgument(0));
+      given(
+        dialogStateCache.transition(9L, DialogStatus.CLOSED, DialogStatus.PENDING)
+      )
+        .willReturn(true);
+      given(dialogStateCache.addParticipant(9L, 42L)).willReturn(true);
+      given(dialogSequencer.next(9L)).willReturn(3L);
 
       ChatMessage msg = dialogService.sendMessage(9L, 42L, "Hi", true);
 
-      assertThat(dialog.getStatus()).isEqualTo(DialogStatus.PENDING);
-      assertThat(dialog.getClosedAt()).isNull();
-      assertThat(dialog.getParticipants())
-        .extracting(UserProfile::getId)
-        .contains(42L);
       assertThat(msg.getContent()).isEqualTo("Hi");
       assertThat(msg.getType()).isEqualTo(MessageType.CHAT);
+      assertThat(msg.getSeq()).isEqualTo(3L);
+      assertThat(msg.getDialog().getId()).isEqualTo(9L);
+      then(dialogRepository).should().addParticipant(9L, 42L);
+      then(dialogRepository).should(never()).findById(any());
+      then(dialogRepository).should(never()).save(any());
+      then(dialogStateCache).should(never()).touch(9L);
       then(messageRepository).should().save(any(ChatMessage.class));
     }
 
+    @Test
+    @DisplayName(
+      "when status and participants are unchanged, should only touch the cache"
+    )
+    void clientWhenPending_shouldOnlyTouch() {
+      dialogService.sendMessage(9L, 42L, "Again", true);
+
+      then(dialogStateCache).should().touch(9L);
+      then(dialogRepository).should(never()).addParticipant(any(), any());
+      then(dialogUpdateFeed).shouldHaveNoInteractions();
+    }
+
     @Test
     @DisplayName(
       "when agent sends message, should open dialog if pending and add participant"
@@ -148,8 +207,11 @@ class DialogServiceUnitTest {
       // agent = isClient false
       given(userProfileRepository.getReferenceById(100L))
         .willReturn(UserProfile.builder().id(100L).build());
-      given(messageRepository.save(any(ChatMessage.class)))
-        .willAnswer(inv -> inv.getArgument(0));
+      given(
+        dialogStateCache.transition(9L, DialogStatus.PENDING, DialogStatus.OPEN)
+      )
+        .willReturn(true);
+      given(dialogStateCache.addParticipant(9L, 100L)).willReturn(true);
 
       ChatMessage msg = dialogService.sendMessage(
         9L,
@@ -158,21 +220,19 @@ class DialogServiceUnitTest {
         false
       );
 
-      assertThat(dialog.getStatus()).isEqualTo(DialogStatus.OPEN);
-      assertThat(dialog.getParticipants())
-        .extracting(UserProfile::getId)
-        .contains(100L);
       assertThat(msg.getSender().getId()).isEqualTo(100L);
+      then(dialogRepository).should().addParticipant(9L, 100L);
       then(messageRepository).should().save(any(ChatMessage.class));
     }
 
     @Test
     @DisplayName("when dialog not found, should throw")
     void whenNotFound_shouldThrow() {
-      given(dialogRepository.findById(99L)).willReturn(Optional.empty());
+      given(dialogStateCache.get(99L)).willThrow(new NoSuchElementException());
       assertThatThrownBy(() -> dialogService.sendMessage(99L, 1L, "", false))
         .isInstanceOf(RuntimeException.class)
         .hasMessageContaining("Dialog not found");
+      then(messageRepository).shouldHaveNoInteractions();
     }
   }
 
@@ -181,34 +241,36 @@ class DialogServiceUnitTest {
   class CloseDialogTests {
 
     @Test
-    @DisplayName("when open, should close and save")
-    void whenOpen_shouldCloseAndSave() {
-      Dialog d = Dialog.builder().id(5L).status(DialogStatus.OPEN).build();
-      given(dialogRepository.findById(5L)).willReturn(Optional.of(d));
-      given(dialogRepository.save(any(Dialog.class)))
-        .willAnswer(inv -> inv.getArgument(0));
+    @DisplayName("when open, should close through the cache and write at once")
+    void whenOpen_shouldCloseAndFlush() {
+      Dialog closed = Dialog.builder().id(5L).status(DialogStatus.CLOSED).build();
+      given(dialogStateCache.close(5L)).willReturn(true);
+      given(dialogRepository.findById(5L)).willReturn(Optional.of(closed));
 
       Dialog result = dialogService.closeDialog(5L);
 
-      assertThat(result.getStatus()).isEqualTo(DialogStatus.CLOSED);
-      assertThat(result.getClosedAt()).isNotNull();
-      then(dialogRepository).should().save(d);
+      assertThat(result).isSameAs(closed);
+      InOrder inOrder = inOrder(dialogStateCache, dialogRepository);
+      inOrder.verify(dialogStateCache).close(5L);
+      inOrder.verify(dialogStateCache).flush(5L);
+      inOrder.verify(dialogRepository).findById(5L);
+      then(dialogRepository).should(never()).save(any(Dialog.class));
     }
 
     @Test
-    @DisplayName("when already closed, should throw")
+    @DisplayName("when already closed in the cache, should throw")
     void whenAlreadyClosed_shouldThrow() {
-      Dialog d = Dialog.builder().id(6L).status(DialogStatus.CLOSED).build();
-      given(dialogRepository.findById(6L)).willReturn(Optional.of(d));
+      given(dialogStateCache.close(6L)).willReturn(false);
       assertThatThrownBy(() -> dialogService.closeDialog(6L))
         .isInstanceOf(RuntimeException.class)
         .hasMessage("Dialog already closed");
+      then(dialogStateCache).should(never()).flush(6L);
     }
 
     @Test
     @DisplayName("when not found, should throw")
     void whenNotFound_shouldThrow() {
-      given(dialogRepository.findById(8L)).willReturn(Optional.empty());
+      given(dialogStateCache.close(8L)).willThrow(new NoSuchElementException());
       assertThatThrownBy(() -> dialogService.closeDialog(8L))
         .isInstanceOf(RuntimeException.class)
         .hasMessageContaining("Dialog not found");
@@ -220,26 +282,37 @@ class DialogServiceUnitTest {
   class InviteUserTests {
 
     @Test
-    @DisplayName("should add participant and send invite")
+    @DisplayName("should add participant through the cache and send invite")
     void shouldAddAndNotify() {
-      Dialog d = Dialog.builder().id(11L).participants(new HashSet<>()).build();
-      given(dialogRepository.findById(11L)).willReturn(Optional.of(d));
-      UserProfile u = UserProfile.builder().id(22L).build();
-      given(userProfileRepository.findById(22L)).willReturn(Optional.of(u));
+      given(userProfileRepository.existsById(22L)).willReturn(true);
+      given(dialogStateCache.addParticipant(11L, 22L)).willReturn(true);
 
       dialogService.inviteUser(11L, 22L);
 
-      assertThat(d.getParticipants()).contains(u);
-      then(dialogRepository).should().save(d);
+      then(dialogRepository).should().addParticipant(11L, 22L);
+      then(dialogStateCache).should().touch(11L);
+      then(dialogRepository).should(never()).save(any(Dialog.class));
       then(messagingTemplate)
         .should()
         .convertAndSend(eq("/topic/dialog/11/invites"), any(Map.class));
     }
 
+    @Test
+    @DisplayName("when already a participant, should do nothing")
+    void whenAlreadyParticipant_shouldNotWrite() {
+      given(userProfileRepository.existsById(22L)).willReturn(true);
+      given(dialogStateCache.addParticipant(11L, 22L)).willReturn(false);
+
+      dialogService.inviteUser(11L, 22L);
+
+      then(dialogRepository).should(never()).addParticipant(anyLong(), anyLong());
+      then(messagingTemplate).shouldHaveNoInteractions();
+    }
+
     @Test
     @DisplayName("when dialog not found, should throw EntityNotFoundException")
     void whenDialogNotFound_shouldThrow() {
-      given(dialogRepository.findById(33L)).willReturn(Optional.empty());
+      given(dialogStateCache.get(33L)).willThrow(new NoSuchElementException());
       assertThatThrownBy(() -> dialogService.inviteUser(33L, 1L))
         .isInstanceOf(EntityNotFoundException.class);
     }
@@ -247,11 +320,10 @@ class DialogServiceUnitTest {
     @Test
     @DisplayName("when user not found, should throw EntityNotFoundException")
     void whenUserNotFound_shouldThrow() {
-      Dialog d = Dialog.builder().id(44L).participants(new HashSet<>()).build();
-      given(dialogRepository.findById(44L)).willReturn(Optional.of(d));
-      given(userProfileRepository.findById(55L)).willReturn(Optional.empty());
+      given(userProfileRepository.existsById(55L)).willReturn(false);
       assertThatThrownBy(() -> dialogService.inviteUser(44L, 55L))
         .isInstanceOf(EntityNotFoundException.class);
+      then(dialogStateCache).should(never()).addParticipant(anyLong(), anyLong());
     }
   }
 
@@ -260,23 +332,101 @@ class DialogServiceUnitTest {
   class MarkMessagesAsReadTests {
 
     @Test
-    @DisplayName("should mark unread and notify")
-    void shouldMarkReadAndNotify() {
-      ChatMessage m1 = ChatMessage.builder().isRead(false).build();
-      ChatMessage m2 = ChatMessage.builder().isRead(false).build();
-      given(
-        messageRepository.findByDialog_IdAndSender_IdNotAndIsReadFalse(7L, 2L)
-      )
-        .willReturn(Arrays.asList(m1, m2));
+    @DisplayName("should advance reader cursor to last message and notify")
+    void shouldAdvanceCursorAndNotify() {
+      given(messageRepository.findLastSeq(7L)).willReturn(42L);
+      given(readCursorRepository.countUnread(7L, 2L)).willReturn(3L);
 
-      dialogService.markMessagesAsRead(7L, 2L);
+      long unread = dialogService.markMessagesAsRead(7L, 2L);
 
-      assertThat(m1.getIsRead()).isTrue();
-      assertThat(m2.getIsRead()).isTrue();
-      then(messageRepository).should().saveAll(Arrays.asList(m1, m2));
+      assertThat(unread).isEqualTo(3L);
+      then(readCursorRepository).should().advance(7L, 2L, 42L);
+      then(messageRepository).should(Mockito.never()).saveAll(any());
+      then(messagingTemplate)
+        .should()
+        .convertAndSend(
+          "/topic/dialog/7/read",
+          Map.of(
+            "dialogId",
+            7L,
+            "readerId",
+            2L,
+            "count",
+            3L,
+            "lastReadSeq",
+            42L
+          )
+        );
+    }
+
+    @Test
+    @DisplayName("given empty dialog, should not write cursor and notify zero")
+    void givenEmptyDialog_shouldSkipCursor() {
+      given(messageRepository.findLastSeq(7L)).willReturn(null);
+
+      long unread = dialogService.markMessagesAsRead(7L, 2L);
+
+      assertThat(unread).isZero();
+      then(readCursorRepository).shouldHaveNoInteractions();
       then(messagingTemplate)
         .should()
         .convertAndSend(eq("/topic/dialog/7/read"), any(Map.class));
     }
   }
+
+  @Nested
+  @DisplayName("applyReadState")
+  class ApplyReadStateTests {
+
+    private ChatMessageDTO message(long id, long seq, String sender) {
+      return ChatMessageDTO.builder().id(id).seq(seq).sender(sender).build();
+    }
+
+    private DialogReadCursor cursor(long dialogId, long profileId, long last) {
+      return new DialogReadCursor(
+        new DialogReadCursorId(dialogId, profileId),
+        last
+      );
+    }
+
+    @Test
+    @DisplayName("given reader, should flag own messages and those under cursor")
+    void givenReader_shouldUseReaderCursor() {
+      // IDs alloués par blocs : sans rapport avec l'ordre d'envoi
+      List<ChatMessageDTO> messages = List.of(
+        message(300, 1, "1"),
+        message(200, 2, "2"),
+        message(100, 3, "1")
+      );
+      given(readCursorRepository.findByIdUserProfileId(2L))
+        .willReturn(List.of(cursor(7L, 2L, 1L)));
+
+      dialogService.applyReadState(7L, messages, 2L);
+
+      assertThat(messages)
+        .extracting(ChatMessageDTO::getIsRead)
+        .containsExactly(true, true, false);
+    }
+
+    @Test
+    @DisplayName("given no reader, should flag messages read by another participant")
+    void givenNoReader_shouldUseOtherParticipantsCursors() {
+      DialogDTO dialog = new DialogDTO();
+      dialog.setId(7L);
+      dialog.setMessages(new HashSet<>(List.of(message(1, 1, "1"), message(2, 2, "2"))));
+      given(readCursorRepository.findByIdDialogIdIn(Set.of(7L)))
+        .willReturn(List.of(cursor(7L, 1L, 2L)));
+
+      dialogService.applyReadState(List.of(dialog), null);
+
+      assertThat(dialog.getMessages())
+        .filteredOn(m -> m.getId() == 1L)
+        .extracting(ChatMessageDTO::getIsRead)
+        .containsExactly(false);
+      assertThat(dialog.getMessages())
+        .filteredOn(m -> m.getId() == 2L)
+        .extracting(ChatMessageDTO::getIsRead)
+        .containsExactly(true);
+    }
+  }
 }
@@ -0,0 +1,21 @@
+-- Migration d'une base existante : numéros de séquence réservés sur la
+-- ligne du dialogue (mode relay, plusieurs nœuds) et unicité de
+-- (dialog_id, seq). Suppose message_seq.sql déjà appliqué.
+-- À exécuter application arrêtée :
+--   mysql -u root -p YCYW < bdd/migrations/dialog_seq.sql
+USE YCYW;
+
+ALTER TABLE dialogs ADD COLUMN last_seq BIGINT NOT NULL DEFAULT 0;
+
+UPDATE dialogs d
+SET d.last_seq = COALESCE(
+  (SELECT MAX(m.seq) FROM messages m WHERE m.dialog_id = d.id),
+  0
+);
+
+-- Échoue si des doublons ont déjà été écrits (plusieurs nœuds en mode
+-- relay) : les lister avec
+--   SELECT dialog_id, seq, COUNT(*) FROM messages
+--   GROUP BY dialog_id, seq HAVING COUNT(*) > 1;
+ALTER TABLE messages DROP INDEX idx_messages_dialog_seq,
+  ADD UNIQUE INDEX idx_messages_dialog_seq (dialog_id, seq);
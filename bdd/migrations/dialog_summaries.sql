@@ -0,0 +1,7 @@
+-- Index des résumés du tableau de bord : la page de dialogues est lue
+-- dans l'ordre (last_activity_at DESC, id DESC) sans tri complet.
+-- À exécuter application arrêtée :
+--   mysql -u root -p YCYW < bdd/migrations/dialog_summaries.sql
+USE YCYW;
+
+CREATE INDEX idx_dialogs_last_activity ON dialogs(last_activity_at, id);
@@ -0,0 +1,18 @@
+-- Migration d'une base existante : numéro de séquence des messages
+-- par dialogue (ordre stable, reprise des clients après une coupure).
+-- À exécuter application arrêtée :
+--   mysql -u root -p YCYW < bdd/migrations/message_seq.sql
+USE YCYW;
+
+ALTER TABLE messages ADD COLUMN seq BIGINT NULL;
+
+-- Les messages existants sont numérotés dans l'ordre (timestamp, id)
+UPDATE messages m
+JOIN (
+  SELECT id,
+    ROW_NUMBER() OVER (PARTITION BY dialog_id ORDER BY timestamp, id) AS rn
+  FROM messages
+) numbered ON numbered.id = m.id
+SET m.seq = numbered.rn;
+
+CREATE INDEX idx_messages_dialog_seq ON messages(dialog_id, seq);
@@ -0,0 +1,20 @@
+-- Migration d'une base existante vers l'allocation d'IDs par blocs
+-- (@PooledSequence). À exécuter application arrêtée :
+--   mysql -u root -p YCYW < bdd/migrations/pooled_ids.sql
+-- Avec l'optimiseur pooled-lo, next_val est la borne basse du prochain
+-- bloc : MAX(id) + 1 suffit quelle que soit la taille de bloc.
+-- user_profiles reste en IDENTITY : l'id du profil doit rester égal à
+-- celui de l'identifiant (user_credentials).
+USE YCYW;
+
+CREATE TABLE IF NOT EXISTS messages_seq (
+    next_val BIGINT NOT NULL
+);
+DELETE FROM messages_seq;
+INSERT INTO messages_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM messages;
+
+CREATE TABLE IF NOT EXISTS dialogs_seq (
+    next_val BIGINT NOT NULL
+);
+DELETE FROM dialogs_seq;
+INSERT INTO dialogs_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM dialogs;
@@ -0,0 +1,31 @@
+-- Migration d'une base existante vers les curseurs de lecture par
+-- participant (remplace le drapeau messages.is_read).
+-- À exécuter application arrêtée :
+--   mysql -u root -p YCYW < bdd/migrations/read_cursor.sql
+USE YCYW;
+
+CREATE TABLE IF NOT EXISTS dialog_read_cursor (
+    dialog_id BIGINT NOT NULL,
+    user_profile_id BIGINT NOT NULL,
+    last_read_message_id BIGINT NOT NULL,
+    PRIMARY KEY (dialog_id, user_profile_id),
+    FOREIGN KEY (dialog_id) REFERENCES dialogs(id) ON DELETE CASCADE,
+    FOREIGN KEY (user_profile_id) REFERENCES user_profiles(id) ON DELETE CASCADE
+);
+
+-- Chaque participant est considéré avoir lu jusqu'au dernier message
+-- lu d'un autre expéditeur que lui
+INSERT INTO dialog_read_cursor (dialog_id, user_profile_id, last_read_message_id)
+SELECT r.dialog_id, r.user_profile_id, MAX(m.id)
+FROM rel_user_dialog r
+JOIN messages m ON m.dialog_id = r.dialog_id
+  AND m.sender_id <> r.user_profile_id
+  AND m.is_read = TRUE
+GROUP BY r.dialog_id, r.user_profile_id
+ON DUPLICATE KEY UPDATE
+  last_read_message_id = GREATEST(last_read_message_id, VALUES(last_read_message_id));
+
+ALTER TABLE messages DROP INDEX idx_messages_dialog_id,
+  ADD INDEX idx_messages_dialog_id (dialog_id, id);
+
+ALTER TABLE messages DROP COLUMN is_read;
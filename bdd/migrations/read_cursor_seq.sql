@@ -0,0 +1,25 @@
+-- Migration d'une base existante : curseurs de lecture exprimés en
+-- numéro de séquence du message (les IDs alloués par blocs ne suivent
+-- pas l'ordre d'envoi). Suppose message_seq.sql déjà appliqué.
+-- À exécuter application arrêtée :
+--   mysql -u root -p YCYW < bdd/migrations/read_cursor_seq.sql
+USE YCYW;
+
+ALTER TABLE dialog_read_cursor ADD COLUMN last_read_seq BIGINT NOT NULL DEFAULT 0;
+
+-- Le curseur couvre les mêmes messages qu'avant : seq du dernier message
+-- d'ID inférieur ou égal à l'ancien curseur
+UPDATE dialog_read_cursor c
+SET c.last_read_seq = COALESCE(
+  (
+    SELECT MAX(m.seq)
+    FROM messages m
+    WHERE m.dialog_id = c.dialog_id
+    AND m.id <= c.last_read_message_id
+  ),
+  0
+);
+
+ALTER TABLE dialog_read_cursor
+  ALTER COLUMN last_read_seq DROP DEFAULT,
+  DROP COLUMN last_read_message_id;
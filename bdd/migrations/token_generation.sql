@@ -0,0 +1,7 @@
+-- Migration d'une base existante : génération des tokens JWT
+-- (révocation en mode d'authentification sans état).
+--   mysql -u root -p YCYW < bdd/migrations/token_generation.sql
+USE YCYW;
+
+ALTER TABLE user_credentials
+  ADD COLUMN token_generation INT NOT NULL DEFAULT 0;
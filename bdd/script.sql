@@ -6,7 +6,8 @@ CREATE TABLE user_credentials (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     email VARCHAR(255) NOT NULL UNIQUE,
     password VARCHAR(255) NOT NULL,
-    role ENUM('USER', 'AGENT', 'ADMIN') NOT NULL
+    role ENUM('USER', 'AGENT', 'ADMIN') NOT NULL,
+    token_generation INT NOT NULL DEFAULT 0
 );
 -- Table user_profiles
 CREATE TABLE user_profiles (
@@ -25,20 +26,33 @@ CREATE TABLE dialogs (
     status ENUM('OPEN', 'PENDING', 'CLOSED') NOT NULL,
     created_at DATETIME NOT NULL,
     closed_at DATETIME,
-    last_activity_at DATETIME NOT NULL
+    last_activity_at DATETIME NOT NULL,
+    -- Dernier numéro de séquence réservé (mode relay)
+    last_seq BIGINT NOT NULL DEFAULT 0
 );
 -- Table messages
 CREATE TABLE messages (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     dialog_id BIGINT NOT NULL,
     timestamp DATETIME NOT NULL,
-    is_read BOOLEAN NOT NULL DEFAULT FALSE,
     content TEXT NOT NULL,
     sender_id BIGINT NOT NULL,
     type ENUM('CHAT','INFO','SYSTEM') NOT NULL DEFAULT CHAT,
+    seq BIGINT NULL,
     FOREIGN KEY (dialog_id) REFERENCES dialogs(id) ON DELETE CASCADE,
     FOREIGN KEY (sender_id) REFERENCES user_profiles(id) ON DELETE CASCADE
 );
+-- Séquence des messages (émulée par table, IDs alloués par blocs)
+CREATE TABLE messages_seq (
+    next_val BIGINT NOT NULL
+);
+INSERT INTO messages_seq (next_val) VALUES (1);
+
+CREATE TABLE dialogs_seq (
+    next_val BIGINT NOT NULL
+);
+INSERT INTO dialogs_seq (next_val) VALUES (1);
+
 -- Table rel_user_dialog
 CREATE TABLE rel_user_dialog (
     dialog_id BIGINT NOT NULL,
@@ -47,10 +61,26 @@ CREATE TABLE rel_user_dialog (
     FOREIGN KEY (dialog_id) REFERENCES dialogs(id) ON DELETE CASCADE,
     FOREIGN KEY (user_profile_id) REFERENCES user_profiles(id) ON DELETE CASCADE
 );
+-- Table dialog_read_cursor : seq du dernier message lu par participant
+CREATE TABLE dialog_read_cursor (
+    dialog_id BIGINT NOT NULL,
+    user_profile_id BIGINT NOT NULL,
+    last_read_seq BIGINT NOT NULL,
+    PRIMARY KEY (dialog_id, user_profile_id),
+    FOREIGN KEY (dialog_id) REFERENCES dialogs(id) ON DELETE CASCADE,
+    FOREIGN KEY (user_profile_id) REFERENCES user_profiles(id) ON DELETE CASCADE
+);
 
 -- Indexes pour les performances
 CREATE INDEX idx_user_profiles_user_id ON user_profiles(user_id);
-CREATE INDEX idx_messages_dialog_id ON messages(dialog_id);
+CREATE INDEX idx_messages_dialog_id ON messages(dialog_id, id);
 CREATE INDEX idx_messages_sender_id ON messages(sender_id);
 CREATE INDEX idx_dialogs_status ON dialogs(status);
+-- Résumés du tableau de bord : page lue dans l'ordre de l'index
+CREATE INDEX idx_dialogs_last_activity ON dialogs(last_activity_at, id);
 CREATE INDEX idx_messages_timestamp ON messages(timestamp);
+-- Pagination par clé de l'historique : (dialog_id, timestamp, id)
+CREATE INDEX idx_messages_dialog_timestamp_id ON messages(dialog_id, timestamp, id);
+-- Numéro de séquence par dialogue (reprise après reconnexion, non lus :
+-- COUNT(seq > curseur) par plage)
+CREATE UNIQUE INDEX idx_messages_dialog_seq ON messages(dialog_id, seq);
@@ -15,16 +15,26 @@ INSERT INTO dialogs (id, topic, status, created_at, closed_at) VALUES
 (1, 'Modifier une date de départ', 'CLOSED', '2025-04-12T12:12:00', '2025-04-12T12:20:00');
 
 -- Ajout dans messages
-INSERT INTO messages (id, dialog_id, timestamp, is_read, content, sender_id) VALUES
-(1, 1, '2025-04-12T12:12:00', TRUE, 'Je souhaite de l''aide pour modifier une date de départ', 2),
-(2, 1, '2025-04-12T12:13:00', TRUE, 'Bonjour Tom, je suis Sabrina en charge de votre dossier AB123456. Pouvez-vous me donner plus de renseignements ?', 1),
-(3, 1, '2025-04-12T12:14:00', TRUE, 'J''ai fait une erreur, la date de départ sera le 18/04 au lieu du 28/04', 2),
-(4, 1, '2025-04-12T12:15:00', TRUE, 'Les modifications dans un délai supérieur à 48h ne sont pas un problème et n''engendrent aucun frais, je me charge de votre modification', 1),
-(5, 1, '2025-04-12T12:16:00', TRUE, 'Merci, quelle est la démarche ?', 2),
-(6, 1, '2025-04-12T12:17:00', TRUE, 'La modification a été effectuée sur votre réservation AB123456. La nouvelle date de départ est le 18/04. Avez-vous besoin d''autre renseignement ?', 1),
-(7, 1, '2025-04-12T12:18:00', TRUE, 'Merci, c''est parfait.', 2);
+INSERT INTO messages (id, dialog_id, timestamp, content, sender_id, seq) VALUES
+(1, 1, '2025-04-12T12:12:00', 'Je souhaite de l''aide pour modifier une date de départ', 2, 1),
+(2, 1, '2025-04-12T12:13:00', 'Bonjour Tom, je suis Sabrina en charge de votre dossier AB123456. Pouvez-vous me donner plus de renseignements ?', 1, 2),
+(3, 1, '2025-04-12T12:14:00', 'J''ai fait une erreur, la date de départ sera le 18/04 au lieu du 28/04', 2, 3),
+(4, 1, '2025-04-12T12:15:00', 'Les modifications dans un délai supérieur à 48h ne sont pas un problème et n''engendrent aucun frais, je me charge de votre modification', 1, 4),
+(5, 1, '2025-04-12T12:16:00', 'Merci, quelle est la démarche ?', 2, 5),
+(6, 1, '2025-04-12T12:17:00', 'La modification a été effectuée sur votre réservation AB123456. La nouvelle date de départ est le 18/04. Avez-vous besoin d''autre renseignement ?', 1, 6),
+(7, 1, '2025-04-12T12:18:00', 'Merci, c''est parfait.', 2, 7);
 
 -- Ajout dans rel_user_dialog
 INSERT INTO rel_user_dialog (dialog_id, user_profile_id) VALUES
 (1, 1),
 (1, 2);
+
+-- Ajout dans dialog_read_cursor
+INSERT INTO dialog_read_cursor (dialog_id, user_profile_id, last_read_seq) VALUES
+(1, 1, 7),
+(1, 2, 7);
+
+-- Recale les séquences après les insertions à ID explicite
+UPDATE messages_seq SET next_val = (SELECT COALESCE(MAX(id), 0) + 1 FROM messages);
+UPDATE dialogs_seq SET next_val = (SELECT COALESCE(MAX(id), 0) + 1 FROM dialogs);
+UPDATE dialogs d SET last_seq = (SELECT COALESCE(MAX(m.seq), 0) FROM messages m WHERE m.dialog_id = d.id);
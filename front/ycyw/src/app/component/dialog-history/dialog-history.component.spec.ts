@@ -8,8 +8,13 @@ import { DialogHistoryComponent } from './dialog-history.component';
 import { DialogService } from '../../services/dialog.service';
 import { WebsocketService } from '../../services/websocket.service';
 import { UserService } from '../../services/user.service';
-import { DialogDTO, ChatMessageDTO, UserProfileDTO } from '../../dto';
-import { BehaviorSubject, Observable, of } from 'rxjs';
+import {
+  DialogDTO,
+  ChatMessageDTO,
+  DialogUpdateDTO,
+  UserProfileDTO,
+} from '../../dto';
+import { BehaviorSubject, Observable, Subject, of } from 'rxjs';
 import { NoopAnimationsModule } from '@angular/platform-browser/animations';
 import { FormsModule } from '@angular/forms';
 import { HarnessLoader } from '@angular/cdk/testing';
@@ -28,6 +33,7 @@ describe('DialogHistoryComponent', () => {
   const mockUserSubject = new BehaviorSubject<UserProfileDTO | null>(null);
   const mockDialogRefreshSubject = new BehaviorSubject<void>(undefined);
   const mockConnectionSubject = new BehaviorSubject<boolean>(false);
+  let mockDialogUpdatesSubject: Subject<DialogUpdateDTO[]>;
   let mockWebsocketSubscription: any;
 
   beforeEach(async () => {
@@ -38,6 +44,7 @@ describe('DialogHistoryComponent', () => {
       'getDialogById',
       'markDialogMessagesAsRead',
       'onDialogRefresh',
+      'onDialogUpdates',
     ]);
     websocketService = jasmine.createSpyObj('WebsocketService', [
       'subscribeToDialog',
@@ -50,6 +57,10 @@ describe('DialogHistoryComponent', () => {
     dialogService.onDialogRefresh.and.returnValue(
       mockDialogRefreshSubject.asObservable()
     );
+    mockDialogUpdatesSubject = new Subject<DialogUpdateDTO[]>();
+    dialogService.onDialogUpdates.and.returnValue(
+      mockDialogUpdatesSubject.asObservable()
+    );
     websocketService.connectionStatus$ = mockConnectionSubject.asObservable();
     mockWebsocketSubscription = {
       unsubscribe: jasmine.createSpy('unsubscribe'),
@@ -109,6 +120,58 @@ describe('DialogHistoryComponent', () => {
     });
   });
 
+  describe('applyDialogUpdates', () => {
+    const delta = (dialogId: number): DialogUpdateDTO => ({
+      dialogId,
+      status: 'CLOSED',
+      lastActivityAt: '2025-04-12T12:20:00',
+      unread: 0,
+    });
+
+    const init = (type: string) => {
+      mockUserSubject.next({ id: 1, type } as UserProfileDTO);
+      dialogService.getDialogsBySender.and.returnValue(
+        of([
+          { id: 1, status: 'OPEN' } as DialogDTO,
+          { id: 2, status: 'PENDING' } as DialogDTO,
+        ])
+      );
+      dialogService.getDialogsByStatus.and.returnValue(of([]));
+      component.ngOnInit();
+      dialogService.getDialogsBySender.calls.reset();
+    };
+
+    afterEach(() => component.ngOnDestroy());
+
+    it('devrait mettre à jour un dialogue connu sans recharger la liste', () => {
+      init('INDIVIDUAL');
+
+      mockDialogUpdatesSubject.next([delta(1)]);
+
+      let dialogs: DialogDTO[] = [];
+      component.dialogs$.subscribe((d) => (dialogs = d));
+      expect(dialogs.find((d) => d.id === 1)?.status).toBe('CLOSED');
+      expect(dialogs.find((d) => d.id === 2)?.status).toBe('PENDING');
+      expect(dialogService.getDialogsBySender).not.toHaveBeenCalled();
+    });
+
+    it('support : un dialogue inconnu devrait recharger la liste', () => {
+      init('SUPPORT');
+
+      mockDialogUpdatesSubject.next([delta(1), delta(9)]);
+
+      expect(dialogService.getDialogsBySender).toHaveBeenCalledWith(1);
+    });
+
+    it('client : un dialogue inconnu devrait être ignoré', () => {
+      init('INDIVIDUAL');
+
+      mockDialogUpdatesSubject.next([delta(9)]);
+
+      expect(dialogService.getDialogsBySender).not.toHaveBeenCalled();
+    });
+  });
+
   /*describe('loadDialogs', () => {
     beforeEach(() => {
       component.senderId = 1;
@@ -308,6 +371,7 @@ describe('DialogHistoryComponent', () => {
       // Remplacer les propriétés d'abonnement par des espions
       const spies = [
         'refreshSub',
+        'updatesSub',
         'connectionSub',
         'wsDialogSub',
         'intervalSub',
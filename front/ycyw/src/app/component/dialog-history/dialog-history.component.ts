@@ -12,7 +12,12 @@ import { MatInputModule } from '@angular/material/input';
 import { MatFormFieldModule } from '@angular/material/form-field';
 import { MatIconModule } from '@angular/material/icon';
 import { FormsModule } from '@angular/forms';
-import { ChatMessageDTO, DialogDTO, UserProfileDTO } from '../../dto';
+import {
+  ChatMessageDTO,
+  DialogDTO,
+  DialogUpdateDTO,
+  UserProfileDTO,
+} from '../../dto';
 import { DialogService } from '../../services/dialog.service';
 import {
   forkJoin,
@@ -56,6 +61,7 @@ export class DialogHistoryComponent implements OnInit, OnDestroy {
   openDialogs$: Observable<DialogDTO[]> = of([]);
   closedDialogs$: Observable<DialogDTO[]> = of([]);
   private refreshSub: Subscription | null = null;
+  private updatesSub: Subscription | null = null;
   private connectionSub: Subscription | null = null;
   private wsDialogSub: Subscription | null = null;
   private intervalSub: Subscription | null = null;
@@ -94,6 +100,9 @@ export class DialogHistoryComponent implements OnInit, OnDestroy {
     this.refreshSub = this.dialogService.onDialogRefresh().subscribe(() => {
       this.loadDialogs();
     });
+    this.updatesSub = this.dialogService
+      .onDialogUpdates()
+      .subscribe((deltas) => this.applyDialogUpdates(deltas));
     this.connectionSub = this.websocketService.connectionStatus$.subscribe(
       (status) => {
         this.isConnected = status;
@@ -112,6 +121,7 @@ export class DialogHistoryComponent implements OnInit, OnDestroy {
 
   ngOnDestroy(): void {
     this.refreshSub?.unsubscribe();
+    this.updatesSub?.unsubscribe();
     this.connectionSub?.unsubscribe();
     this.wsDialogSub?.unsubscribe();
     this.intervalSub?.unsubscribe();
@@ -153,6 +163,32 @@ export class DialogHistoryComponent implements OnInit, OnDestroy {
     }
   }
 
+  /**
+   * Applique les changements de statut à la liste affichée. Pour le
+   * support, un dialogue inconnu de la liste (nouvelle demande) impose un
+   * rechargement ; un client ignore les dialogues des autres.
+   */
+  applyDialogUpdates(deltas: DialogUpdateDTO[]): void {
+    const dialogs = this.dialogsSubject.getValue();
+    const byId = new Map(deltas.map((delta) => [delta.dialogId, delta]));
+    const updated = dialogs.map((dialog) => {
+      const delta = byId.get(dialog.id);
+      if (!delta) {
+        return dialog;
+      }
+      byId.delete(dialog.id);
+      return {
+        ...dialog,
+        status: delta.status,
+        lastActivityAt: delta.lastActivityAt ?? dialog.lastActivityAt,
+      };
+    });
+    this.dialogsSubject.next(updated);
+    if (byId.size > 0 && this.currentUser?.type === 'SUPPORT') {
+      this.loadDialogs();
+    }
+  }
+
   selectDialog(id: number): void {
     if (!this.currentUser) return;
 
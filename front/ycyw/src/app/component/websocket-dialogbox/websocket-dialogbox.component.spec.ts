@@ -87,6 +87,7 @@ describe('WebsocketDialogboxComponent', () => {
     dialogServiceMock = jasmine.createSpyObj('DialogService', [
       'getDialogById',
       'triggerDialogRefresh',
+      'applyDialogUpdates',
     ]);
     websocketServiceMock = jasmine.createSpyObj('WebsocketService', [
       'initWebsocket',
@@ -273,6 +274,26 @@ describe('WebsocketDialogboxComponent', () => {
       expect(dialogServiceMock.triggerDialogRefresh).toHaveBeenCalled();
     });
 
+    it('should apply dialog update deltas without refreshing', () => {
+      const deltas = [
+        {
+          dialogId: 1,
+          status: 'CLOSED' as const,
+          lastActivityAt: '2025-04-12T12:20:00',
+          unread: 0,
+        },
+      ];
+      websocketServiceMock.subscribeToUpdateChannel.and.callFake((callback) => {
+        callback(deltas);
+        return new Subscription();
+      });
+
+      fixture.detectChanges();
+
+      expect(dialogServiceMock.applyDialogUpdates).toHaveBeenCalledWith(deltas);
+      expect(dialogServiceMock.triggerDialogRefresh).not.toHaveBeenCalled();
+    });
+
     it('should clean up subscriptions on destroy', () => {
       const unsubscribeSpy = spyOn(Subscription.prototype, 'unsubscribe');
 
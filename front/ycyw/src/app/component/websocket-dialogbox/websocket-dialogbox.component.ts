@@ -157,8 +157,12 @@ export class WebsocketDialogboxComponent implements OnInit, OnDestroy {
   }
 
   private subscribeToUpdateChannel() {
-    this.websocketService.subscribeToUpdateChannel(() => {
-      this.dialogService.triggerDialogRefresh();
+    this.websocketService.subscribeToUpdateChannel((deltas) => {
+      if (deltas) {
+        this.dialogService.applyDialogUpdates(deltas);
+      } else {
+        this.dialogService.triggerDialogRefresh();
+      }
     });
   }
 
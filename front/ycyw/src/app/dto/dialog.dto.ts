@@ -13,3 +13,10 @@ export interface DialogDTO {
   participants: UserProfileDTO[];
   messages: ChatMessageDTO[];
 }
+
+export interface DialogUpdateDTO {
+  dialogId: number;
+  status: DialogStatus;
+  lastActivityAt: string;
+  unread: number | null;
+}
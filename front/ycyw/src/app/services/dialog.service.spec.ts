@@ -4,7 +4,7 @@ import {
   HttpTestingController,
 } from '@angular/common/http/testing';
 import { DialogService } from './dialog.service';
-import { DialogDTO } from '../dto';
+import { DialogDTO, DialogUpdateDTO } from '../dto';
 import { take } from 'rxjs/operators';
 
 describe('DialogService', () => {
@@ -146,4 +146,25 @@ describe('DialogService', () => {
       service.triggerDialogRefresh();
     });
   });
+
+  describe('onDialogUpdates & applyDialogUpdates', () => {
+    it('devrait émettre les deltas reçus', (done) => {
+      const deltas: DialogUpdateDTO[] = [
+        {
+          dialogId: 3,
+          status: 'CLOSED',
+          lastActivityAt: '2025-04-12T12:20:00',
+          unread: 0,
+        },
+      ];
+      service
+        .onDialogUpdates()
+        .pipe(take(1))
+        .subscribe((val) => {
+          expect(val).toEqual(deltas);
+          done();
+        });
+      service.applyDialogUpdates(deltas);
+    });
+  });
 });
@@ -1,11 +1,12 @@
 import { HttpClient } from '@angular/common/http';
 import { Injectable } from '@angular/core';
 import { Observable, Subject } from 'rxjs';
-import { DialogDTO } from '../dto';
+import { DialogDTO, DialogUpdateDTO } from '../dto';
 
 @Injectable({ providedIn: 'root' })
 export class DialogService {
   private dialogRefresh$ = new Subject<void>();
+  private dialogUpdates$ = new Subject<DialogUpdateDTO[]>();
 
   constructor(private http: HttpClient) {}
 
@@ -29,6 +30,14 @@ export class DialogService {
     return this.dialogRefresh$.asObservable();
   }
 
+  applyDialogUpdates(deltas: DialogUpdateDTO[]) {
+    this.dialogUpdates$.next(deltas);
+  }
+
+  onDialogUpdates(): Observable<DialogUpdateDTO[]> {
+    return this.dialogUpdates$.asObservable();
+  }
+
   markDialogMessagesAsRead(
     dialogId: number,
     senderId: number
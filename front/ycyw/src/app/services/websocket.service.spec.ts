@@ -210,6 +210,11 @@ describe('WebsocketService', () => {
         shouldCallback: false,
         desc: 'payload JSON with invalid event',
       },
+      {
+        body: JSON.stringify({ type: 'DIALOG_UPDATES', deltas: [] }),
+        shouldCallback: false,
+        desc: 'lot vide',
+      },
       {
         body: '{badJson',
         shouldCallback: false,
@@ -250,6 +255,26 @@ describe('WebsocketService', () => {
         }
       });
     });
+
+    it('lot de changements de statut → deltas transmis sans rechargement', () => {
+      spyOn(console, 'log');
+      const cb = jasmine.createSpy('cb');
+      const deltas = [{ dialogId: 3, status: 'CLOSED', unread: 0 }];
+
+      mockClient.watch.and.returnValue({
+        subscribe: (cbObs: (msg: IMessage) => void) => {
+          cbObs({
+            body: JSON.stringify({ type: 'DIALOG_UPDATES', deltas }),
+          } as any);
+          return { unsubscribe: () => {} } as any;
+        },
+      });
+
+      service.subscribeToUpdateChannel(cb);
+
+      expect(cb).toHaveBeenCalledWith(deltas);
+      expect(console.log).not.toHaveBeenCalledWith('REFRESH LIST');
+    });
   });
 
   describe('createDialog & joinDialog', () => {
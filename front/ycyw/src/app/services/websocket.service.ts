@@ -3,7 +3,7 @@ import { BehaviorSubject, Observable, Subscription } from 'rxjs';
 import { IMessage } from '@stomp/stompjs';
 import { RxStomp } from '@stomp/rx-stomp';
 import { myRxStompConfig } from '../my-rx-stomp.config';
-import { ChatMessageDTO } from '../dto';
+import { ChatMessageDTO, DialogUpdateDTO } from '../dto';
 
 @Injectable({
   providedIn: 'root',
@@ -102,7 +102,14 @@ export class WebsocketService {
     this.sendOrQueue('/app/chat.disconnect', JSON.stringify(payload));
   }
 
-  subscribeToUpdateChannel(callback: () => void): Subscription {
+  /**
+   * Un lot DIALOG_UPDATES est transmis tel quel (deltas à appliquer) ;
+   * les anciens signaux de statut appellent le callback sans deltas
+   * (rechargement complet).
+   */
+  subscribeToUpdateChannel(
+    callback: (deltas?: DialogUpdateDTO[]) => void
+  ): Subscription {
     const validStatuses = ['NEW', 'PENDING', 'OPENED', 'CLOSED'];
 
     return this.client
@@ -117,7 +124,13 @@ export class WebsocketService {
             return;
           }
           const payload = JSON.parse(message.body);
-          if (validStatuses.includes(payload.event)) {
+          const isDeltaBatch =
+            payload.type === 'DIALOG_UPDATES' &&
+            Array.isArray(payload.deltas) &&
+            payload.deltas.length > 0;
+          if (isDeltaBatch) {
+            callback(payload.deltas);
+          } else if (validStatuses.includes(payload.event)) {
             console.log('REFRESH LIST');
             callback();
           }